@@ -0,0 +1,33 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Benchmark fake: shared preferences are kept in memory, per context.
+ */
+public class Context {
+
+    public static final int MODE_PRIVATE = 0;
+
+    private final Map<String, SharedPreferences> preferences = new HashMap<>();
+
+    public synchronized SharedPreferences getSharedPreferences(String name, int mode) {
+        SharedPreferences sharedPreferences = preferences.get(name);
+        if (null == sharedPreferences) {
+            sharedPreferences = new InMemorySharedPreferences();
+            preferences.put(name, sharedPreferences);
+        }
+        return sharedPreferences;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package android.content;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Benchmark fake: edits are applied to the map right away on apply and commit.
+ */
+class InMemorySharedPreferences implements SharedPreferences {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    @Override
+    public synchronized String getString(String key, String defValue) {
+        return values.containsKey(key) ? values.get(key) : defValue;
+    }
+
+    @Override
+    public Editor edit() {
+        final Map<String, String> changes = new HashMap<>();
+        return new Editor() {
+            @Override
+            public Editor putString(String key, String value) {
+                changes.put(key, value);
+                return this;
+            }
+
+            @Override
+            public Editor remove(String key) {
+                changes.put(key, null);
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                synchronized (InMemorySharedPreferences.this) {
+                    for (Map.Entry<String, String> change : changes.entrySet()) {
+                        if (null == change.getValue()) {
+                            values.remove(change.getKey());
+                        } else {
+                            values.put(change.getKey(), change.getValue());
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public void apply() {
+                commit();
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.facebook.react.bridge;
+
+import android.content.Context;
+
+import java.util.HashMap;
+
+/*
+ * Benchmark fake: JS modules are plain objects registered up front.
+ */
+public class ReactContext extends Context {
+
+    private final HashMap<Class<?>, JavaScriptModule> jsModules = new HashMap<>();
+
+    public <T extends JavaScriptModule> void registerJSModule(Class<T> moduleInterface, T module) {
+        jsModules.put(moduleInterface, module);
+    }
+
+    public <T extends JavaScriptModule> T getJSModule(Class<T> moduleInterface) {
+        return moduleInterface.cast(jsModules.get(moduleInterface));
+    }
+}
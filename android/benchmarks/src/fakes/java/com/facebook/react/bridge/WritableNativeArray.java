@@ -0,0 +1,145 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.facebook.react.bridge;
+
+import java.util.ArrayList;
+
+/*
+ * Benchmark fake: an in-memory array in place of the JNI backed one.
+ * Like the native array, ints are stored as doubles.
+ */
+public class WritableNativeArray implements WritableArray {
+
+    private final ArrayList<Object> values = new ArrayList<>();
+
+    static ReadableType typeOf(Object value) {
+        if (null == value) {
+            return ReadableType.Null;
+        }
+        if (value instanceof Boolean) {
+            return ReadableType.Boolean;
+        }
+        if (value instanceof Number) {
+            return ReadableType.Number;
+        }
+        if (value instanceof String) {
+            return ReadableType.String;
+        }
+        if (value instanceof ReadableMap) {
+            return ReadableType.Map;
+        }
+        return ReadableType.Array;
+    }
+
+    static Object toJavaObject(Object value) {
+        if (value instanceof ReadableMap) {
+            return ((ReadableMap) value).toHashMap();
+        }
+        if (value instanceof ReadableArray) {
+            return ((ReadableArray) value).toArrayList();
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return null == values.get(index);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return (Boolean) values.get(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return ((Number) values.get(index)).doubleValue();
+    }
+
+    @Override
+    public int getInt(int index) {
+        return ((Number) values.get(index)).intValue();
+    }
+
+    @Override
+    public String getString(int index) {
+        return (String) values.get(index);
+    }
+
+    @Override
+    public ReadableArray getArray(int index) {
+        return (ReadableArray) values.get(index);
+    }
+
+    @Override
+    public ReadableMap getMap(int index) {
+        return (ReadableMap) values.get(index);
+    }
+
+    @Override
+    public ReadableType getType(int index) {
+        return typeOf(values.get(index));
+    }
+
+    @Override
+    public ArrayList<Object> toArrayList() {
+        ArrayList<Object> list = new ArrayList<>(values.size());
+        for (Object value : values) {
+            list.add(toJavaObject(value));
+        }
+        return list;
+    }
+
+    @Override
+    public void pushNull() {
+        values.add(null);
+    }
+
+    @Override
+    public void pushBoolean(boolean value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushInt(int value) {
+        values.add((double) value);
+    }
+
+    @Override
+    public void pushString(String value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushArray(WritableArray value) {
+        values.add(value);
+    }
+
+    @Override
+    public void pushMap(WritableMap value) {
+        values.add(value);
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk;
+
+import android.graphics.Bitmap;
+
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Benchmark fake. The sdk needs a device; on the JVM the bridge runs on SimulatedOstSdkFacade instead.
+ */
+public class OstSdk {
+
+    public static final String MNEMONICS = "mnemonics";
+
+    private static UnsupportedOperationException unavailable() {
+        return new UnsupportedOperationException("OstSdk is not available on the JVM, use SimulatedOstSdkFacade");
+    }
+
+    public static OstUser getUser(String userId) {
+        throw unavailable();
+    }
+
+    public static OstToken getToken(String tokenId) {
+        throw unavailable();
+    }
+
+    public static OstDevice getCurrentDeviceForUserId(String userId) {
+        throw unavailable();
+    }
+
+    public static List<OstSession> getActiveSessionsForUserId(String userId, String minimumSpendingLimitInWei) {
+        throw unavailable();
+    }
+
+    public static Bitmap getAddDeviceQRCode(String userId) {
+        throw unavailable();
+    }
+
+    public static boolean isBiometricEnabled(String userId) {
+        throw unavailable();
+    }
+
+    public static void setupDevice(String userId, String tokenId, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void activateUser(UserPassphrase passphrase, long expiresAfterInSecs, String spendingLimit, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void addSession(String userId, String spendingLimit, long expiresAfterInSecs, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void executeTransaction(String userId, List<String> tokenHolderAddresses, List<String> amounts, String ruleName,
+                                          Map<String, Object> meta, Map<String, Object> options, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void getDeviceMnemonics(String userId, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void authorizeCurrentDeviceWithMnemonics(String userId, byte[] mnemonics, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void performQRAction(String userId, String data, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void resetPin(String userId, UserPassphrase currentPassphrase, UserPassphrase newPassphrase, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void revokeDevice(String userId, String deviceAddress, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void initiateDeviceRecovery(String userId, UserPassphrase passphrase, String deviceAddressToRecover, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void abortDeviceRecovery(String userId, UserPassphrase passphrase, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void updateBiometricPreference(String userId, boolean enable, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+
+    public static void logoutAllSessions(String userId, OstWorkFlowCallback callback) {
+        throw unavailable();
+    }
+}
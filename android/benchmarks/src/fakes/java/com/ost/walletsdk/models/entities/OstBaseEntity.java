@@ -0,0 +1,37 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.models.entities;
+
+import org.json.JSONObject;
+
+/*
+ * Benchmark fake: an entity is its json data.
+ */
+public class OstBaseEntity {
+
+    private final JSONObject data;
+
+    public OstBaseEntity(JSONObject data) {
+        this.data = data;
+    }
+
+    public JSONObject getData() {
+        return data;
+    }
+
+    public String getId() {
+        return data.optString("id", null);
+    }
+
+    public String getStatus() {
+        return data.optString("status", null);
+    }
+}
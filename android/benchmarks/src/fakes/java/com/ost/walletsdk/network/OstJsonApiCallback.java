@@ -0,0 +1,25 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.network;
+
+import com.ost.walletsdk.workflows.errors.OstError;
+
+import org.json.JSONObject;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public interface OstJsonApiCallback {
+
+    void onOstJsonApiSuccess(@Nullable JSONObject data);
+
+    void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data);
+}
@@ -0,0 +1,18 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.ui;
+
+import com.ost.walletsdk.workflows.interfaces.OstBaseInterface;
+
+public interface OstPassphraseAcceptor extends OstBaseInterface {
+
+    void setPassphrase(String passphrase);
+}
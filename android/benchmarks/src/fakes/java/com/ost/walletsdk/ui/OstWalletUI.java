@@ -0,0 +1,46 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.ui;
+
+import android.content.Context;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Benchmark fake: records the theme and content configs it is given, in order.
+ */
+public class OstWalletUI {
+
+    private static final List<JSONObject> themeConfigs = new ArrayList<>();
+    private static final List<JSONObject> contentConfigs = new ArrayList<>();
+
+    public static void initialize(Context context, String baseUrl, JSONObject config) {
+    }
+
+    public static synchronized void setThemeConfig(Context context, JSONObject config) {
+        themeConfigs.add(config);
+    }
+
+    public static synchronized void setContentConfig(Context context, JSONObject config) {
+        contentConfigs.add(config);
+    }
+
+    public static synchronized List<JSONObject> getThemeConfigs() {
+        return new ArrayList<>(themeConfigs);
+    }
+
+    public static synchronized List<JSONObject> getContentConfigs() {
+        return new ArrayList<>(contentConfigs);
+    }
+}
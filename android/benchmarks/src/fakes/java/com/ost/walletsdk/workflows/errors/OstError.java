@@ -0,0 +1,57 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.errors;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/*
+ * Benchmark fake, serialized with the keys of the sdk error.
+ */
+public class OstError extends Error {
+
+    public static class OstJSONErrorKeys {
+        public static final String ERROR_MESSAGE = "error_message";
+        public static final String INTERNAL_ERROR_CODE = "internal_error_code";
+        public static final String ERROR_CODE = "error_code";
+        public static final String IS_API_ERROR = "is_api_error";
+    }
+
+    private final String internalErrorCode;
+    private final OstErrors.ErrorCode errorCode;
+
+    public OstError(String internalErrorCode, OstErrors.ErrorCode errorCode) {
+        super(errorCode.name());
+        this.internalErrorCode = internalErrorCode;
+        this.errorCode = errorCode;
+    }
+
+    public String getInternalErrorCode() {
+        return internalErrorCode;
+    }
+
+    public OstErrors.ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    public JSONObject toJSONObject() {
+        JSONObject err = new JSONObject();
+        try {
+            err.put(OstJSONErrorKeys.ERROR_MESSAGE, getMessage());
+            err.put(OstJSONErrorKeys.INTERNAL_ERROR_CODE, internalErrorCode);
+            err.put(OstJSONErrorKeys.ERROR_CODE, errorCode);
+            err.put(OstJSONErrorKeys.IS_API_ERROR, 0);
+        } catch (JSONException e) {
+            //Ignore.
+        }
+        return err;
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ost.walletsdk.workflows.errors;
+
+/*
+ * Benchmark fake: only the error codes used by the benchmarked code.
+ */
+public class OstErrors {
+
+    public enum ErrorCode {
+        INVALID_JSON_STRING,
+        INVALID_JSON_ARRAY,
+        UNCAUGHT_EXCEPTION_HANDELED,
+        WORKFLOW_CANCELLED,
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+
+/*
+ * Entities shaped like the ones the sdk hands to the bridge: a user, a token,
+ * 50 active sessions and a 100-row page of the transactions api.
+ * Values are deterministic so that runs can be compared with each other.
+ */
+final class BenchmarkFixtures {
+
+    static final int SESSION_COUNT = 50;
+    static final int TRANSACTION_PAGE_SIZE = 100;
+
+    private static final String USER_ID = "d39d6a34-1ea4-4ab8-b0ae-4d7a8c3ba4ab";
+    private static final String TOKEN_ID = "1129";
+    private static final long UPDATED_TIMESTAMP = 1565948862L;
+
+    private BenchmarkFixtures() {
+    }
+
+    static JSONObject user() throws JSONException {
+        JSONObject user = new JSONObject();
+        user.put("id", USER_ID);
+        user.put("token_id", TOKEN_ID);
+        user.put("token_holder_address", address(1));
+        user.put("device_manager_address", address(2));
+        user.put("recovery_address", address(3));
+        user.put("recovery_owner_address", address(4));
+        user.put("type", "user");
+        user.put("status", "ACTIVATED");
+        user.put("updated_timestamp", UPDATED_TIMESTAMP);
+        return user;
+    }
+
+    static JSONObject token() throws JSONException {
+        JSONObject token = new JSONObject();
+        token.put("id", Integer.parseInt(TOKEN_ID));
+        token.put("name", "Popcorn");
+        token.put("symbol", "POP");
+        token.put("base_token", "USDC");
+        token.put("conversion_factor", "10");
+        token.put("total_supply", "1000000000000000000000000000");
+        token.put("decimals", 6);
+        JSONObject originChain = new JSONObject();
+        originChain.put("chain_id", 3);
+        originChain.put("branded_token", address(10));
+        originChain.put("organization", organization(11));
+        originChain.put("stakers", new JSONArray().put(address(12)));
+        token.put("origin_chain", originChain);
+        JSONArray auxiliaryChains = new JSONArray();
+        JSONObject auxiliaryChain = new JSONObject();
+        auxiliaryChain.put("chain_id", 197);
+        auxiliaryChain.put("utility_branded_token", address(13));
+        auxiliaryChain.put("company_token_holders", new JSONArray().put(address(14)));
+        auxiliaryChain.put("company_uuids", new JSONArray().put("a1a8e2b4-5d5f-4a1e-b6a7-92c6a7d4e1f3"));
+        auxiliaryChain.put("organization", organization(15));
+        auxiliaryChains.put(auxiliaryChain);
+        token.put("auxiliary_chains", auxiliaryChains);
+        token.put("updated_timestamp", UPDATED_TIMESTAMP);
+        return token;
+    }
+
+    static JSONArray sessions() throws JSONException {
+        JSONArray sessions = new JSONArray();
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            JSONObject session = new JSONObject();
+            session.put("user_id", USER_ID);
+            session.put("address", address(100 + i));
+            session.put("expiration_height", 41954232L + i);
+            session.put("approx_expiration_timestamp", 1574573542L + i);
+            session.put("spending_limit", "1000000000000000000000");
+            session.put("nonce", i);
+            session.put("status", "AUTHORIZED");
+            session.put("updated_timestamp", UPDATED_TIMESTAMP + i);
+            sessions.put(session);
+        }
+        return sessions;
+    }
+
+    static JSONArray transactions() throws JSONException {
+        JSONArray transactions = new JSONArray();
+        for (int i = 0; i < TRANSACTION_PAGE_SIZE; i++) {
+            transactions.put(transaction(i));
+        }
+        return transactions;
+    }
+
+    /*
+     * Response of the transactions api: { result_type, transactions, meta }.
+     */
+    static JSONObject transactionPage() throws JSONException {
+        JSONObject nextPagePayload = new JSONObject();
+        nextPagePayload.put("pagination_identifier", "eyJsYXN0RXZhbHVhdGVkS2V5Ijp7InVpZCI6eyJTIjoiZDE5NGFhNzUtYWNkNS00ZjQwLWIzZmItZTczYTdjZjdjMGQ5In19fQ==");
+        nextPagePayload.put("limit", TRANSACTION_PAGE_SIZE);
+        JSONObject meta = new JSONObject();
+        meta.put("next_page_payload", nextPagePayload);
+        meta.put("total_no", 1842);
+        JSONObject page = new JSONObject();
+        page.put("result_type", "transactions");
+        page.put("transactions", transactions());
+        page.put("meta", meta);
+        return page;
+    }
+
+    /*
+     * Workflow context and entity, in the shape OstWorkFlowCallbackImpl passes them to invokeCallback.
+     */
+    static JSONObject callbackParams(String callbackName) throws JSONException {
+        JSONObject params = new JSONObject();
+        if ("getPin".equals(callbackName)) {
+            params.put("ostWorkflowContext", workflowContext("EXECUTE_TRANSACTION"));
+            params.put("userId", USER_ID);
+        } else if ("flowCompleteUser".equals(callbackName)) {
+            params.put("ostWorkflowContext", workflowContext("ACTIVATE_USER"));
+            params.put("ostContextEntity", contextEntity("user", user()));
+        } else if ("flowCompleteTransaction".equals(callbackName)) {
+            params.put("ostWorkflowContext", workflowContext("EXECUTE_TRANSACTION"));
+            params.put("ostContextEntity", contextEntity("transaction", transaction(0)));
+        } else if ("flowInterrupt".equals(callbackName)) {
+            JSONObject ostError = new JSONObject();
+            ostError.put("error_message", "Workflow cancelled");
+            ostError.put("internal_error_code", "rn_owfcb_cf_1");
+            ostError.put("error_code", "WORKFLOW_CANCELLED");
+            ostError.put("is_api_error", 0);
+            params.put("ostWorkflowContext", workflowContext("EXECUTE_TRANSACTION"));
+            params.put("ostError", ostError);
+        } else {
+            throw new IllegalArgumentException("Unknown callback " + callbackName);
+        }
+        return params;
+    }
+
+    private static JSONObject workflowContext(String workflowType) throws JSONException {
+        return new JSONObject().put("WORKFLOW_TYPE", workflowType);
+    }
+
+    private static JSONObject contextEntity(String entityType, JSONObject entity) throws JSONException {
+        JSONObject contextEntity = new JSONObject();
+        contextEntity.put("entityType", entityType);
+        contextEntity.put("message", JSONObject.NULL);
+        contextEntity.put("entity", entity);
+        return contextEntity;
+    }
+
+    private static JSONObject transaction(int i) throws JSONException {
+        JSONObject transaction = new JSONObject();
+        transaction.put("id", String.format("%08x-4d5e-4f60-8a9b-%012x", i, 0x5e1f2a3b4c5dL + i));
+        transaction.put("transaction_hash", hash(1000 + i));
+        transaction.put("from", address(200 + i));
+        transaction.put("to", address(300));
+        transaction.put("nonce", 18L + i);
+        transaction.put("value", "0");
+        transaction.put("gas_price", 1000000000L);
+        transaction.put("gas_used", 120652);
+        transaction.put("transaction_fee", "120652000000000");
+        transaction.put("block_confirmation", 24);
+        transaction.put("status", "SUCCESS");
+        transaction.put("updated_timestamp", UPDATED_TIMESTAMP + i);
+        transaction.put("block_timestamp", UPDATED_TIMESTAMP + i);
+        transaction.put("block_number", 12049283L + i);
+        transaction.put("rule_name", "Direct Transfer");
+
+        JSONObject metaProperty = new JSONObject();
+        metaProperty.put("name", "Like");
+        metaProperty.put("type", "user_to_user");
+        metaProperty.put("details", "like on post " + i);
+        transaction.put("meta_property", metaProperty);
+
+        JSONArray transfers = new JSONArray();
+        JSONObject transfer = new JSONObject();
+        transfer.put("from", address(200 + i));
+        transfer.put("from_user_id", USER_ID);
+        transfer.put("to", address(400 + i));
+        transfer.put("to_user_id", String.format("%08x-1ea4-4ab8-b0ae-4d7a8c3ba4ab", 400 + i));
+        transfer.put("amount", new BigInteger("1000000000000000000").multiply(BigInteger.valueOf(i + 1)));
+        transfer.put("kind", "transfer");
+        transfers.put(transfer);
+        transaction.put("transfers", transfers);
+        return transaction;
+    }
+
+    private static JSONObject organization(int seed) throws JSONException {
+        JSONObject organization = new JSONObject();
+        organization.put("contract", address(seed));
+        organization.put("owner", address(seed + 1000));
+        return organization;
+    }
+
+    private static String address(int seed) {
+        return "0x" + hex(seed, 40);
+    }
+
+    private static String hash(int seed) {
+        return "0x" + hex(seed, 64);
+    }
+
+    private static String hex(int seed, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        BigInteger value = BigInteger.valueOf(seed).multiply(new BigInteger("9e3779b97f4a7c15", 16));
+        while (builder.length() < length) {
+            builder.append(value.toString(16));
+            value = value.multiply(BigInteger.valueOf(31)).add(BigInteger.valueOf(seed));
+        }
+        return builder.substring(0, length);
+    }
+}
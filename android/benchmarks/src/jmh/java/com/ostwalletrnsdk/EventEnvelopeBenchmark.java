@@ -0,0 +1,82 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The envelope every workflow callback is sent to JS in (OstWorkFlowCallbackImpl.invokeCallback),
+ * as a WritableMap and as a JSON string, and the full emit into a fake RCTDeviceEventEmitter.
+ */
+@State(Scope.Benchmark)
+public class EventEnvelopeBenchmark {
+
+    private static final String UUID = "5b3c1e2a-4f6d-4a8b-9c0d-1e2f3a4b5c6d";
+    private static final String INTERACT_UUID = "7f8e9d0c-1b2a-4394-8576-a6b5c4d3e2f1";
+
+    @Param({"getPin", "flowCompleteUser", "flowCompleteTransaction", "flowInterrupt"})
+    public String callback;
+
+    private JSONObject params;
+    private String functionName;
+    private String interactName;
+    private String interactId;
+    private ReactContext reactContext;
+    private Object lastPayload;
+
+    @Setup
+    public void setUp() throws JSONException {
+        params = BenchmarkFixtures.callbackParams(callback);
+        functionName = callback.startsWith("flowComplete") ? "flowComplete" : callback;
+        if ("getPin".equals(callback)) {
+            interactName = "OstPinAcceptInterface";
+            interactId = INTERACT_UUID;
+        }
+        reactContext = new ReactContext();
+        reactContext.registerJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class,
+                new DeviceEventManagerModule.RCTDeviceEventEmitter() {
+                    @Override
+                    public void emit(String eventName, Object data) {
+                        lastPayload = data;
+                    }
+                });
+        OstRNSdkEventEmitter.setUseJsonStringPayload(false);
+        OstRNSdkEventEmitter.setBatchingConfig(false, 0, 0);
+    }
+
+    @Benchmark
+    public WritableMap buildEnvelope() {
+        return OstRNSdkEventEmitter.buildEnvelope(UUID, functionName, params, interactName, interactId);
+    }
+
+    @Benchmark
+    public String buildJsonEnvelope() {
+        return OstRNSdkEventEmitter.buildJsonEnvelope(UUID, functionName, params, interactName, interactId).toString();
+    }
+
+    @Benchmark
+    public void emit(Blackhole blackhole) {
+        OstRNSdkEventEmitter.emit(reactContext, OstRNSdkEventEmitter.SDK_EVENTS, UUID, functionName, params,
+                interactName, interactId);
+        blackhole.consume(lastPayload);
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Utils.getError for an sdk error and for an unexpected exception.
+ */
+@State(Scope.Benchmark)
+public class GetErrorBenchmark {
+
+    private final OstError ostError = new OstError("rn_ownsm_gu_1", OstErrors.ErrorCode.INVALID_JSON_STRING);
+    private final Throwable exception = new IllegalStateException("Unexpected state while reading the user");
+
+    @Benchmark
+    public String ostError() {
+        return Utils.getError(ostError, "rn_ownsm_gu_1");
+    }
+
+    @Benchmark
+    public String uncaughtException() {
+        return Utils.getError(exception, "rn_ownsm_gu_2");
+    }
+}
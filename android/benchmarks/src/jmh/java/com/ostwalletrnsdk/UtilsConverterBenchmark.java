@@ -0,0 +1,87 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+
+/*
+ * JSON <-> bridge conversions of Utils, on entity sized payloads.
+ * The ReadableMap inputs are the converted fixtures, i.e. what JS sends back for the same entities.
+ */
+public class UtilsConverterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class MapFixture {
+        @Param({"user", "token", "transactionPage"})
+        public String fixture;
+
+        JSONObject json;
+        ReadableMap readableMap;
+
+        @Setup
+        public void setUp() throws JSONException {
+            if ("user".equals(fixture)) {
+                json = BenchmarkFixtures.user();
+            } else if ("token".equals(fixture)) {
+                json = BenchmarkFixtures.token();
+            } else {
+                json = BenchmarkFixtures.transactionPage();
+            }
+            readableMap = Utils.convertJsonToMap(json);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ArrayFixture {
+        @Param({"sessions", "transactions"})
+        public String fixture;
+
+        JSONArray json;
+
+        @Setup
+        public void setUp() throws JSONException {
+            json = "sessions".equals(fixture) ? BenchmarkFixtures.sessions() : BenchmarkFixtures.transactions();
+        }
+    }
+
+    @Benchmark
+    public WritableMap convertJsonToMap(MapFixture state) throws JSONException {
+        return Utils.convertJsonToMap(state.json);
+    }
+
+    @Benchmark
+    public WritableArray convertJsonToArray(ArrayFixture state) throws JSONException {
+        return Utils.convertJsonToArray(state.json);
+    }
+
+    @Benchmark
+    public JSONObject convertMapToJson(MapFixture state) throws JSONException {
+        return Utils.convertMapToJson(state.readableMap);
+    }
+
+    @Benchmark
+    public HashMap<String, Object> convertMapToHashMap(MapFixture state) throws JSONException {
+        return Utils.convertMapToHashMap(state.readableMap);
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
+import com.ostwalletrnsdk.simulator.SimulatedOstSdkFacade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Pushes concurrent workflows through the bridge: OstWorkFlowCallbackImpl, the BaseSdkInteract wraps
+ * and OstRNSdkCallbackManager, on top of SimulatedOstSdkFacade.
+ * A fake JS runtime receives the emitted events on a single thread, like the JS thread, and answers
+ * getPin / registerDevice / verifyData through OstRNSdkCallbackManager (or cancels at --cancelRate).
+ * Workflows are started the way OstWalletRnSdkModule starts them, on the WORKFLOW executor lane and through
+ * OstWorkflowScheduler, which is enabled with --scheduler=<max concurrent> and spreads --users users.
+ *
+ * Reports throughput, start-to-end latency percentiles and the registry entries left behind once every
+ * workflow has ended. Exits with 1 when workflows did not end or registry entries leaked.
+ */
+public class BridgeLoadHarness {
+
+    private static final OstWorkflowContext.WORKFLOW_TYPE[] WORKFLOW_MIX = {
+            OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION,
+            OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION,
+            OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION,
+            OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION,
+            OstWorkflowContext.WORKFLOW_TYPE.ADD_SESSION,
+            OstWorkflowContext.WORKFLOW_TYPE.PERFORM_QR_ACTION,
+            OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE,
+            OstWorkflowContext.WORKFLOW_TYPE.GET_DEVICE_MNEMONICS,
+            OstWorkflowContext.WORKFLOW_TYPE.UPDATE_BIOMETRIC_PREFERENCE,
+            OstWorkflowContext.WORKFLOW_TYPE.ACTIVATE_USER,
+    };
+
+    private static final String USER_ID = "d39d6a34-1ea4-4ab8-b0ae-4d7a8c3ba4ab";
+
+    static final class Options {
+        int workflows = 5000;
+        int concurrency = 1000;
+        long minLatencyMs = 5;
+        long maxLatencyMs = 50;
+        double failureRate = 0.05;
+        double cancelRate = 0.02;
+        long minJsDelayMs = 0;
+        long maxJsDelayMs = 2;
+        long seed = 42;
+        int simulatorThreads = 4;
+        long timeoutSec = 120;
+        int schedulerMaxConcurrent = 0;
+        int users = 1;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (arg.isEmpty()) {
+                    continue;
+                }
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, separator);
+                String value = arg.substring(separator + 1);
+                if ("workflows".equals(name)) {
+                    options.workflows = Integer.parseInt(value);
+                } else if ("concurrency".equals(name)) {
+                    options.concurrency = Integer.parseInt(value);
+                } else if ("latency".equals(name)) {
+                    long[] range = parseRange(value);
+                    options.minLatencyMs = range[0];
+                    options.maxLatencyMs = range[1];
+                } else if ("failureRate".equals(name)) {
+                    options.failureRate = Double.parseDouble(value);
+                } else if ("cancelRate".equals(name)) {
+                    options.cancelRate = Double.parseDouble(value);
+                } else if ("jsDelay".equals(name)) {
+                    long[] range = parseRange(value);
+                    options.minJsDelayMs = range[0];
+                    options.maxJsDelayMs = range[1];
+                } else if ("seed".equals(name)) {
+                    options.seed = Long.parseLong(value);
+                } else if ("simulatorThreads".equals(name)) {
+                    options.simulatorThreads = Integer.parseInt(value);
+                } else if ("timeoutSec".equals(name)) {
+                    options.timeoutSec = Long.parseLong(value);
+                } else if ("scheduler".equals(name)) {
+                    options.schedulerMaxConcurrent = Integer.parseInt(value);
+                } else if ("users".equals(name)) {
+                    options.users = Math.max(1, Integer.parseInt(value));
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            return options;
+        }
+
+        private static long[] parseRange(String value) {
+            int separator = value.indexOf('-');
+            if (separator < 0) {
+                long single = Long.parseLong(value);
+                return new long[]{single, single};
+            }
+            return new long[]{Long.parseLong(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1))};
+        }
+    }
+
+    /*
+     * Stands in for the JS side of the bridge.
+     */
+    private static final class FakeJs implements DeviceEventManagerModule.RCTDeviceEventEmitter {
+        private final Options options;
+        private final OstRNSdkCallbackManager callbackManager;
+        private final ScheduledExecutorService jsThread = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "js");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Only used on the js thread.
+        private final Random random;
+        private final Map<String, Long> callbackCounts = new TreeMap<>();
+        private final Map<String, Long> interruptCounts = new TreeMap<>();
+
+        final ConcurrentHashMap<String, Long> startNanos = new ConcurrentHashMap<>();
+        final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<Long>());
+        final AtomicLong completed = new AtomicLong(0);
+        final AtomicLong failed = new AtomicLong(0);
+        final AtomicLong cancelled = new AtomicLong(0);
+        final AtomicLong duplicateEnds = new AtomicLong(0);
+        final AtomicLong answerErrors = new AtomicLong(0);
+        Semaphore slots;
+        CountDownLatch done;
+
+        private final Callback errorCallback = new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                answerErrors.incrementAndGet();
+            }
+        };
+
+        FakeJs(Options options, OstRNSdkCallbackManager callbackManager) {
+            this.options = options;
+            this.callbackManager = callbackManager;
+            this.random = new Random(options.seed);
+        }
+
+        @Override
+        public void emit(String eventName, final Object data) {
+            jsThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long delayMs = nextDelayMs();
+                    if (delayMs <= 0) {
+                        handle((ReadableMap) data);
+                        return;
+                    }
+                    jsThread.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            handle((ReadableMap) data);
+                        }
+                    }, delayMs, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+
+        private long nextDelayMs() {
+            long spread = options.maxJsDelayMs - options.minJsDelayMs;
+            return options.minJsDelayMs + (spread <= 0 ? 0 : (long) (random.nextDouble() * (spread + 1)));
+        }
+
+        private void handle(ReadableMap event) {
+            String functionName = event.getString(OstRNSdkEventEmitter.FUNCTION_NAME_KEY);
+            String uuid = event.getString(OstRNSdkEventEmitter.UUID_KEY);
+            String interactId = event.hasKey(OstRNSdkEventEmitter.INTERACT_UUID_KEY)
+                    ? event.getString(OstRNSdkEventEmitter.INTERACT_UUID_KEY) : null;
+            Long count = callbackCounts.get(functionName);
+            callbackCounts.put(functionName, null == count ? 1 : count + 1);
+
+            boolean isInteractive = "getPin".equals(functionName) || "invalidPin".equals(functionName)
+                    || "registerDevice".equals(functionName) || "verifyData".equals(functionName);
+            if (isInteractive && random.nextDouble() < options.cancelRate) {
+                callbackManager.cancelFlow(interactId);
+                return;
+            }
+
+            if ("getPin".equals(functionName) || "invalidPin".equals(functionName)) {
+                callbackManager.pinEntered(interactId, USER_ID, "123456", "passphrase-prefix-0123456789abcdef", errorCallback);
+            } else if ("registerDevice".equals(functionName)) {
+                callbackManager.deviceRegistered(interactId, "{}", errorCallback);
+            } else if ("verifyData".equals(functionName)) {
+                callbackManager.dataVerified(interactId, errorCallback);
+            } else if ("flowComplete".equals(functionName) || "flowInterrupt".equals(functionName)) {
+                ended(uuid, functionName, event);
+            }
+        }
+
+        private void ended(String uuid, String functionName, ReadableMap event) {
+            Long started = startNanos.remove(uuid);
+            if (null == started) {
+                duplicateEnds.incrementAndGet();
+                return;
+            }
+            latenciesNanos.add(System.nanoTime() - started);
+            if ("flowComplete".equals(functionName)) {
+                completed.incrementAndGet();
+            } else {
+                ReadableMap params = event.getMap(OstRNSdkEventEmitter.PARAMS_KEY);
+                ReadableMap ostError = null == params ? null : params.getMap("ostError");
+                String internalErrorCode = null == ostError ? null : ostError.getString("internal_error_code");
+                Long count = interruptCounts.get(internalErrorCode);
+                interruptCounts.put(internalErrorCode, null == count ? 1 : count + 1);
+                if (null != ostError && "WORKFLOW_CANCELLED".equals(ostError.getString("error_code"))) {
+                    cancelled.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+            }
+            slots.release();
+            done.countDown();
+        }
+
+        Map<String, Long> getCallbackCounts() throws InterruptedException {
+            return copyOnJsThread(callbackCounts);
+        }
+
+        Map<String, Long> getInterruptCounts() throws InterruptedException {
+            return copyOnJsThread(interruptCounts);
+        }
+
+        private Map<String, Long> copyOnJsThread(final Map<String, Long> source) throws InterruptedException {
+            final Map<String, Long> counts = new TreeMap<>();
+            final CountDownLatch copied = new CountDownLatch(1);
+            jsThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    counts.putAll(source);
+                    copied.countDown();
+                }
+            });
+            copied.await(5, TimeUnit.SECONDS);
+            return counts;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+
+        SimulatedOstSdkFacade simulator = new SimulatedOstSdkFacade(options.seed, options.simulatorThreads);
+        simulator.setLatency(options.minLatencyMs, options.maxLatencyMs);
+        simulator.setFailureRate(options.failureRate);
+        OstSdkFacadeProvider.set(simulator);
+        if (options.schedulerMaxConcurrent > 0) {
+            OstWorkflowScheduler.getInstance().setMaxConcurrent(options.schedulerMaxConcurrent);
+            OstWorkflowScheduler.getInstance().setEnabled(true);
+        }
+
+        final ReactApplicationContext reactContext = new ReactApplicationContext();
+        OstRNSdkCallbackManager callbackManager = new OstRNSdkCallbackManager(reactContext);
+        FakeJs js = new FakeJs(options, callbackManager);
+        js.slots = new Semaphore(options.concurrency);
+        js.done = new CountDownLatch(options.workflows);
+        reactContext.registerJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class, js);
+
+        System.out.println(String.format("Running %d workflows, %d concurrent, sdk latency %d-%d ms, failure rate %.2f, cancel rate %.2f",
+                options.workflows, options.concurrency, options.minLatencyMs, options.maxLatencyMs,
+                options.failureRate, options.cancelRate));
+        if (options.schedulerMaxConcurrent > 0) {
+            System.out.println(String.format("Scheduler    max concurrent %d, %d users", options.schedulerMaxConcurrent, options.users));
+        }
+
+        long runStartNanos = System.nanoTime();
+        for (int i = 0; i < options.workflows; i++) {
+            js.slots.acquire();
+            String uuid = "load-" + i;
+            js.startNanos.put(uuid, System.nanoTime());
+            String userId = 1 == options.users ? USER_ID : USER_ID + "-" + (i % options.users);
+            start(uuid, userId, WORKFLOW_MIX[i % WORKFLOW_MIX.length], reactContext);
+        }
+        boolean allEnded = js.done.await(options.timeoutSec, TimeUnit.SECONDS);
+        double durationSec = (System.nanoTime() - runStartNanos) / 1e9;
+
+        // Let cleanup that runs after the terminal callback settle before counting leaks.
+        Thread.sleep(500);
+
+        long unfinished = js.startNanos.size();
+        int liveWorkflows = OstWorkFlowCallbackImpl.getLiveCount();
+        int liveInteracts = BaseSdkInteract.registry.size();
+        int watchedWorkflows = OstWorkflowWatchdog.getInstance().getWatchedCount();
+        int simulatorInFlight = simulator.getInFlightCount();
+        int scheduled = OstWorkflowScheduler.getInstance().getRunningCount() + OstWorkflowScheduler.getInstance().getQueuedCount();
+
+        List<Long> latencies = new ArrayList<>(js.latenciesNanos);
+        Collections.sort(latencies);
+
+        System.out.println();
+        System.out.println(String.format("Workflows    %d (completed %d, failed %d, cancelled %d, unfinished %d)",
+                options.workflows, js.completed.get(), js.failed.get(), js.cancelled.get(), unfinished));
+        System.out.println(String.format("Duration     %.2f s", durationSec));
+        System.out.println(String.format("Throughput   %.1f workflows/s", (options.workflows - unfinished) / durationSec));
+        System.out.println(String.format("Latency ms   p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f",
+                percentileMs(latencies, 50), percentileMs(latencies, 90), percentileMs(latencies, 99),
+                percentileMs(latencies, 99.9), percentileMs(latencies, 100)));
+        System.out.println("Callbacks    " + js.getCallbackCounts());
+        System.out.println("Interrupts   " + js.getInterruptCounts());
+        System.out.println(String.format("Errors       answer errors %d, duplicate flow ends %d",
+                js.answerErrors.get(), js.duplicateEnds.get()));
+        System.out.println(String.format("Leaks        live workflows %d, live interacts %d, watched workflows %d, simulator in flight %d, scheduled %d",
+                liveWorkflows, liveInteracts, watchedWorkflows, simulatorInFlight, scheduled));
+
+        boolean isClean = allEnded && 0 == unfinished && 0 == liveWorkflows && 0 == liveInteracts
+                && 0 == watchedWorkflows && 0 == scheduled && 0 == js.duplicateEnds.get();
+        System.out.println(isClean ? "OK" : "FAILED");
+        simulator.shutdown();
+        System.exit(isClean ? 0 : 1);
+    }
+
+    /*
+     * Starts the workflow the way OstWalletRnSdkModule does.
+     */
+    private static void start(final String uuid,
+                              final String userId,
+                              final OstWorkflowContext.WORKFLOW_TYPE workflowType,
+                              final ReactApplicationContext reactContext) {
+        OstExecutors.getInstance().execute(OstExecutors.Lane.WORKFLOW, new Runnable() {
+            @Override
+            public void run() {
+                OstWorkflowContext context = new OstWorkflowContext(workflowType);
+                final OstWorkFlowCallbackImpl callback = new OstWorkFlowCallbackImpl(uuid, reactContext, context);
+                OstWorkflowScheduler.getInstance().submit(uuid, userId, callback, context, new Runnable() {
+                    @Override
+                    public void run() {
+                        startSdkWorkflow(userId, workflowType, callback);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void startSdkWorkflow(String userId,
+                                         OstWorkflowContext.WORKFLOW_TYPE workflowType,
+                                         OstWorkFlowCallbackImpl callback) {
+        OstSdkFacade sdk = OstSdkFacadeProvider.get();
+        switch (workflowType) {
+            case ADD_SESSION:
+                sdk.addSession(userId, "1000000000000000000", 86400, callback);
+                break;
+            case PERFORM_QR_ACTION:
+                sdk.performQRAction(userId, "{\"dd\":\"TX\",\"ddv\":\"1.0.0\"}", callback);
+                break;
+            case SETUP_DEVICE:
+                sdk.setupDevice(userId, "1129", callback);
+                break;
+            case GET_DEVICE_MNEMONICS:
+                sdk.getDeviceMnemonics(userId, callback);
+                break;
+            case UPDATE_BIOMETRIC_PREFERENCE:
+                sdk.updateBiometricPreference(userId, true, callback);
+                break;
+            case ACTIVATE_USER:
+                sdk.activateUser(new UserPassphrase(userId, "123456", "passphrase-prefix-0123456789abcdef"),
+                        86400, "1000000000000000000", callback);
+                break;
+            case EXECUTE_TRANSACTION:
+            default:
+                sdk.executeTransaction(userId,
+                        Arrays.asList("0x8f1f4e4c1d4a3b5e6f7a8b9c0d1e2f3a4b5c6d7e"),
+                        Arrays.asList("1000000000000000000"),
+                        "direct transfer", null, null, callback);
+                break;
+        }
+    }
+
+    private static double percentileMs(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, Math.min(sortedNanos.size() - 1, index))) / 1e6;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.ostwalletrnsdk.simulator.SimulatedOstSdkFacade;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Reads the biometric preference, the one entity the simulator lets a test change. The snapshot is
+ * process-wide, so every test uses its own user. Reloads run on the calling thread.
+ */
+public class OstEntitySnapshotTest {
+
+    /*
+     * Runs duringLoad once, after the preference was read and before the snapshot gets it.
+     */
+    private static final class RacingFacade extends SimulatedOstSdkFacade {
+        volatile boolean isBiometricEnabled = false;
+        Runnable duringLoad;
+
+        RacingFacade() {
+            super(0, 1);
+        }
+
+        @Override
+        public boolean isBiometricEnabled(String userId) {
+            boolean value = isBiometricEnabled;
+            Runnable runnable = duringLoad;
+            duringLoad = null;
+            if (null != runnable) {
+                runnable.run();
+            }
+            return value;
+        }
+    }
+
+    private final OstEntitySnapshot snapshot = OstEntitySnapshot.getInstance();
+    private RacingFacade facade;
+
+    @Before
+    public void setUp() {
+        OstExecutors.getInstance().setEnabled(false);
+        facade = new RacingFacade();
+        OstSdkFacadeProvider.set(facade);
+    }
+
+    @After
+    public void tearDown() {
+        OstSdkFacadeProvider.set(null);
+        facade.shutdown();
+        OstExecutors.getInstance().setEnabled(true);
+    }
+
+    @Test
+    public void loadStartedBeforeAnInvalidationIsNotStored() {
+        final String userId = "snapshot-racing-user";
+        facade.duringLoad = new Runnable() {
+            @Override
+            public void run() {
+                // The workflow completes while the getter is loading.
+                facade.isBiometricEnabled = true;
+                snapshot.invalidate(userId);
+            }
+        };
+
+        // The racing getter returns what it read, but does not keep it.
+        assertFalse(snapshot.isBiometricEnabled(userId));
+        assertTrue(snapshot.isBiometricEnabled(userId));
+    }
+
+    @Test
+    public void reloadReplacesAnEntryLoadedByAGetter() {
+        final String userId = "snapshot-reloaded-user";
+        assertFalse(snapshot.isBiometricEnabled(userId));
+
+        facade.isBiometricEnabled = true;
+        snapshot.invalidate(userId);
+        facade.isBiometricEnabled = false;
+        // Served from the reload done by invalidate, not read again.
+        assertTrue(snapshot.isBiometricEnabled(userId));
+    }
+
+    @Test
+    public void invalidatingAnotherUserKeepsTheEntry() {
+        String userId = "snapshot-kept-user";
+        assertFalse(snapshot.isBiometricEnabled(userId));
+
+        facade.isBiometricEnabled = true;
+        snapshot.invalidate("snapshot-other-user");
+        assertFalse(snapshot.isBiometricEnabled(userId));
+    }
+}
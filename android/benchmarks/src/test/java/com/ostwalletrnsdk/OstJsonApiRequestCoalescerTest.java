@@ -0,0 +1,239 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.ost.walletsdk.network.OstJsonApiCallback;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OstJsonApiRequestCoalescerTest {
+
+    /*
+     * Keeps the callbacks of issued requests, so that the test decides when they complete.
+     */
+    private static final class HeldApiCall extends OstJsonApiRequestCoalescer.ApiCall {
+        final List<OstJsonApiCallback> issued = new ArrayList<>();
+
+        HeldApiCall() {
+            super("getTransactions");
+        }
+
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            issued.add(callback);
+        }
+    }
+
+    private static final class RecordingCallback implements OstJsonApiCallback {
+        final List<JSONObject> responses = new ArrayList<>();
+        final List<OstError> errors = new ArrayList<>();
+
+        @Override
+        public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+            responses.add(data);
+        }
+
+        @Override
+        public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
+            errors.add(err);
+        }
+    }
+
+    /*
+     * Caches responses like the cached getters of OstRNSdkJsonApiModule do.
+     */
+    private static final class CachingCallback implements OstJsonApiCallback {
+        final OstJsonApiResponseCache cache;
+        final long generation;
+        final List<JSONObject> responses = new ArrayList<>();
+
+        CachingCallback(OstJsonApiResponseCache cache) {
+            this.cache = cache;
+            this.generation = cache.getGeneration();
+        }
+
+        @Override
+        public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+            cache.put(OstJsonApiResponseCache.BALANCE, "user-1", data, generation);
+            responses.add(data);
+        }
+
+        @Override
+        public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
+        }
+    }
+
+    private OstJsonApiRequestCoalescer coalescer;
+    private HeldApiCall apiCall;
+
+    @Before
+    public void setUp() {
+        // Requests are issued on the calling thread.
+        OstExecutors.getInstance().setEnabled(false);
+        coalescer = new OstJsonApiRequestCoalescer();
+        apiCall = new HeldApiCall();
+    }
+
+    @After
+    public void tearDown() {
+        OstExecutors.getInstance().setEnabled(true);
+    }
+
+    @Test
+    public void identicalConcurrentCallsShareOneRequest() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        coalescer.execute(apiCall, "user-1", payload("page", 2), first);
+        coalescer.execute(apiCall, "user-1", payload("page", 2), second);
+
+        assertEquals(1, apiCall.issued.size());
+        assertEquals(1, coalescer.getIssuedCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+        assertEquals(1, coalescer.getInFlightCount());
+
+        JSONObject response = new JSONObject();
+        apiCall.issued.get(0).onOstJsonApiSuccess(response);
+        assertSame(response, first.responses.get(0));
+        assertSame(response, second.responses.get(0));
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void callAfterCompletionIssuesANewRequest() {
+        coalescer.execute(apiCall, "user-1", null, new RecordingCallback());
+        apiCall.issued.get(0).onOstJsonApiSuccess(new JSONObject());
+
+        coalescer.execute(apiCall, "user-1", null, new RecordingCallback());
+        assertEquals(2, apiCall.issued.size());
+    }
+
+    @Test
+    public void errorIsDeliveredToEveryWaiter() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        coalescer.execute(apiCall, "user-1", null, first);
+        coalescer.execute(apiCall, "user-1", null, second);
+
+        OstError error = new OstError("test_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED);
+        apiCall.issued.get(0).onOstJsonApiError(error, null);
+        assertSame(error, first.errors.get(0));
+        assertSame(error, second.errors.get(0));
+    }
+
+    @Test
+    public void differentPayloadsAreNotShared() {
+        coalescer.execute(apiCall, "user-1", payload("page", 1), new RecordingCallback());
+        coalescer.execute(apiCall, "user-1", payload("page", 2), new RecordingCallback());
+        coalescer.execute(apiCall, "user-2", payload("page", 1), new RecordingCallback());
+        assertEquals(3, apiCall.issued.size());
+    }
+
+    @Test
+    public void callAfterAnInvalidationDoesNotJoinARequestIssuedBeforeIt() {
+        OstJsonApiResponseCache cache = new OstJsonApiResponseCache();
+        CachingCallback before = new CachingCallback(cache);
+        coalescer.execute(apiCall, "user-1", null, before.generation, before);
+        cache.invalidateBalances("user-1");
+        CachingCallback after = new CachingCallback(cache);
+        coalescer.execute(apiCall, "user-1", null, after.generation, after);
+        assertEquals(2, apiCall.issued.size());
+        assertEquals(0, coalescer.getCoalescedCount());
+
+        // The response from before the transfer reaches only its own caller, and is not cached.
+        JSONObject stale = new JSONObject();
+        apiCall.issued.get(0).onOstJsonApiSuccess(stale);
+        assertSame(stale, before.responses.get(0));
+        assertTrue(after.responses.isEmpty());
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE, "user-1"));
+        assertEquals(1, coalescer.getInFlightCount());
+
+        JSONObject fresh = new JSONObject();
+        apiCall.issued.get(1).onOstJsonApiSuccess(fresh);
+        assertSame(fresh, after.responses.get(0));
+        assertSame(fresh, cache.get(OstJsonApiResponseCache.BALANCE, "user-1").data);
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void callOfAnOlderGenerationJoinsANewerRequest() {
+        coalescer.execute(apiCall, "user-1", null, 1, new RecordingCallback());
+        coalescer.execute(apiCall, "user-1", null, 0, new RecordingCallback());
+        assertEquals(1, apiCall.issued.size());
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void keyDoesNotDependOnMapKeyOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", "x");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", "x");
+        second.put("a", 1);
+        assertEquals(OstJsonApiRequestCoalescer.key("api", "user", first),
+                OstJsonApiRequestCoalescer.key("api", "user", second));
+    }
+
+    @Test
+    public void keyDistinguishesValueTypes() {
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("page", "1")));
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("flag", true)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("flag", "true")));
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("list", Arrays.<Object>asList(1, 2))),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("list", "[1, 2]")));
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("value", null)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("value", "null")));
+    }
+
+    @Test
+    public void keyWritesIntegralNumbersAlike() {
+        assertEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1.0d)));
+        assertEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1L)));
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1)),
+                OstJsonApiRequestCoalescer.key("api", "user", payload("page", 1.5d)));
+    }
+
+    @Test
+    public void keyIsNotAmbiguousAcrossApiNameAndUserId() {
+        assertNotEquals(OstJsonApiRequestCoalescer.key("api|user", "1", null),
+                OstJsonApiRequestCoalescer.key("api", "user|1", null));
+    }
+
+    private static Map<String, Object> payload(String key, Object value) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put(key, value);
+        return payload;
+    }
+}
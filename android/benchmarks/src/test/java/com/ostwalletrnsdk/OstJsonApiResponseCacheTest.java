@@ -0,0 +1,136 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class OstJsonApiResponseCacheTest {
+
+    private static final String USER = "user-1";
+    private static final String OTHER_USER = "user-2";
+
+    private static final class FakeClock implements OstJsonApiResponseCache.Clock {
+        long nanos = 0;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+
+        void advanceMs(long ms) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(ms);
+        }
+    }
+
+    private FakeClock clock;
+    private OstJsonApiResponseCache cache;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        cache = new OstJsonApiResponseCache(clock);
+    }
+
+    @Test
+    public void servesAFreshEntryWithinTheTtl() {
+        JSONObject data = new JSONObject();
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, data, cache.getGeneration());
+
+        OstJsonApiResponseCache.Entry entry = cache.get(OstJsonApiResponseCache.BALANCE, USER);
+        assertSame(data, entry.data);
+        assertEquals(OstJsonApiResponseCache.State.FRESH, cache.getState(OstJsonApiResponseCache.BALANCE, entry));
+    }
+
+    @Test
+    public void entryIsStaleAfterTheTtlAndMissAfterMaxStale() {
+        cache.setPolicy(OstJsonApiResponseCache.BALANCE, 1000, 5000);
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, new JSONObject(), cache.getGeneration());
+        OstJsonApiResponseCache.Entry entry = cache.get(OstJsonApiResponseCache.BALANCE, USER);
+
+        clock.advanceMs(1000);
+        assertEquals(OstJsonApiResponseCache.State.FRESH, cache.getState(OstJsonApiResponseCache.BALANCE, entry));
+        assertEquals(1000, cache.getAgeMs(entry));
+
+        clock.advanceMs(1);
+        assertEquals(OstJsonApiResponseCache.State.STALE, cache.getState(OstJsonApiResponseCache.BALANCE, entry));
+
+        clock.advanceMs(4999);
+        assertEquals(OstJsonApiResponseCache.State.STALE, cache.getState(OstJsonApiResponseCache.BALANCE, entry));
+
+        clock.advanceMs(1);
+        assertEquals(OstJsonApiResponseCache.State.MISS, cache.getState(OstJsonApiResponseCache.BALANCE, entry));
+    }
+
+    @Test
+    public void zeroTtlDisablesTheEndpoint() {
+        cache.put(OstJsonApiResponseCache.PRICE_POINTS, USER, new JSONObject(), cache.getGeneration());
+        cache.setPolicy(OstJsonApiResponseCache.PRICE_POINTS, 0, 0);
+
+        assertFalse(cache.isEnabled(OstJsonApiResponseCache.PRICE_POINTS));
+        assertNull(cache.get(OstJsonApiResponseCache.PRICE_POINTS, USER));
+        cache.put(OstJsonApiResponseCache.PRICE_POINTS, USER, new JSONObject(), cache.getGeneration());
+        assertNull(cache.get(OstJsonApiResponseCache.PRICE_POINTS, USER));
+    }
+
+    @Test
+    public void invalidateBalancesDropsOnlyTheBalancesOfTheUser() {
+        long generation = cache.getGeneration();
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, new JSONObject(), generation);
+        cache.put(OstJsonApiResponseCache.BALANCE_WITH_PRICE_POINTS, USER, new JSONObject(), generation);
+        cache.put(OstJsonApiResponseCache.PRICE_POINTS, USER, new JSONObject(), generation);
+        cache.put(OstJsonApiResponseCache.BALANCE, OTHER_USER, new JSONObject(), generation);
+
+        cache.invalidateBalances(USER);
+
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE, USER));
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE_WITH_PRICE_POINTS, USER));
+        assertNotNull(cache.get(OstJsonApiResponseCache.PRICE_POINTS, USER));
+        assertNotNull(cache.get(OstJsonApiResponseCache.BALANCE, OTHER_USER));
+    }
+
+    @Test
+    public void responseOfARequestIssuedBeforeAnInvalidationIsNotCached() {
+        long generation = cache.getGeneration();
+        cache.invalidateBalances(USER);
+
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, new JSONObject(), generation);
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE, USER));
+
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, new JSONObject(), cache.getGeneration());
+        assertNotNull(cache.get(OstJsonApiResponseCache.BALANCE, USER));
+    }
+
+    @Test
+    public void invalidateWithNullsMatchesAll() {
+        long generation = cache.getGeneration();
+        cache.put(OstJsonApiResponseCache.BALANCE, USER, new JSONObject(), generation);
+        cache.put(OstJsonApiResponseCache.BALANCE, OTHER_USER, new JSONObject(), generation);
+        cache.put(OstJsonApiResponseCache.PRICE_POINTS, USER, new JSONObject(), generation);
+
+        cache.invalidate(OstJsonApiResponseCache.BALANCE, null);
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE, USER));
+        assertNull(cache.get(OstJsonApiResponseCache.BALANCE, OTHER_USER));
+        assertNotNull(cache.get(OstJsonApiResponseCache.PRICE_POINTS, USER));
+
+        cache.invalidate(null, null);
+        assertNull(cache.get(OstJsonApiResponseCache.PRICE_POINTS, USER));
+    }
+}
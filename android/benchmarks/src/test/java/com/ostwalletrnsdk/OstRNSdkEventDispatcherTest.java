@@ -0,0 +1,167 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Payloads are JSON strings naming the workflow and function, so a flushed batch reads as a JSON array of them.
+ * Scheduled flushes never run on the JVM (the Handler fake drops posts); the tests flush explicitly.
+ */
+public class OstRNSdkEventDispatcherTest {
+
+    private static final String EVENTS = OstRNSdkEventEmitter.SDK_EVENTS;
+
+    private OstRNSdkEventDispatcher dispatcher;
+    private RecordingJs js;
+    private ReactApplicationContext reactContext;
+
+    @Before
+    public void setUp() {
+        dispatcher = new OstRNSdkEventDispatcher();
+        js = new RecordingJs();
+        reactContext = RecordingJs.newContext(js);
+    }
+
+    @Test
+    public void eventsAreClassifiedIntoLanes() {
+        assertEquals(OstRNSdkEventDispatcher.Lane.INTERACTIVE,
+                OstRNSdkEventEmitter.getLane("getPin", "OstPinAcceptInterface"));
+        assertEquals(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, OstRNSdkEventEmitter.getLane("requestAcknowledged", null));
+        assertEquals(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, OstRNSdkEventEmitter.getLane("batchProgress", null));
+        assertEquals(OstRNSdkEventDispatcher.Lane.TERMINAL, OstRNSdkEventEmitter.getLane("flowComplete", null));
+        // JS shows the queue position, so queued is never dropped or merged.
+        assertEquals(OstRNSdkEventDispatcher.Lane.TERMINAL, OstRNSdkEventEmitter.getLane("queued", null));
+    }
+
+    @Test
+    public void eventsOfAWorkflowKeepTheirOrderAcrossLanes() {
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "requestAcknowledged");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w2", "queued");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "batchProgress");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w1", "flowComplete");
+        dispatcher.flush();
+
+        assertEquals(Arrays.asList(
+                Arrays.asList("w1:requestAcknowledged", "w2:queued", "w1:batchProgress", "w1:flowComplete")),
+                flushedBatches());
+    }
+
+    @Test
+    public void interactiveEventFlushesRightAwayAfterTheEventsOfItsWorkflow() {
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w2", "flowComplete");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "requestAcknowledged");
+        enqueue(OstRNSdkEventDispatcher.Lane.INTERACTIVE, "w1", "getPin");
+
+        // The workflow waiting for JS goes first, with the events queued before its interactive one.
+        assertEquals(Arrays.asList(
+                Arrays.asList("w1:requestAcknowledged", "w1:getPin"),
+                Arrays.asList("w2:flowComplete")),
+                flushedBatches());
+        assertEquals(0, dispatcher.getDepth(OstRNSdkEventDispatcher.Lane.TERMINAL));
+    }
+
+    @Test
+    public void dropPolicyBoundsOnlyTheInformationalLane() {
+        dispatcher.setPressurePolicy(OstRNSdkEventDispatcher.POLICY_DROP, 2);
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "batchProgress");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w2", "batchProgress");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w3", "batchProgress");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w4", "queued");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w5", "queued");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w6", "queued");
+
+        assertEquals(2, dispatcher.getDepth(OstRNSdkEventDispatcher.Lane.INFORMATIONAL));
+        assertEquals(3, dispatcher.getDepth(OstRNSdkEventDispatcher.Lane.TERMINAL));
+        dispatcher.flush();
+        assertEquals(Arrays.asList(
+                Arrays.asList("w1:batchProgress", "w2:batchProgress", "w4:queued", "w5:queued", "w6:queued")),
+                flushedBatches());
+    }
+
+    @Test
+    public void mergePolicyReplacesTheQueuedEventOfTheSameWorkflowAndFunction() {
+        dispatcher.setPressurePolicy(OstRNSdkEventDispatcher.POLICY_MERGE, 2);
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "batchProgress", "first");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w2", "batchProgress", "first");
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w1", "batchProgress", "second");
+        // Nothing of w3 to replace: dropped.
+        enqueue(OstRNSdkEventDispatcher.Lane.INFORMATIONAL, "w3", "batchProgress", "first");
+
+        assertEquals(2, dispatcher.getDepth(OstRNSdkEventDispatcher.Lane.INFORMATIONAL));
+        dispatcher.flush();
+        assertEquals(Arrays.asList(
+                Arrays.asList("w1:batchProgress:second", "w2:batchProgress:first")),
+                flushedBatches());
+    }
+
+    @Test
+    public void stringAndMapPayloadsAreNotBatchedTogether() {
+        // Queued around a switch of setUseJsonStringPayload.
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w1", "requestAcknowledged");
+        WritableMap envelope = OstRNSdkEventEmitter.buildEnvelope("w2", "flowComplete", null, null, null);
+        dispatcher.enqueue(reactContext, EVENTS, OstRNSdkEventDispatcher.Lane.TERMINAL, "w2", "flowComplete", envelope);
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w3", "flowComplete");
+        dispatcher.flush();
+
+        List<String> payloads = js.getPayloads();
+        assertEquals(3, payloads.size());
+        assertEquals("[\"w1:requestAcknowledged\"]", payloads.get(0));
+        assertEquals("[\"w3:flowComplete\"]", payloads.get(2));
+        assertEquals(Arrays.asList(EVENTS, EVENTS, EVENTS), js.getEventNames());
+    }
+
+    @Test
+    public void batchSizeTriggersAFlush() {
+        dispatcher.setMaxBatchSize(3);
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w1", "flowComplete");
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w2", "flowComplete");
+        assertTrue(js.getEventNames().isEmpty());
+
+        enqueue(OstRNSdkEventDispatcher.Lane.TERMINAL, "w3", "flowComplete");
+        assertEquals(1, js.getEventNames().size());
+        assertEquals(EVENTS, js.getEventNames().get(0));
+    }
+
+    private void enqueue(OstRNSdkEventDispatcher.Lane lane, String uuid, String functionName) {
+        dispatcher.enqueue(reactContext, EVENTS, lane, uuid, functionName, "\"" + uuid + ":" + functionName + "\"");
+    }
+
+    private void enqueue(OstRNSdkEventDispatcher.Lane lane, String uuid, String functionName, String version) {
+        dispatcher.enqueue(reactContext, EVENTS, lane, uuid, functionName,
+                "\"" + uuid + ":" + functionName + ":" + version + "\"");
+    }
+
+    private List<List<String>> flushedBatches() {
+        List<List<String>> batches = new ArrayList<>();
+        for (String payload : js.getPayloads()) {
+            JSONArray array = new JSONArray(payload);
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++) {
+                batch.add(array.getString(i));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
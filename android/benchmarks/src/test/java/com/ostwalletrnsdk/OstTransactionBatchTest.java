@@ -0,0 +1,175 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class OstTransactionBatchTest {
+
+    private static final String ADDRESS = "0x" + repeat('a', 40);
+    private static final String UPPERCASE_ADDRESS = "0x" + repeat('A', 20) + repeat('9', 20);
+
+    @Test
+    public void parsesValidTransfers() throws Exception {
+        OstTransactionBatch.Transfers transfers = OstTransactionBatch.parseTransfers(
+                strings(ADDRESS, UPPERCASE_ADDRESS), strings("0", "1000000000000000000000"));
+
+        assertEquals(Arrays.asList(ADDRESS, UPPERCASE_ADDRESS), transfers.tokenHolderAddresses);
+        assertEquals(Arrays.asList("0", "1000000000000000000000"), transfers.amounts);
+    }
+
+    @Test
+    public void rejectsNonAsciiHexDigits() {
+        // Fullwidth zero: a digit for Character.digit, but not hex in an address.
+        String address = "0x" + repeat('a', 39) + '\uFF10';
+        JSONObject errorInfo = transfersError(strings(address), strings("1"));
+        assertEquals("tokenHolderAddresses", errorInfo.getString("field"));
+        assertEquals(0, errorInfo.getInt("item"));
+    }
+
+    @Test
+    public void rejectsMalformedAddresses() {
+        for (String address : Arrays.asList("", "0x", "aa" + repeat('a', 40), "0x" + repeat('a', 41),
+                "0x" + repeat('g', 40))) {
+            JSONObject errorInfo = transfersError(strings(ADDRESS, address), strings("1", "1"));
+            assertEquals(address, "tokenHolderAddresses", errorInfo.getString("field"));
+            assertEquals(address, 1, errorInfo.getInt("item"));
+        }
+    }
+
+    @Test
+    public void rejectsAmountsBigIntegerWouldAccept() {
+        // Fullwidth 3 and Arabic-Indic 3: BigInteger parses this as 33.
+        JSONObject errorInfo = transfersError(strings(ADDRESS, ADDRESS), strings("1", "\uFF13\u0663"));
+        assertEquals("amounts", errorInfo.getString("field"));
+        assertEquals(1, errorInfo.getInt("item"));
+
+        errorInfo = transfersError(strings(ADDRESS), strings("+5"));
+        assertEquals("amounts", errorInfo.getString("field"));
+        assertEquals("Invalid amount: +5", errorInfo.getString("reason"));
+    }
+
+    @Test
+    public void rejectsLengthMismatchAtTheFirstUnpairedItem() {
+        JSONObject errorInfo = transfersError(strings(ADDRESS, ADDRESS, ADDRESS), strings("1"));
+        assertEquals("amounts", errorInfo.getString("field"));
+        assertEquals(1, errorInfo.getInt("item"));
+    }
+
+    @Test
+    public void rejectsInvalidAmounts() {
+        assertEquals("Negative amount: -1",
+                transfersError(strings(ADDRESS), strings("-1")).getString("reason"));
+        assertEquals("Invalid amount: 1.5",
+                transfersError(strings(ADDRESS), strings("1.5")).getString("reason"));
+        assertEquals("Invalid amount: ",
+                transfersError(strings(ADDRESS), strings("")).getString("reason"));
+
+        WritableArray numbers = new WritableNativeArray();
+        numbers.pushInt(1);
+        JSONObject errorInfo = transfersError(strings(ADDRESS), numbers);
+        assertEquals("amounts", errorInfo.getString("field"));
+        assertEquals(0, errorInfo.getInt("item"));
+    }
+
+    @Test
+    public void transfersErrorInfoHasNoSpec() {
+        JSONObject errorInfo = transfersError(null, strings("1"));
+        assertEquals("tokenHolderAddresses", errorInfo.getString("field"));
+        assertFalse(errorInfo.has("spec"));
+        assertFalse(errorInfo.has("item"));
+    }
+
+    @Test
+    public void specsErrorInfoCarriesSpecAndItem() {
+        WritableArray specs = new WritableNativeArray();
+        specs.pushMap(spec(strings(ADDRESS), strings("1"), "direct transfer"));
+        specs.pushMap(spec(strings(ADDRESS, ADDRESS), strings("1", "x"), "direct transfer"));
+
+        JSONObject errorInfo = specsError(specs);
+        assertEquals("amounts", errorInfo.getString("field"));
+        assertEquals(1, errorInfo.getInt("spec"));
+        assertEquals(1, errorInfo.getInt("item"));
+        assertEquals("Invalid amount: x", errorInfo.getString("reason"));
+    }
+
+    @Test
+    public void specsRequireARuleName() throws Exception {
+        WritableArray specs = new WritableNativeArray();
+        specs.pushMap(spec(strings(ADDRESS), strings("1"), ""));
+
+        JSONObject errorInfo = specsError(specs);
+        assertEquals("ruleName", errorInfo.getString("field"));
+        assertEquals(0, errorInfo.getInt("spec"));
+        assertFalse(errorInfo.has("item"));
+
+        WritableArray valid = new WritableNativeArray();
+        valid.pushMap(spec(strings(ADDRESS), strings("1"), "direct transfer"));
+        List<OstTransactionBatch.Spec> parsed = OstTransactionBatch.parseSpecs(valid);
+        assertEquals(1, parsed.size());
+        assertEquals("direct transfer", parsed.get(0).ruleName);
+    }
+
+    private static JSONObject transfersError(WritableArray addresses, WritableArray amounts) {
+        try {
+            OstTransactionBatch.parseTransfers(addresses, amounts);
+        } catch (OstTransactionBatch.InvalidSpecException e) {
+            return e.toErrorInfo();
+        }
+        fail("Transfers were accepted");
+        return null;
+    }
+
+    private static JSONObject specsError(WritableArray specs) {
+        try {
+            OstTransactionBatch.parseSpecs(specs);
+        } catch (OstTransactionBatch.InvalidSpecException e) {
+            return e.toErrorInfo();
+        }
+        fail("Specs were accepted");
+        return null;
+    }
+
+    private static WritableMap spec(WritableArray addresses, WritableArray amounts, String ruleName) {
+        WritableMap spec = new WritableNativeMap();
+        spec.putArray("tokenHolderAddresses", addresses);
+        spec.putArray("amounts", amounts);
+        spec.putString("ruleName", ruleName);
+        return spec;
+    }
+
+    private static WritableArray strings(String... values) {
+        WritableArray array = new WritableNativeArray();
+        for (String value : values) {
+            array.pushString(value);
+        }
+        return array;
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
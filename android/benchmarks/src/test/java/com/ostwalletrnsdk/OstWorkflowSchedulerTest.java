@@ -0,0 +1,188 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OstWorkflowSchedulerTest {
+
+    private final List<String> started = new ArrayList<>();
+    private OstWorkflowScheduler scheduler;
+    private RecordingJs js;
+    private ReactApplicationContext reactContext;
+
+    @Before
+    public void setUp() {
+        // Queued workflows are started on the thread that finishes the running one.
+        OstExecutors.getInstance().setEnabled(false);
+        scheduler = OstWorkflowScheduler.getInstance();
+        scheduler.setEnabled(true);
+        scheduler.setMaxConcurrent(OstWorkflowScheduler.DEFAULT_MAX_CONCURRENT);
+        scheduler.setSerializePerUser(true);
+        js = new RecordingJs();
+        reactContext = RecordingJs.newContext(js);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.setEnabled(false);
+        scheduler.setMaxConcurrent(OstWorkflowScheduler.DEFAULT_MAX_CONCURRENT);
+        scheduler.setSerializePerUser(true);
+        OstExecutors.getInstance().setEnabled(true);
+    }
+
+    @Test
+    public void disabledSchedulerStartsRightAway() {
+        scheduler.setEnabled(false);
+        submit("w1", "user-1");
+        submit("w2", "user-1");
+
+        assertEquals(2, started.size());
+        assertEquals(0, scheduler.getRunningCount());
+        assertEquals(0, scheduler.getQueuedCount());
+    }
+
+    @Test
+    public void workflowsOfAUserRunOneAtATime() {
+        submit("w1", "user-1");
+        submit("w2", "user-1");
+        submit("w3", "user-2");
+
+        assertEquals(2, started.size());
+        assertTrue(started.contains("w1"));
+        assertTrue(started.contains("w3"));
+        assertEquals(1, scheduler.getQueuedCount());
+        assertTrue(js.getPayloads().contains("w2:queued"));
+
+        scheduler.finished("w1");
+        assertEquals("w2", started.get(2));
+        assertEquals(0, scheduler.getQueuedCount());
+    }
+
+    @Test
+    public void workflowsOfAUserOverlapWhenNotSerialized() {
+        scheduler.setSerializePerUser(false);
+        submit("w1", "user-1");
+        submit("w2", "user-1");
+
+        assertEquals(2, started.size());
+    }
+
+    @Test
+    public void queuedWorkflowsStartInOrderOnceASlotIsFree() {
+        scheduler.setMaxConcurrent(1);
+        submit("w1", "user-1");
+        submit("w2", "user-2");
+        submit("w3", "user-3");
+        assertEquals(1, scheduler.getRunningCount());
+        assertEquals(2, scheduler.getQueuedCount());
+
+        scheduler.finished("w1");
+        scheduler.finished("w2");
+        assertEquals(3, started.size());
+        assertEquals("w2", started.get(1));
+        assertEquals("w3", started.get(2));
+    }
+
+    @Test
+    public void cancelInterruptsAQueuedWorkflow() {
+        scheduler.setMaxConcurrent(1);
+        submit("w1", "user-1");
+        submit("w2", "user-2");
+
+        assertTrue(scheduler.cancel("w2"));
+        assertFalse(scheduler.cancel("w2"));
+        assertEquals(0, scheduler.getQueuedCount());
+        assertTrue(js.getPayloads().contains("w2:flowInterrupt"));
+
+        scheduler.finished("w1");
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    public void cancelBeforeSubmitInterruptsInsteadOfStarting() {
+        scheduler.announce("w1");
+        assertTrue(scheduler.cancel("w1"));
+        assertTrue(scheduler.cancel("w1"));
+
+        submit("w1", "user-1");
+        assertTrue(started.isEmpty());
+        assertTrue(js.getPayloads().contains("w1:flowInterrupt"));
+        assertEquals(0, scheduler.getRunningCount());
+        assertFalse(scheduler.cancel("w1"));
+
+        // Not cancelled: starts as usual.
+        scheduler.announce("w2");
+        submit("w2", "user-1");
+        assertEquals(1, started.size());
+        assertFalse(scheduler.cancel("w2"));
+    }
+
+    @Test
+    public void startThatThrowsInterruptsTheWorkflowAndFreesItsSlot() {
+        scheduler.setMaxConcurrent(1);
+        submit("w1", "user-1", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("start failed");
+            }
+        });
+
+        assertTrue(js.getPayloads().contains("w1:flowInterrupt"));
+        assertEquals(0, scheduler.getRunningCount());
+        submit("w2", "user-1");
+        assertEquals("w2", started.get(0));
+    }
+
+    @Test
+    public void queuedStartThatThrowsStartsTheNextWorkflow() {
+        scheduler.setMaxConcurrent(1);
+        submit("w1", "user-1");
+        submit("w2", "user-2", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("start failed");
+            }
+        });
+        submit("w3", "user-3");
+
+        scheduler.finished("w1");
+        assertTrue(js.getPayloads().contains("w2:flowInterrupt"));
+        assertEquals("w3", started.get(1));
+    }
+
+    private void submit(final String uuid, String userId) {
+        submit(uuid, userId, new Runnable() {
+            @Override
+            public void run() {
+                started.add(uuid);
+            }
+        });
+    }
+
+    private void submit(String uuid, String userId, Runnable start) {
+        OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION);
+        OstWorkFlowCallbackImpl callback = new OstWorkFlowCallbackImpl(uuid, userId, reactContext, context);
+        scheduler.submit(uuid, userId, callback, context, start);
+    }
+}
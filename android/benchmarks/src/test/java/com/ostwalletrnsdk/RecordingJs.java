@@ -0,0 +1,54 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * JS side of the bridge for tests: records emitted events. Envelopes are recorded as "uuid:functionName",
+ * other payloads (e.g. the JSON string batches of the dispatcher) as they are.
+ */
+final class RecordingJs implements DeviceEventManagerModule.RCTDeviceEventEmitter {
+
+    private final List<String> eventNames = new ArrayList<>();
+    private final List<String> payloads = new ArrayList<>();
+
+    static ReactApplicationContext newContext(RecordingJs js) {
+        ReactApplicationContext reactContext = new ReactApplicationContext();
+        reactContext.registerJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class, js);
+        return reactContext;
+    }
+
+    @Override
+    public synchronized void emit(String eventName, Object data) {
+        eventNames.add(eventName);
+        if (data instanceof ReadableMap) {
+            ReadableMap envelope = (ReadableMap) data;
+            payloads.add(envelope.getString(OstRNSdkEventEmitter.UUID_KEY) + ":"
+                    + envelope.getString(OstRNSdkEventEmitter.FUNCTION_NAME_KEY));
+        } else {
+            payloads.add(String.valueOf(data));
+        }
+    }
+
+    synchronized List<String> getEventNames() {
+        return new ArrayList<>(eventNames);
+    }
+
+    synchronized List<String> getPayloads() {
+        return new ArrayList<>(payloads);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.sdkIntracts;
+
+import com.ost.walletsdk.workflows.interfaces.OstBaseInterface;
+import com.ostwalletrnsdk.OstWorkflowWatchdog;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Uses the process-wide registry and watchdog, with workflow ids no other test uses.
+ */
+public class OstInteractRegistryTest {
+
+    private static final class RecordingSdkCallback implements OstBaseInterface {
+        int cancelCount = 0;
+
+        @Override
+        public void cancelFlow() {
+            cancelCount++;
+        }
+    }
+
+    private static final OstWorkflowWatchdog.Watchable NEVER_EXPIRES = new OstWorkflowWatchdog.Watchable() {
+        @Override
+        public void onDeadlineExpired(long deadlineMs) {
+        }
+    };
+
+    private final OstInteractRegistry registry = BaseSdkInteract.registry;
+    private final OstWorkflowWatchdog watchdog = OstWorkflowWatchdog.getInstance();
+    private final List<String> workflows = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        for (String workflow : workflows) {
+            registry.takeAllForWorkflow(workflow);
+            watchdog.unwatch(workflow);
+        }
+    }
+
+    @Test
+    public void deadlineIsArmedWhileAnInteractOfTheWorkflowIsPending() {
+        String workflow = workflow("registry-armed");
+        int watched = watchdog.getWatchedCount();
+        BaseSdkInteract first = new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        BaseSdkInteract second = new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        registry.watch(workflow, null, NEVER_EXPIRES);
+        assertEquals(watched + 1, watchdog.getWatchedCount());
+
+        assertSame(first, registry.take(first.getUUID(), BaseSdkInteract.class));
+        assertEquals(watched + 1, watchdog.getWatchedCount());
+
+        second.cleanUp();
+        assertEquals(watched, watchdog.getWatchedCount());
+        assertNull(registry.lookup(second.getUUID()));
+    }
+
+    @Test
+    public void deadlineIsNotArmedWithoutAPendingInteract() {
+        String workflow = workflow("registry-answered");
+        int watched = watchdog.getWatchedCount();
+        BaseSdkInteract interact = new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        interact.cleanUp();
+
+        // JS answered before the deadline was armed: nothing left to wait for.
+        registry.watch(workflow, null, NEVER_EXPIRES);
+        assertEquals(watched, watchdog.getWatchedCount());
+
+        // A later interact of the same workflow arms it again.
+        new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        registry.watch(workflow, null, NEVER_EXPIRES);
+        assertEquals(watched + 1, watchdog.getWatchedCount());
+    }
+
+    @Test
+    public void takeAllForWorkflowLeavesOtherWorkflowsAlone() {
+        String workflow = workflow("registry-take");
+        String other = workflow("registry-other");
+        int size = registry.size();
+        BaseSdkInteract first = new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        BaseSdkInteract second = new BaseSdkInteract(new RecordingSdkCallback(), workflow);
+        BaseSdkInteract unrelated = new BaseSdkInteract(new RecordingSdkCallback(), other);
+
+        List<BaseSdkInteract> taken = registry.takeAllForWorkflow(workflow);
+        assertEquals(2, taken.size());
+        assertTrue(taken.containsAll(Arrays.asList(first, second)));
+        assertSame(unrelated, registry.lookup(unrelated.getUUID()));
+        assertEquals(size + 1, registry.size());
+        assertTrue(registry.takeAllForWorkflow(workflow).isEmpty());
+    }
+
+    @Test
+    public void removeAllForWorkflowDropsTheInteractsWithoutCancellingThem() {
+        String workflow = workflow("registry-remove");
+        int size = registry.size();
+        RecordingSdkCallback sdkCallback = new RecordingSdkCallback();
+        BaseSdkInteract interact = new BaseSdkInteract(sdkCallback, workflow);
+
+        assertEquals(1, registry.removeAllForWorkflow(workflow));
+        assertNull(registry.lookup(interact.getUUID()));
+        assertEquals(size, registry.size());
+
+        // A late answer from JS no longer reaches the sdk.
+        interact.cancelFlow();
+        assertEquals(0, sdkCallback.cancelCount);
+    }
+
+    private String workflow(String name) {
+        workflows.add(name);
+        return name;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.ui;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.ost.walletsdk.ui.OstWalletUI;
+import com.ostwalletrnsdk.OstMetrics;
+import com.ostwalletrnsdk.Utils;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * The store is a process-wide singleton that restores from the first context it is given, so every test uses
+ * the same context and configs no other test sets. The sdk is never initialized here: configs apply on applyAll.
+ */
+public class OstUiConfigStoreTest {
+
+    private static final Context CONTEXT = new Context();
+
+    private final OstUiConfigStore store = OstUiConfigStore.getInstance();
+
+    @Before
+    public void setUp() {
+        OstMetrics.getInstance().reset();
+        OstMetrics.getInstance().setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        OstMetrics.getInstance().setEnabled(false);
+        OstMetrics.getInstance().reset();
+    }
+
+    @Test
+    public void readableMapAndItsJsonHashTheSame() throws Exception {
+        WritableMap nested = new WritableNativeMap();
+        nested.putString("color", "#ffffff");
+        nested.putBoolean("bold", true);
+        WritableMap config = new WritableNativeMap();
+        config.putInt("size", 16);
+        config.putDouble("alpha", 0.5);
+        config.putMap("title", nested);
+        config.putNull("removed");
+
+        assertEquals(OstUiConfigStore.hash(config), OstUiConfigStore.hash(Utils.convertMapToJson(config)));
+    }
+
+    @Test
+    public void hashIgnoresKeyOrderButNotValueTypes() {
+        WritableMap first = new WritableNativeMap();
+        first.putString("a", "1");
+        first.putString("b", "2");
+        WritableMap second = new WritableNativeMap();
+        second.putString("b", "2");
+        second.putString("a", "1");
+        assertEquals(OstUiConfigStore.hash(first), OstUiConfigStore.hash(second));
+
+        WritableMap number = new WritableNativeMap();
+        number.putInt("a", 1);
+        number.putString("b", "2");
+        assertNotEquals(OstUiConfigStore.hash(first), OstUiConfigStore.hash(number));
+    }
+
+    @Test
+    public void unchangedConfigIsSkippedAndAppliedOnce() {
+        WritableMap theme = new WritableNativeMap();
+        theme.putString("color", "#skipped");
+        store.set(CONTEXT, OstUiConfigStore.THEME, theme);
+
+        WritableMap same = new WritableNativeMap();
+        same.putString("color", "#skipped");
+        store.set(CONTEXT, OstUiConfigStore.THEME, same);
+        assertEquals(1, counter(OstMetrics.UI_CONFIG_SKIPPED));
+
+        int applied = OstWalletUI.getThemeConfigs().size();
+        assertTrue(store.applyAll(CONTEXT));
+        assertEquals(applied + 1, OstWalletUI.getThemeConfigs().size());
+        assertEquals("#skipped", last(OstWalletUI.getThemeConfigs()).getString("color"));
+
+        // Already applied: a second applyAll does not apply it again.
+        store.applyAll(CONTEXT);
+        assertEquals(applied + 1, OstWalletUI.getThemeConfigs().size());
+    }
+
+    @Test
+    public void patchMergesNestedMapsAndNullRemovesTheKey() throws Exception {
+        WritableMap screen = new WritableNativeMap();
+        screen.putString("title", "Old title");
+        screen.putString("subtitle", "Subtitle");
+        WritableMap content = new WritableNativeMap();
+        content.putMap("patched_screen", screen);
+        content.putString("footer", "Footer");
+        store.set(CONTEXT, OstUiConfigStore.CONTENT, content);
+
+        WritableMap screenPatch = new WritableNativeMap();
+        screenPatch.putString("title", "New title");
+        WritableMap patch = new WritableNativeMap();
+        patch.putMap("patched_screen", screenPatch);
+        patch.putNull("footer");
+        store.patch(CONTEXT, OstUiConfigStore.CONTENT, patch);
+        store.applyAll(CONTEXT);
+
+        JSONObject applied = last(OstWalletUI.getContentConfigs());
+        assertFalse(applied.has("footer"));
+        JSONObject appliedScreen = applied.getJSONObject("patched_screen");
+        assertEquals("New title", appliedScreen.getString("title"));
+        assertEquals("Subtitle", appliedScreen.getString("subtitle"));
+
+        // Patching in what is already there changes nothing.
+        store.patch(CONTEXT, OstUiConfigStore.CONTENT, patch);
+        assertEquals(1, counter(OstMetrics.UI_CONFIG_SKIPPED));
+    }
+
+    @Test
+    public void configIsPersistedWithItsHash() throws Exception {
+        WritableMap theme = new WritableNativeMap();
+        theme.putString("color", "#persisted");
+        store.set(CONTEXT, OstUiConfigStore.THEME, theme);
+
+        SharedPreferences preferences = CONTEXT.getSharedPreferences("ost_wallet_rn_ui_config", Context.MODE_PRIVATE);
+        JSONObject persisted = new JSONObject(preferences.getString("theme_config", null));
+        assertEquals("#persisted", persisted.getString("color"));
+        assertEquals(OstUiConfigStore.hash(theme), preferences.getString("theme_hash", null));
+    }
+
+    private static long counter(String name) {
+        return (long) OstMetrics.getInstance().snapshot(Collections.<String, Integer>emptyMap())
+                .getMap("counters").getDouble(name);
+    }
+
+    private static JSONObject last(List<JSONObject> configs) {
+        return configs.get(configs.size() - 1);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.graphics.Bitmap;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * OstSdkFacade backed by the static OstSdk api.
+ */
+class DefaultOstSdkFacade implements OstSdkFacade {
+
+    @Override
+    public OstUser getUser(String userId) {
+        return OstSdk.getUser(userId);
+    }
+
+    @Override
+    public OstToken getToken(String tokenId) {
+        return OstSdk.getToken(tokenId);
+    }
+
+    @Override
+    public OstDevice getCurrentDeviceForUserId(String userId) {
+        return OstSdk.getCurrentDeviceForUserId(userId);
+    }
+
+    @Override
+    public List<OstSession> getActiveSessionsForUserId(String userId, String minimumSpendingLimitInWei) {
+        return OstSdk.getActiveSessionsForUserId(userId, minimumSpendingLimitInWei);
+    }
+
+    @Override
+    public Bitmap getAddDeviceQRCode(String userId) {
+        return OstSdk.getAddDeviceQRCode(userId);
+    }
+
+    @Override
+    public boolean isBiometricEnabled(String userId) {
+        return OstSdk.isBiometricEnabled(userId);
+    }
+
+    @Override
+    public void setupDevice(String userId, String tokenId, OstWorkFlowCallback callback) {
+        OstSdk.setupDevice(userId, tokenId, callback);
+    }
+
+    @Override
+    public void activateUser(UserPassphrase passphrase, long expiresAfterInSecs, String spendingLimit, OstWorkFlowCallback callback) {
+        OstSdk.activateUser(passphrase, expiresAfterInSecs, spendingLimit, callback);
+    }
+
+    @Override
+    public void addSession(String userId, String spendingLimit, long expiresAfterInSecs, OstWorkFlowCallback callback) {
+        OstSdk.addSession(userId, spendingLimit, expiresAfterInSecs, callback);
+    }
+
+    @Override
+    public void executeTransaction(String userId,
+                                   List<String> tokenHolderAddresses,
+                                   List<String> amounts,
+                                   String ruleName,
+                                   Map<String, Object> meta,
+                                   Map<String, Object> options,
+                                   OstWorkFlowCallback callback) {
+        OstSdk.executeTransaction(userId, tokenHolderAddresses, amounts, ruleName, meta, options, callback);
+    }
+
+    @Override
+    public void getDeviceMnemonics(String userId, OstWorkFlowCallback callback) {
+        OstSdk.getDeviceMnemonics(userId, callback);
+    }
+
+    @Override
+    public void authorizeCurrentDeviceWithMnemonics(String userId, byte[] mnemonics, OstWorkFlowCallback callback) {
+        OstSdk.authorizeCurrentDeviceWithMnemonics(userId, mnemonics, callback);
+    }
+
+    @Override
+    public void performQRAction(String userId, String data, OstWorkFlowCallback callback) {
+        OstSdk.performQRAction(userId, data, callback);
+    }
+
+    @Override
+    public void resetPin(String userId, UserPassphrase currentPassphrase, UserPassphrase newPassphrase, OstWorkFlowCallback callback) {
+        OstSdk.resetPin(userId, currentPassphrase, newPassphrase, callback);
+    }
+
+    @Override
+    public void revokeDevice(String userId, String deviceAddress, OstWorkFlowCallback callback) {
+        OstSdk.revokeDevice(userId, deviceAddress, callback);
+    }
+
+    @Override
+    public void initiateDeviceRecovery(String userId, UserPassphrase passphrase, String deviceAddressToRecover, OstWorkFlowCallback callback) {
+        OstSdk.initiateDeviceRecovery(userId, passphrase, deviceAddressToRecover, callback);
+    }
+
+    @Override
+    public void abortDeviceRecovery(String userId, UserPassphrase passphrase, OstWorkFlowCallback callback) {
+        OstSdk.abortDeviceRecovery(userId, passphrase, callback);
+    }
+
+    @Override
+    public void updateBiometricPreference(String userId, boolean enable, OstWorkFlowCallback callback) {
+        OstSdk.updateBiometricPreference(userId, enable, callback);
+    }
+
+    @Override
+    public void logoutAllSessions(String userId, OstWorkFlowCallback callback) {
+        OstSdk.logoutAllSessions(userId, callback);
+    }
+}
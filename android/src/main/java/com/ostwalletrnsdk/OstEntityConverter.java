@@ -0,0 +1,163 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.ost.walletsdk.models.entities.OstSession;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * Converters written field by field for the entity shapes returned by the getter methods.
+ * Every key of the entity is visited once: known fields are written with the type the platform sends
+ * them in, while a value of another type and keys not part of the shape (e.g. added by a newer platform
+ * version) fall back to Utils.putValue.
+ */
+public class OstEntityConverter {
+
+    public static WritableMap convertUser(JSONObject data) throws JSONException {
+        WritableMap map = new WritableNativeMap();
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = data.get(key);
+            switch (key) {
+                case "id":
+                case "token_holder_address":
+                case "device_manager_address":
+                case "recovery_address":
+                case "recovery_owner_address":
+                case "type":
+                case "status":
+                    putString(map, key, value);
+                    break;
+                case "token_id":
+                case "updated_timestamp":
+                    putInt(map, key, value);
+                    break;
+                default:
+                    Utils.putValue(map, key, value);
+            }
+        }
+        return map;
+    }
+
+    public static WritableMap convertToken(JSONObject data) throws JSONException {
+        WritableMap map = new WritableNativeMap();
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = data.get(key);
+            switch (key) {
+                case "name":
+                case "symbol":
+                case "base_token":
+                case "conversion_factor":
+                case "total_supply":
+                    putString(map, key, value);
+                    break;
+                case "id":
+                case "decimals":
+                case "updated_timestamp":
+                    putInt(map, key, value);
+                    break;
+                default:
+                    // origin_chain and auxiliary_chains are nested and converted generically.
+                    Utils.putValue(map, key, value);
+            }
+        }
+        return map;
+    }
+
+    public static WritableMap convertDevice(JSONObject data) throws JSONException {
+        WritableMap map = new WritableNativeMap();
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = data.get(key);
+            switch (key) {
+                case "user_id":
+                case "address":
+                case "linked_address":
+                case "api_signer_address":
+                case "status":
+                    putString(map, key, value);
+                    break;
+                case "updated_timestamp":
+                    putInt(map, key, value);
+                    break;
+                default:
+                    Utils.putValue(map, key, value);
+            }
+        }
+        return map;
+    }
+
+    public static WritableMap convertSession(JSONObject data) throws JSONException {
+        WritableMap map = new WritableNativeMap();
+        Iterator<String> keys = data.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = data.get(key);
+            switch (key) {
+                case "user_id":
+                case "address":
+                case "spending_limit":
+                case "status":
+                    putString(map, key, value);
+                    break;
+                case "expiration_height":
+                case "approx_expiration_timestamp":
+                case "nonce":
+                case "updated_timestamp":
+                    putInt(map, key, value);
+                    break;
+                default:
+                    Utils.putValue(map, key, value);
+            }
+        }
+        return map;
+    }
+
+    public static WritableArray convertSessions(List<OstSession> sessions) throws JSONException {
+        WritableArray array = new WritableNativeArray();
+        if (null == sessions) {
+            return array;
+        }
+        for (OstSession session : sessions) {
+            array.pushMap(convertSession(session.getData()));
+        }
+        return array;
+    }
+
+    private static void putString(WritableMap map, String key, Object value) throws JSONException {
+        if (value instanceof String) {
+            map.putString(key, (String) value);
+        } else {
+            Utils.putValue(map, key, value);
+        }
+    }
+
+    private static void putInt(WritableMap map, String key, Object value) throws JSONException {
+        if (value instanceof Integer) {
+            map.putInt(key, (Integer) value);
+        } else {
+            Utils.putValue(map, key, value);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstUser;
+
+import org.json.JSONException;
+
+/*
+ * Reads of locally stored sdk entities, shared by the individual getters and batchGet.
+ * Every read returns null when the entity is not found.
+ */
+class OstEntityReader {
+
+    static final String TYPE_USER = "user";
+    static final String TYPE_TOKEN = "token";
+    static final String TYPE_CURRENT_DEVICE = "currentDevice";
+    static final String TYPE_ACTIVE_SESSIONS = "activeSessions";
+    static final String TYPE_BIOMETRIC_ENABLED = "isBiometricEnabled";
+
+    private static final String TYPE_KEY = "type";
+    private static final String KEY_KEY = "key";
+    private static final String USER_ID_KEY = "userId";
+    private static final String TOKEN_ID_KEY = "tokenId";
+    private static final String MINIMUM_SPENDING_LIMIT_KEY = "minimumSpendingLimitInWei";
+
+    private OstEntityReader() {
+    }
+
+    static WritableMap readUser(String userId) throws JSONException {
+        OstUser ostUser = OstSdkFacadeProvider.get().getUser(userId);
+        return null == ostUser ? null : OstEntityConverter.convertUser(ostUser.getData());
+    }
+
+    static WritableMap readToken(String tokenId) throws JSONException {
+        OstToken ostToken = OstSdkFacadeProvider.get().getToken(tokenId);
+        return null == ostToken ? null : OstEntityConverter.convertToken(ostToken.getData());
+    }
+
+    static WritableMap readCurrentDevice(String userId) throws JSONException {
+        OstDevice ostDevice = OstSdkFacadeProvider.get().getCurrentDeviceForUserId(userId);
+        return null == ostDevice ? null : OstEntityConverter.convertDevice(ostDevice.getData());
+    }
+
+    static WritableArray readActiveSessions(String userId, String minimumSpendingLimitInWei) throws JSONException {
+        return OstEntityConverter.convertSessions(OstSdkFacadeProvider.get().getActiveSessionsForUserId(userId, minimumSpendingLimitInWei));
+    }
+
+    /*
+     * Runs a list of typed reads ({key, type, userId | tokenId, minimumSpendingLimitInWei}).
+     * The result maps the key of every read (its index when absent) to {data} or {error}.
+     * A failing read does not affect the others.
+     */
+    static WritableMap batchRead(ReadableArray reads) {
+        WritableMap results = new WritableNativeMap();
+        if (null == reads) {
+            return results;
+        }
+        for (int i = 0; i < reads.size(); i++) {
+            ReadableMap read = ReadableType.Map == reads.getType(i) ? reads.getMap(i) : null;
+            String key = getString(read, KEY_KEY);
+            if (null == key) {
+                key = String.valueOf(i);
+            }
+
+            WritableMap result = new WritableNativeMap();
+            try {
+                if (null == read) {
+                    throw new IllegalArgumentException("Read at index " + i + " must be an object");
+                }
+                putData(result, read);
+            } catch (Throwable e) {
+                result.putString("error", Utils.getError(e, "rn_oer_br_1"));
+            }
+            results.putMap(key, result);
+        }
+        return results;
+    }
+
+    private static void putData(WritableMap result, ReadableMap read) throws JSONException {
+        String type = getString(read, TYPE_KEY);
+        if (TYPE_USER.equals(type)) {
+            putMapOrNull(result, readUser(getString(read, USER_ID_KEY)));
+        } else if (TYPE_TOKEN.equals(type)) {
+            putMapOrNull(result, readToken(getString(read, TOKEN_ID_KEY)));
+        } else if (TYPE_CURRENT_DEVICE.equals(type)) {
+            putMapOrNull(result, readCurrentDevice(getString(read, USER_ID_KEY)));
+        } else if (TYPE_ACTIVE_SESSIONS.equals(type)) {
+            String minimumSpendingLimitInWei = getString(read, MINIMUM_SPENDING_LIMIT_KEY);
+            result.putArray("data", readActiveSessions(getString(read, USER_ID_KEY),
+                    null == minimumSpendingLimitInWei ? "0" : minimumSpendingLimitInWei));
+        } else if (TYPE_BIOMETRIC_ENABLED.equals(type)) {
+            String userId = getString(read, USER_ID_KEY);
+            result.putBoolean("data", null != userId && OstSdkFacadeProvider.get().isBiometricEnabled(userId));
+        } else {
+            throw new IllegalArgumentException("Unknown read type " + type);
+        }
+    }
+
+    private static void putMapOrNull(WritableMap result, WritableMap data) {
+        if (null == data) {
+            result.putNull("data");
+        } else {
+            result.putMap("data", data);
+        }
+    }
+
+    private static String getString(ReadableMap map, String key) {
+        if (null == map || !map.hasKey(key) || ReadableType.String != map.getType(key)) {
+            return null;
+        }
+        return map.getString(key);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import com.ost.walletsdk.models.entities.OstBaseEntity;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * In-memory snapshot of the entities read by the synchronous getters (getUserSync etc.).
+ * An entity is loaded from the sdk on its first read and kept until it is invalidated.
+ * invalidate(userId) is called whenever a workflow of the user completes, since that is when the locally
+ * stored entities change. It only drops the entries on the calling sdk thread; they are reloaded on the READ lane.
+ * Every invalidation starts a new generation. A loaded entity is stored only if its key was not invalidated
+ * since the load started, so that a getter racing with an invalidation cannot store the entity from before it.
+ * An entity that was not found is read again after NOT_FOUND_TTL_MS, since it may be stored meanwhile,
+ * e.g. the user and device by a setupDevice that has not completed yet.
+ */
+public class OstEntitySnapshot {
+
+    private static final String LOG_TAG = "OstEntitySnapshot";
+
+    static final String USER = "user";
+    static final String TOKEN = "token";
+    static final String CURRENT_DEVICE = "current_device";
+    static final String BIOMETRIC_ENABLED = "biometric_enabled";
+
+    static final long NOT_FOUND_TTL_MS = TimeUnit.SECONDS.toMillis(5);
+
+    // Marks an entity that was read and not found, so it is not read again until it expires.
+    private static final class NotFound {
+        final long loadedAtNanos = System.nanoTime();
+
+        boolean isExpired() {
+            return System.nanoTime() - loadedAtNanos > TimeUnit.MILLISECONDS.toNanos(NOT_FOUND_TTL_MS);
+        }
+    }
+
+    private static final OstEntitySnapshot INSTANCE = new OstEntitySnapshot();
+
+    public static OstEntitySnapshot getInstance() {
+        return INSTANCE;
+    }
+
+    private static final String[] USER_TYPES = {USER, CURRENT_DEVICE, BIOMETRIC_ENABLED};
+
+    private final ConcurrentHashMap<String, Object> entries = new ConcurrentHashMap<>();
+
+    // Guarded by this: the current generation, and the generation of the last invalidation of every key and of all.
+    private long generation = 0;
+    private long allInvalidatedAt = 0;
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+
+    private OstEntitySnapshot() {
+    }
+
+    JSONObject getUser(String userId) {
+        return (JSONObject) get(USER, userId);
+    }
+
+    JSONObject getToken(String tokenId) {
+        return (JSONObject) get(TOKEN, tokenId);
+    }
+
+    JSONObject getCurrentDevice(String userId) {
+        return (JSONObject) get(CURRENT_DEVICE, userId);
+    }
+
+    boolean isBiometricEnabled(String userId) {
+        return Boolean.TRUE.equals(get(BIOMETRIC_ENABLED, userId));
+    }
+
+    /*
+     * Drops the user, current device and biometric preference of userId, or every entity when userId is null,
+     * and reloads them on the READ lane.
+     */
+    public void invalidate(String userId) {
+        final List<String> keys = new ArrayList<>();
+        final long reloadGeneration;
+        synchronized (this) {
+            reloadGeneration = ++generation;
+            if (null == userId) {
+                allInvalidatedAt = generation;
+                keys.addAll(entries.keySet());
+                entries.clear();
+            } else {
+                for (String type : USER_TYPES) {
+                    String key = key(type, userId);
+                    // Also for keys not loaded yet: a getter may be loading one.
+                    invalidatedAt.put(key, generation);
+                    if (null != entries.remove(key)) {
+                        keys.add(key);
+                    }
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+            @Override
+            public void run() {
+                for (String key : keys) {
+                    int separator = key.indexOf('|');
+                    String type = key.substring(0, separator);
+                    String id = key.substring(separator + 1);
+                    try {
+                        store(key, toEntry(load(type, id)), reloadGeneration);
+                    } catch (Throwable e) {
+                        Log.e(LOG_TAG, "Unable to reload " + type, e);
+                    }
+                }
+            }
+        });
+    }
+
+    public synchronized void clear() {
+        allInvalidatedAt = ++generation;
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Object get(String type, String id) {
+        if (null == id) {
+            return null;
+        }
+        String key = key(type, id);
+        Object entry = entries.get(key);
+        if (null == entry || (entry instanceof NotFound && ((NotFound) entry).isExpired())) {
+            long loadGeneration = getGeneration();
+            entry = toEntry(load(type, id));
+            store(key, entry, loadGeneration);
+        }
+        return entry instanceof NotFound ? null : entry;
+    }
+
+    private synchronized long getGeneration() {
+        return generation;
+    }
+
+    /*
+     * Stores entry unless its key was invalidated after loadGeneration; a newer load then stores it.
+     */
+    private synchronized void store(String key, Object entry, long loadGeneration) {
+        Long keyInvalidatedAt = invalidatedAt.get(key);
+        if (allInvalidatedAt > loadGeneration || (null != keyInvalidatedAt && keyInvalidatedAt > loadGeneration)) {
+            return;
+        }
+        entries.put(key, entry);
+    }
+
+    private static String key(String type, String id) {
+        return type + "|" + id;
+    }
+
+    private static Object toEntry(Object value) {
+        return null == value ? new NotFound() : value;
+    }
+
+    private static Object load(String type, String id) {
+        if (USER.equals(type)) {
+            return getData(OstSdkFacadeProvider.get().getUser(id));
+        }
+        if (TOKEN.equals(type)) {
+            return getData(OstSdkFacadeProvider.get().getToken(id));
+        }
+        if (CURRENT_DEVICE.equals(type)) {
+            return getData(OstSdkFacadeProvider.get().getCurrentDeviceForUserId(id));
+        }
+        if (BIOMETRIC_ENABLED.equals(type)) {
+            return OstSdkFacadeProvider.get().isBiometricEnabled(id);
+        }
+        throw new IllegalArgumentException("Unknown entity type " + type);
+    }
+
+    private static JSONObject getData(OstBaseEntity entity) {
+        return null == entity ? null : entity.getData();
+    }
+}
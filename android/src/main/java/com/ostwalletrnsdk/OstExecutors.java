@@ -0,0 +1,226 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Executor lanes for work started from JS, so that it does not all queue on the native-modules thread.
+ *  READ     - local database reads (getters). Pool of background-priority threads.
+ *  WORKFLOW - workflow starts. A single thread, so workflows start in the order JS requested them.
+ *  CRYPTO   - passphrase construction (pinEntered and workflows started with a pin). A single thread above default priority,
+ *             so pin submission never waits behind reads or workflow starts.
+ * When disabled, work runs on the calling thread.
+ * While OstInitPipeline initializes the sdk, READ tasks are held and run once the sdk stage is done, so that
+ * getters and json-api calls issued right after initialize do not read from an uninitialized sdk.
+ * Tasks report their own failures to JS (error callback or flowInterrupt); the catch in execute only keeps
+ * an unexpected error from killing the lane thread.
+ */
+public class OstExecutors {
+
+    private static final String LOG_TAG = "OstExecutors";
+
+    public static final int DEFAULT_READ_POOL_SIZE = 2;
+    public static final int MAX_READ_POOL_SIZE = 4;
+
+    public enum Lane {
+        READ("ost-read", Process.THREAD_PRIORITY_BACKGROUND),
+        WORKFLOW("ost-workflow", Process.THREAD_PRIORITY_DEFAULT),
+        CRYPTO("ost-crypto", Process.THREAD_PRIORITY_DEFAULT + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+
+        final String threadName;
+        final int threadPriority;
+
+        Lane(String threadName, int threadPriority) {
+            this.threadName = threadName;
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    private static final OstExecutors INSTANCE = new OstExecutors();
+
+    public static OstExecutors getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class LaneExecutor extends ThreadPoolExecutor {
+        private final AtomicInteger peakQueueDepth = new AtomicInteger(0);
+
+        LaneExecutor(final Lane lane, int poolSize) {
+            super(poolSize, poolSize, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(lane.threadPriority);
+                            runnable.run();
+                        }
+                    }, lane.threadName + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            allowCoreThreadTimeOut(true);
+        }
+
+        void submitTask(Runnable task) {
+            execute(task);
+            int queueDepth = getQueue().size();
+            int peak = peakQueueDepth.get();
+            while (queueDepth > peak && !peakQueueDepth.compareAndSet(peak, queueDepth)) {
+                peak = peakQueueDepth.get();
+            }
+        }
+    }
+
+    private final LaneExecutor readExecutor = new LaneExecutor(Lane.READ, DEFAULT_READ_POOL_SIZE);
+    private final LaneExecutor workflowExecutor = new LaneExecutor(Lane.WORKFLOW, 1);
+    private final LaneExecutor cryptoExecutor = new LaneExecutor(Lane.CRYPTO, 1);
+    private volatile boolean isEnabled = true;
+
+    // Guarded by heldReads.
+    private final List<Runnable> heldReads = new ArrayList<>();
+    private int readHoldCount = 0;
+
+    private OstExecutors() {
+    }
+
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public synchronized void setReadPoolSize(int poolSize) {
+        int size = Math.max(1, Math.min(MAX_READ_POOL_SIZE, poolSize));
+        if (size > readExecutor.getMaximumPoolSize()) {
+            readExecutor.setMaximumPoolSize(size);
+            readExecutor.setCorePoolSize(size);
+        } else {
+            readExecutor.setCorePoolSize(size);
+            readExecutor.setMaximumPoolSize(size);
+        }
+    }
+
+    public void execute(Lane lane, final Runnable task) {
+        Runnable guardedTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unexpected error in executor task", e);
+                }
+            }
+        };
+        if (Lane.READ == lane) {
+            synchronized (heldReads) {
+                if (readHoldCount > 0) {
+                    heldReads.add(guardedTask);
+                    return;
+                }
+            }
+        }
+        run(lane, guardedTask);
+    }
+
+    /*
+     * Holds READ tasks until the matching releaseReads.
+     */
+    public void holdReads() {
+        synchronized (heldReads) {
+            readHoldCount++;
+        }
+    }
+
+    /*
+     * Runs the held READ tasks, in the order they were submitted, once no hold is left.
+     */
+    public void releaseReads() {
+        List<Runnable> tasks;
+        synchronized (heldReads) {
+            if (readHoldCount == 0 || --readHoldCount > 0) {
+                return;
+            }
+            tasks = new ArrayList<>(heldReads);
+            heldReads.clear();
+        }
+        for (Runnable task : tasks) {
+            run(Lane.READ, task);
+        }
+    }
+
+    public boolean isHoldingReads() {
+        synchronized (heldReads) {
+            return readHoldCount > 0;
+        }
+    }
+
+    public int getHeldReadCount() {
+        synchronized (heldReads) {
+            return heldReads.size();
+        }
+    }
+
+    private void run(Lane lane, Runnable guardedTask) {
+        if (!isEnabled) {
+            guardedTask.run();
+            return;
+        }
+        getExecutor(lane).submitTask(guardedTask);
+    }
+
+    public int getQueueDepth(Lane lane) {
+        return getExecutor(lane).getQueue().size();
+    }
+
+    public int getPeakQueueDepth(Lane lane) {
+        return getExecutor(lane).peakQueueDepth.get();
+    }
+
+    public int getActiveCount(Lane lane) {
+        return getExecutor(lane).getActiveCount();
+    }
+
+    public long getCompletedCount(Lane lane) {
+        return getExecutor(lane).getCompletedTaskCount();
+    }
+
+    public int getPoolSize(Lane lane) {
+        return getExecutor(lane).getMaximumPoolSize();
+    }
+
+    private LaneExecutor getExecutor(Lane lane) {
+        switch (lane) {
+            case READ:
+                return readExecutor;
+            case CRYPTO:
+                return cryptoExecutor;
+            case WORKFLOW:
+            default:
+                return workflowExecutor;
+        }
+    }
+}
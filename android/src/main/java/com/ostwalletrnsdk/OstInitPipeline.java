@@ -0,0 +1,213 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.ost.walletsdk.ui.OstWalletUI;
+import com.ostwalletrnsdk.ui.OstUiConfigStore;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Initializes the sdk in stages, off the native-modules thread, so that JS can start it at splash:
+ *  config    - converts the config map to JSON,
+ *  sdk       - OstWalletUI.initialize, on the WORKFLOW lane so that workflows requested meanwhile start after it,
+ *  ui_config - applies theme and content configs that were set before the sdk was initialized, or else
+ *              the ones persisted by OstUiConfigStore,
+ *  preload   - optionally loads the user, current device, biometric preference and token into OstEntitySnapshot,
+ *              on the READ lane,
+ *  ready     - the pipeline is done.
+ * Every stage emits an event on SDK_INIT_EVENTS: {stage, status, duration_ms, elapsed_ms, error}, where status is
+ * completed, skipped or failed. The initialize callback is invoked once the sdk stage is done.
+ * READ-lane work (getters, json-api calls) submitted from start until the sdk stage is done waits for it.
+ */
+public class OstInitPipeline {
+
+    private static final String LOG_TAG = "OstInitPipeline";
+
+    public static final String SDK_INIT_EVENTS = "onOstWalletSdkInitEvents";
+
+    static final String STAGE_CONFIG = "config";
+    static final String STAGE_SDK = "sdk";
+    static final String STAGE_UI_CONFIG = "ui_config";
+    static final String STAGE_PRELOAD = "preload";
+    static final String STAGE_READY = "ready";
+
+    static final String STATUS_COMPLETED = "completed";
+    static final String STATUS_SKIPPED = "skipped";
+    static final String STATUS_FAILED = "failed";
+
+    private static final OstInitPipeline INSTANCE = new OstInitPipeline();
+
+    public static OstInitPipeline getInstance() {
+        return INSTANCE;
+    }
+
+    private volatile boolean isSdkInitialized = false;
+
+    private OstInitPipeline() {
+    }
+
+    /*
+     * preloadOptions: userId and tokenId of the entities to preload; null skips the preload stage.
+     */
+    public void start(final ReactContext reactContext,
+                      final String baseUrl,
+                      final ReadableMap rmConfig,
+                      final ReadableMap preloadOptions,
+                      final Callback callback) {
+        final long startNanos = System.nanoTime();
+        final String userId = getId(preloadOptions, "userId");
+        final String tokenId = getId(preloadOptions, "tokenId");
+
+        OstExecutors.getInstance().holdReads();
+        OstExecutors.getInstance().execute(OstExecutors.Lane.WORKFLOW, new Runnable() {
+            @Override
+            public void run() {
+                long stageNanos = System.nanoTime();
+                JSONObject config = null;
+                if (null != rmConfig) {
+                    try {
+                        config = Utils.convertMapToJson(rmConfig);
+                    } catch (Throwable e) {
+                        // As before, the sdk is initialized with its default config.
+                        Log.e(LOG_TAG, "Unable to parse config", e);
+                    }
+                }
+                emitStage(reactContext, STAGE_CONFIG, null == rmConfig ? STATUS_SKIPPED : STATUS_COMPLETED,
+                        stageNanos, startNanos, null);
+
+                stageNanos = System.nanoTime();
+                try {
+                    OstWalletUI.initialize(reactContext, baseUrl, config);
+                } catch (Throwable e) {
+                    String error = Utils.getError(e, "rn_ownsm_i_1");
+                    // Held reads fail against the uninitialized sdk and report it to their callbacks.
+                    OstExecutors.getInstance().releaseReads();
+                    emitStage(reactContext, STAGE_SDK, STATUS_FAILED, stageNanos, startNanos, error);
+                    emitStage(reactContext, STAGE_READY, STATUS_FAILED, startNanos, startNanos, null);
+                    callback.invoke(error);
+                    return;
+                }
+                OstExecutors.getInstance().releaseReads();
+                emitStage(reactContext, STAGE_SDK, STATUS_COMPLETED, stageNanos, startNanos, null);
+                callback.invoke();
+
+                stageNanos = System.nanoTime();
+                // Set before the configs are applied, so that a config set meanwhile is applied by the store.
+                isSdkInitialized = true;
+                boolean hasUiConfig = OstUiConfigStore.getInstance().applyAll(reactContext);
+                emitStage(reactContext, STAGE_UI_CONFIG, hasUiConfig ? STATUS_COMPLETED : STATUS_SKIPPED,
+                        stageNanos, startNanos, null);
+
+                if (null == userId && null == tokenId) {
+                    emitStage(reactContext, STAGE_PRELOAD, STATUS_SKIPPED, System.nanoTime(), startNanos, null);
+                    emitStage(reactContext, STAGE_READY, STATUS_COMPLETED, startNanos, startNanos, null);
+                    return;
+                }
+                OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+                    @Override
+                    public void run() {
+                        long preloadNanos = System.nanoTime();
+                        try {
+                            preload(userId, tokenId);
+                        } catch (Throwable e) {
+                            // Getters load what is missing on first use.
+                            emitStage(reactContext, STAGE_PRELOAD, STATUS_FAILED, preloadNanos, startNanos,
+                                    Utils.getError(e, "rn_oip_p_1"));
+                            emitStage(reactContext, STAGE_READY, STATUS_COMPLETED, startNanos, startNanos, null);
+                            return;
+                        }
+                        emitStage(reactContext, STAGE_PRELOAD, STATUS_COMPLETED, preloadNanos, startNanos, null);
+                        emitStage(reactContext, STAGE_READY, STATUS_COMPLETED, startNanos, startNanos, null);
+                    }
+                });
+            }
+        });
+    }
+
+    /*
+     * Whether OstWalletUI is initialized, so that theme and content configs can be applied right away.
+     */
+    public boolean isSdkInitialized() {
+        return isSdkInitialized;
+    }
+
+    private static void preload(String userId, String tokenId) {
+        OstEntitySnapshot snapshot = OstEntitySnapshot.getInstance();
+        if (null != userId) {
+            snapshot.getUser(userId);
+            snapshot.getCurrentDevice(userId);
+            snapshot.isBiometricEnabled(userId);
+        }
+        if (null != tokenId) {
+            snapshot.getToken(tokenId);
+        }
+    }
+
+    private static void emitStage(ReactContext reactContext, String stage, String status,
+                                  long stageStartNanos, long pipelineStartNanos, String error) {
+        long now = System.nanoTime();
+        WritableMap event = new WritableNativeMap();
+        event.putString("stage", stage);
+        event.putString("status", status);
+        event.putDouble("duration_ms", toMs(now - stageStartNanos));
+        event.putDouble("elapsed_ms", toMs(now - pipelineStartNanos));
+        if (null != error) {
+            try {
+                event.putMap("error", Utils.convertJsonToMap(new JSONObject(error)));
+            } catch (Throwable e) {
+                Log.e(LOG_TAG, "Unexpected error of stage " + stage);
+            }
+        }
+        try {
+            reactContext
+                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(SDK_INIT_EVENTS, event);
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unable to emit init event of stage " + stage, e);
+        }
+    }
+
+    /*
+     * Ids are accepted as strings or numbers; JS apps commonly hold the token id as a number.
+     */
+    private static String getId(ReadableMap map, String key) {
+        if (null == map || !map.hasKey(key)) {
+            return null;
+        }
+        switch (map.getType(key)) {
+            case String:
+                return map.getString(key);
+            case Number:
+                double value = map.getDouble(key);
+                if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                    return String.valueOf((long) value);
+                }
+                return String.valueOf(value);
+            default:
+                return null;
+        }
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
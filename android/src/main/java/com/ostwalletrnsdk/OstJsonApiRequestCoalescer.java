@@ -0,0 +1,235 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import com.ost.walletsdk.network.OstJsonApiCallback;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/*
+ * Shares one OstJsonApi request between identical concurrent calls (same api, userId and payload).
+ * Every waiting callback receives the response and converts it on its own,
+ * since a WritableMap can only be handed over to JS once.
+ * Requests are issued on the READ lane, so that they wait for an initialize in progress.
+ * A call carries the response cache generation it was made in, and never joins a request issued in an older
+ * one: that request may have been sent before an invalidation, and its response predate it.
+ */
+class OstJsonApiRequestCoalescer {
+
+    private static final String LOG_TAG = "OstJsonApiCoalescer";
+
+    static abstract class ApiCall {
+        final String name;
+
+        ApiCall(String name) {
+            this.name = name;
+        }
+
+        abstract void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback);
+    }
+
+    private static final class InFlight implements OstJsonApiCallback {
+        private final String key;
+        private final long generation;
+        private final ConcurrentHashMap<String, InFlight> owner;
+        private final List<OstJsonApiCallback> waiters = new ArrayList<>();
+        private boolean closed = false;
+
+        InFlight(String key, long generation, ConcurrentHashMap<String, InFlight> owner) {
+            this.key = key;
+            this.generation = generation;
+            this.owner = owner;
+        }
+
+        synchronized boolean addWaiter(OstJsonApiCallback waiter) {
+            if (closed) {
+                return false;
+            }
+            waiters.add(waiter);
+            return true;
+        }
+
+        private List<OstJsonApiCallback> close() {
+            owner.remove(key, this);
+            synchronized (this) {
+                closed = true;
+                return new ArrayList<>(waiters);
+            }
+        }
+
+        @Override
+        public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+            for (OstJsonApiCallback waiter : close()) {
+                try {
+                    waiter.onOstJsonApiSuccess(data);
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unexpected error while delivering response of " + key, e);
+                }
+            }
+        }
+
+        @Override
+        public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
+            for (OstJsonApiCallback waiter : close()) {
+                try {
+                    waiter.onOstJsonApiError(err, data);
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unexpected error while delivering error of " + key, e);
+                }
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong issuedCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+
+    void execute(ApiCall apiCall, String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback waiter) {
+        execute(apiCall, userId, payload, 0, waiter);
+    }
+
+    /*
+     * generation is the OstJsonApiResponseCache generation the caller will cache the response with.
+     */
+    void execute(ApiCall apiCall, String userId, @Nullable Map<String, Object> payload, long generation,
+                 OstJsonApiCallback waiter) {
+        String key = key(apiCall.name, userId, payload);
+        while (true) {
+            InFlight created = new InFlight(key, generation, inFlight);
+            InFlight existing = inFlight.putIfAbsent(key, created);
+            if (null != existing) {
+                if (existing.generation < generation) {
+                    // Issued before an invalidation; its waiters still get its response, this call a new one.
+                    if (!inFlight.replace(key, existing, created)) {
+                        continue;
+                    }
+                } else if (existing.addWaiter(waiter)) {
+                    coalescedCount.incrementAndGet();
+                    return;
+                } else {
+                    // The existing request completed in the meantime; try again.
+                    continue;
+                }
+            }
+
+            created.addWaiter(waiter);
+            issuedCount.incrementAndGet();
+            issue(apiCall, userId, payload, created);
+            return;
+        }
+    }
+
+    private static void issue(final ApiCall apiCall, final String userId, @Nullable final Map<String, Object> payload,
+                              final InFlight request) {
+        OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    apiCall.execute(userId, payload, request);
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unable to execute " + apiCall.name, e);
+                    request.onOstJsonApiError(new OstError("rn_ojarc_e_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED), null);
+                }
+            }
+        });
+    }
+
+    long getIssuedCount() {
+        return issuedCount.get();
+    }
+
+    long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /*
+     * A canonical form of the request: strings are length-prefixed and values carry a type tag, so that
+     * e.g. the string "1" and the number 1 give different keys. Map keys are sorted, so that payloads built
+     * in a different key order give the same key, and integral numbers are written alike whatever their type.
+     */
+    static String key(String apiName, String userId, @Nullable Map<String, Object> payload) {
+        StringBuilder canonical = new StringBuilder();
+        appendString(canonical, apiName);
+        appendValue(canonical, userId);
+        if (null != payload && !payload.isEmpty()) {
+            appendValue(canonical, payload);
+        }
+        return canonical.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendValue(StringBuilder canonical, Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            List<String> keys = new ArrayList<>(map.keySet());
+            Collections.sort(keys);
+            canonical.append('{').append(keys.size()).append(':');
+            for (String key : keys) {
+                appendString(canonical, key);
+                appendValue(canonical, map.get(key));
+            }
+            canonical.append('}');
+        } else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            canonical.append('[').append(list.size()).append(':');
+            for (Object item : list) {
+                appendValue(canonical, item);
+            }
+            canonical.append(']');
+        } else if (value instanceof String) {
+            appendString(canonical, (String) value);
+        } else if (value instanceof Number) {
+            appendNumber(canonical, (Number) value);
+        } else if (value instanceof Boolean) {
+            canonical.append('b').append(value);
+        } else if (null == value) {
+            canonical.append('z');
+        } else {
+            appendString(canonical.append('o'), String.valueOf(value));
+        }
+    }
+
+    private static void appendString(StringBuilder canonical, String value) {
+        canonical.append('s').append(value.length()).append(':').append(value);
+    }
+
+    private static void appendNumber(StringBuilder canonical, Number value) {
+        canonical.append('n');
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            canonical.append(value.longValue());
+            return;
+        }
+        double doubleValue = value.doubleValue();
+        if (doubleValue == Math.rint(doubleValue) && Math.abs(doubleValue) < Long.MAX_VALUE) {
+            canonical.append((long) doubleValue);
+        } else {
+            canonical.append(doubleValue);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * In-memory cache of OstJsonApi entity responses keyed by endpoint and userId.
+ * A response younger than the endpoint ttl is fresh. Up to maxStale after that it is
+ * still served, but the caller is expected to revalidate it in the background.
+ * The balances of a user are invalidated when one of their transactions completes. A response to a request
+ * issued before an invalidation is not cached, so that it cannot bring back the balance from before the transfer.
+ */
+public class OstJsonApiResponseCache {
+
+    static final String BALANCE = "balance";
+    static final String BALANCE_WITH_PRICE_POINTS = "balance_with_price_points";
+    static final String PRICE_POINTS = "price_points";
+
+    enum State {
+        MISS,
+        FRESH,
+        STALE
+    }
+
+    static final class Policy {
+        final long ttlMs;
+        final long maxStaleMs;
+
+        Policy(long ttlMs, long maxStaleMs) {
+            this.ttlMs = ttlMs;
+            this.maxStaleMs = maxStaleMs;
+        }
+    }
+
+    /*
+     * Time source of the entry ages; replaced in tests.
+     */
+    interface Clock {
+        long nanoTime();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    static final class Entry {
+        final JSONObject data;
+        final long fetchedAtNanos;
+
+        Entry(JSONObject data, long fetchedAtNanos) {
+            this.data = data;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+    }
+
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Policy> policies = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(0);
+
+    private static final OstJsonApiResponseCache INSTANCE = new OstJsonApiResponseCache();
+
+    public static OstJsonApiResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    OstJsonApiResponseCache() {
+        this(SYSTEM_CLOCK);
+    }
+
+    OstJsonApiResponseCache(Clock clock) {
+        this.clock = clock;
+        policies.put(BALANCE, new Policy(TimeUnit.SECONDS.toMillis(10), TimeUnit.MINUTES.toMillis(5)));
+        policies.put(BALANCE_WITH_PRICE_POINTS, new Policy(TimeUnit.SECONDS.toMillis(10), TimeUnit.MINUTES.toMillis(5)));
+        policies.put(PRICE_POINTS, new Policy(TimeUnit.SECONDS.toMillis(60), TimeUnit.MINUTES.toMillis(10)));
+    }
+
+    /*
+     * A ttl of 0 disables caching for the endpoint.
+     */
+    void setPolicy(String endpoint, long ttlMs, long maxStaleMs) {
+        policies.put(endpoint, new Policy(Math.max(0, ttlMs), Math.max(0, maxStaleMs)));
+        if (ttlMs <= 0) {
+            invalidate(endpoint, null);
+        }
+    }
+
+    boolean isEnabled(String endpoint) {
+        Policy policy = policies.get(endpoint);
+        return null != policy && policy.ttlMs > 0;
+    }
+
+    Entry get(String endpoint, String userId) {
+        return entries.get(key(endpoint, userId));
+    }
+
+    State getState(String endpoint, Entry entry) {
+        Policy policy = policies.get(endpoint);
+        if (null == entry || null == policy || policy.ttlMs <= 0) {
+            return State.MISS;
+        }
+        long ageMs = getAgeMs(entry);
+        if (ageMs <= policy.ttlMs) {
+            return State.FRESH;
+        }
+        if (ageMs <= policy.ttlMs + policy.maxStaleMs) {
+            return State.STALE;
+        }
+        return State.MISS;
+    }
+
+    long getAgeMs(Entry entry) {
+        return TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - entry.fetchedAtNanos);
+    }
+
+    /*
+     * Taken before a request is issued, and passed to put with its response.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /*
+     * Dropped if the cache was invalidated since requestGeneration was taken.
+     */
+    synchronized void put(String endpoint, String userId, JSONObject data, long requestGeneration) {
+        if (isEnabled(endpoint) && requestGeneration == generation.get()) {
+            entries.put(key(endpoint, userId), new Entry(data, clock.nanoTime()));
+        }
+    }
+
+    /*
+     * Called when a transaction of userId completes.
+     */
+    public void invalidateBalances(String userId) {
+        if (null == userId) {
+            return;
+        }
+        invalidate(BALANCE, userId);
+        invalidate(BALANCE_WITH_PRICE_POINTS, userId);
+    }
+
+    /*
+     * null endpoint or userId matches all.
+     */
+    synchronized void invalidate(String endpoint, String userId) {
+        generation.incrementAndGet();
+        if (null != endpoint && null != userId) {
+            entries.remove(key(endpoint, userId));
+            return;
+        }
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            String cacheKey = iterator.next().getKey();
+            int separator = cacheKey.indexOf('|');
+            boolean endpointMatches = null == endpoint || endpoint.equals(cacheKey.substring(0, separator));
+            boolean userMatches = null == userId || userId.equals(cacheKey.substring(separator + 1));
+            if (endpointMatches && userMatches) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String key(String endpoint, String userId) {
+        return endpoint + "|" + userId;
+    }
+}
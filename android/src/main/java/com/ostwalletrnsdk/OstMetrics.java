@@ -0,0 +1,199 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Counters and histograms of bridge traffic and conversion cost.
+ * Disabled by default; while disabled, isEnabled() is the only cost on the instrumented paths.
+ */
+public class OstMetrics {
+
+    public static final String EVENTS_PREFIX = "events.";
+    public static final String EMITS_PREFIX = "emits.";
+    public static final String PAYLOAD_BYTES_PREFIX = "payload_bytes.";
+
+    public static final String CONVERT_JSON_TO_MAP = "convert_json_to_map_us";
+    public static final String CONVERT_JSON_TO_ARRAY = "convert_json_to_array_us";
+    public static final String CONVERT_MAP_TO_JSON = "convert_map_to_json_us";
+    public static final String CONVERT_MAP_TO_HASH_MAP = "convert_map_to_hash_map_us";
+    public static final String GET_ERROR = "get_error_us";
+    public static final String PASSPHRASE_DERIVATION = "passphrase_derivation_us";
+    public static final String PASSPHRASES_DISCARDED = "passphrases_discarded";
+    public static final String UI_CONFIG_APPLIED = "ui_config_applied";
+    public static final String UI_CONFIG_SKIPPED = "ui_config_skipped";
+    public static final String INFORMATIONAL_EVENTS_DROPPED = "informational_events_dropped";
+    public static final String INFORMATIONAL_EVENTS_MERGED = "informational_events_merged";
+
+    private static final long[] TIME_BUCKETS_US = {10, 50, 100, 500, 1000, 5000, 10000, 50000};
+    private static final long[] SIZE_BUCKETS_BYTES = {64, 256, 1024, 4096, 16384, 65536, 262144};
+
+    private static final OstMetrics INSTANCE = new OstMetrics();
+
+    public static OstMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Histogram {
+        final long[] upperBounds;
+        final AtomicLongArray bucketCounts;
+        final AtomicLong count = new AtomicLong(0);
+        final AtomicLong sum = new AtomicLong(0);
+        final AtomicLong max = new AtomicLong(0);
+
+        Histogram(long[] upperBounds) {
+            this.upperBounds = upperBounds;
+            // The last bucket holds values above the largest bound.
+            this.bucketCounts = new AtomicLongArray(upperBounds.length + 1);
+        }
+
+        void record(long value) {
+            int bucket = 0;
+            while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+                bucket++;
+            }
+            bucketCounts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax = max.get();
+            while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+                currentMax = max.get();
+            }
+        }
+
+        WritableMap toMap() {
+            WritableMap map = new WritableNativeMap();
+            long histogramCount = count.get();
+            long histogramSum = sum.get();
+            map.putDouble("count", histogramCount);
+            map.putDouble("sum", histogramSum);
+            map.putDouble("max", max.get());
+            map.putDouble("mean", histogramCount == 0 ? 0 : histogramSum / (double) histogramCount);
+            WritableArray buckets = new WritableNativeArray();
+            for (int i = 0; i < bucketCounts.length(); i++) {
+                WritableMap bucket = new WritableNativeMap();
+                if (i < upperBounds.length) {
+                    bucket.putDouble("le", upperBounds[i]);
+                } else {
+                    bucket.putString("le", "+Inf");
+                }
+                bucket.putDouble("count", bucketCounts.get(i));
+                buckets.pushMap(bucket);
+            }
+            map.putArray("buckets", buckets);
+            return map;
+        }
+    }
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private volatile boolean isEnabled = false;
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    private OstMetrics() {
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    public void increment(String name) {
+        if (!isEnabled) {
+            return;
+        }
+        AtomicLong counter = counters.get(name);
+        if (null == counter) {
+            AtomicLong created = new AtomicLong(0);
+            counter = counters.putIfAbsent(name, created);
+            if (null == counter) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    /*
+     * Records the time elapsed since startNanos (taken with System.nanoTime()) in microseconds.
+     */
+    public void recordSince(String name, long startNanos) {
+        if (!isEnabled) {
+            return;
+        }
+        getHistogram(name, TIME_BUCKETS_US).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public void recordBytes(String name, long bytes) {
+        if (!isEnabled) {
+            return;
+        }
+        getHistogram(name, SIZE_BUCKETS_BYTES).record(bytes);
+    }
+
+    public void reset() {
+        counters.clear();
+        histograms.clear();
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    /*
+     * gauges are point-in-time values (e.g. registry sizes) added by the caller.
+     */
+    public WritableMap snapshot(Map<String, Integer> gauges) {
+        WritableMap snapshot = new WritableNativeMap();
+        snapshot.putBoolean("enabled", isEnabled);
+        snapshot.putDouble("since", sinceMillis);
+
+        WritableMap counterMap = new WritableNativeMap();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            counterMap.putDouble(entry.getKey(), entry.getValue().get());
+        }
+        snapshot.putMap("counters", counterMap);
+
+        WritableMap histogramMap = new WritableNativeMap();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            histogramMap.putMap(entry.getKey(), entry.getValue().toMap());
+        }
+        snapshot.putMap("histograms", histogramMap);
+
+        WritableMap gaugeMap = new WritableNativeMap();
+        for (Map.Entry<String, Integer> entry : gauges.entrySet()) {
+            gaugeMap.putInt(entry.getKey(), entry.getValue());
+        }
+        snapshot.putMap("gauges", gaugeMap);
+        return snapshot;
+    }
+
+    private Histogram getHistogram(String name, long[] upperBounds) {
+        Histogram histogram = histograms.get(name);
+        if (null == histogram) {
+            Histogram created = new Histogram(upperBounds);
+            histogram = histograms.putIfAbsent(name, created);
+            if (null == histogram) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.module.annotations.ReactModule;
+import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
+import com.ostwalletrnsdk.ui.OstUICallbackImpl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ReactModule(name = OstMetricsModule.NAME)
+public class OstMetricsModule extends ReactContextBaseJavaModule {
+
+    public static final String NAME = "OstMetrics";
+
+    public OstMetricsModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @ReactMethod
+    public void setEnabled(boolean enabled) {
+        OstMetrics.getInstance().setEnabled(enabled);
+    }
+
+    /**
+     * Callback receives {enabled, since, counters, histograms, gauges}.
+     * Time histograms are in microseconds, payload histograms in bytes.
+     */
+    @ReactMethod
+    public void getSnapshot(Callback callback) {
+        Map<String, Integer> gauges = new LinkedHashMap<>();
+        gauges.put("live_workflows", OstWorkFlowCallbackImpl.getLiveCount());
+        gauges.put("live_ui_workflows", OstUICallbackImpl.getLiveCount());
+        gauges.put("live_interacts", BaseSdkInteract.registry.size());
+        gauges.put("watched_workflows", OstWorkflowWatchdog.getInstance().getWatchedCount());
+        gauges.put("entity_snapshot_entries", OstEntitySnapshot.getInstance().size());
+        for (Map.Entry<String, Integer> depth : OstRNSdkEventEmitter.getQueueDepths().entrySet()) {
+            gauges.put("event_queue." + depth.getKey(), depth.getValue());
+        }
+        callback.invoke(OstMetrics.getInstance().snapshot(gauges));
+    }
+
+    /**
+     * Callback receives {eager_init, specs_ms, modules: {<name>: {created_after_ms, init_ms}}}.
+     * created_after_ms is measured from React context creation; modules not used yet are absent.
+     */
+    @ReactMethod
+    public void getModuleInitTimes(Callback callback) {
+        callback.invoke(OstModuleInitTimes.getInstance().snapshot());
+    }
+
+    @ReactMethod
+    public void reset() {
+        OstMetrics.getInstance().reset();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * When the native modules of OstWalletRnSdkPackage were created and how long each took, relative to
+ * the moment React Native asked the package for its modules (React context creation).
+ * With lazy modules, a module that the app never used is absent.
+ */
+public class OstModuleInitTimes {
+
+    private static final OstModuleInitTimes INSTANCE = new OstModuleInitTimes();
+
+    public static OstModuleInitTimes getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Entry {
+        final long createdAtNanos;
+        final long initNanos;
+
+        Entry(long createdAtNanos, long initNanos) {
+            this.createdAtNanos = createdAtNanos;
+            this.initNanos = initNanos;
+        }
+    }
+
+    // Guarded by this.
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private long contextCreatedNanos = 0;
+    private long specsNanos = 0;
+    private boolean isEagerInit = false;
+
+    private OstModuleInitTimes() {
+    }
+
+    /*
+     * A new React context was created; times of the previous context are dropped.
+     */
+    synchronized void contextCreated(long atNanos, long specsNanos, boolean isEagerInit) {
+        entries.clear();
+        this.contextCreatedNanos = atNanos;
+        this.specsNanos = specsNanos;
+        this.isEagerInit = isEagerInit;
+    }
+
+    synchronized void moduleCreated(String name, long startNanos) {
+        long now = System.nanoTime();
+        entries.put(name, new Entry(now, now - startNanos));
+    }
+
+    /*
+     * {eager_init, specs_ms, modules: {<name>: {created_after_ms, init_ms}}}
+     */
+    public synchronized WritableMap snapshot() {
+        WritableMap snapshot = new WritableNativeMap();
+        snapshot.putBoolean("eager_init", isEagerInit);
+        snapshot.putDouble("specs_ms", toMs(specsNanos));
+        WritableMap modules = new WritableNativeMap();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            WritableMap module = new WritableNativeMap();
+            module.putDouble("created_after_ms", toMs(entry.getValue().createdAtNanos - contextCreatedNanos));
+            module.putDouble("init_ms", toMs(entry.getValue().initNanos));
+            modules.putMap(entry.getKey(), module);
+        }
+        snapshot.putMap("modules", modules);
+        return snapshot;
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+/*
+ * Builds UserPassphrases on the CRYPTO lane.
+ * Derivation is slow, so the flow it is meant for may be cancelled meanwhile; the passphrase is then
+ * wiped instead of being handed over.
+ */
+class OstPassphraseDeriver {
+
+    interface Listener {
+        /*
+         * Called on the WORKFLOW lane, in the order the pins were given. The receiver owns the passphrases
+         * once it returns; if it throws, they are wiped and the workflow is interrupted.
+         */
+        void onPassphrases(UserPassphrase[] passphrases);
+    }
+
+    private OstPassphraseDeriver() {
+    }
+
+    /*
+     * Builds the passphrase and records the time it took.
+     */
+    static UserPassphrase derive(String userId, String pin, String passphrasePrefix) {
+        long startNanos = System.nanoTime();
+        UserPassphrase passphrase = new UserPassphrase(userId, pin, passphrasePrefix);
+        OstMetrics.getInstance().recordSince(OstMetrics.PASSPHRASE_DERIVATION, startNanos);
+        return passphrase;
+    }
+
+    /*
+     * Wipes a passphrase that is not handed over to the sdk: derived for a flow that has since been cancelled,
+     * or whose handover failed. Every such passphrase goes through here, so that none is left unwiped.
+     */
+    static void discard(UserPassphrase passphrase) {
+        Utils.cleanPassPhrase(passphrase);
+        OstMetrics.getInstance().increment(OstMetrics.PASSPHRASES_DISCARDED);
+    }
+
+    /*
+     * Builds one passphrase per pin, for a workflow started by OstWalletRnSdkModule.
+     * An invalid pin interrupts the workflow with the sdk error. Nothing is handed to the listener
+     * once the workflow has finished (e.g. interrupted).
+     */
+    static void deriveForWorkflow(final String userId,
+                                  final String passphrasePrefix,
+                                  final String[] pins,
+                                  final OstWorkflowContext context,
+                                  final OstWorkFlowCallbackImpl workFlowCallback,
+                                  final Listener listener) {
+        OstExecutors.getInstance().execute(OstExecutors.Lane.CRYPTO, new Runnable() {
+            @Override
+            public void run() {
+                if (workFlowCallback.isFinished()) {
+                    return;
+                }
+                final UserPassphrase[] passphrases = new UserPassphrase[pins.length];
+                try {
+                    for (int i = 0; i < pins.length; i++) {
+                        passphrases[i] = derive(userId, pins[i], passphrasePrefix);
+                    }
+                } catch (OstError e) {
+                    discard(passphrases);
+                    workFlowCallback.flowInterrupt(context, e);
+                    return;
+                } catch (Throwable e) {
+                    discard(passphrases);
+                    workFlowCallback.errorEncountered("rn_opd_dfw_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED);
+                    return;
+                }
+                if (workFlowCallback.isFinished()) {
+                    discard(passphrases);
+                    return;
+                }
+                OstExecutors.getInstance().execute(OstExecutors.Lane.WORKFLOW, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (workFlowCallback.isFinished()) {
+                            discard(passphrases);
+                            return;
+                        }
+                        boolean isHandedOff = false;
+                        try {
+                            listener.onPassphrases(passphrases);
+                            isHandedOff = true;
+                        } catch (Throwable e) {
+                            workFlowCallback.errorEncountered("rn_opd_dfw_2", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED);
+                        } finally {
+                            // The listener owns the passphrases only once it has taken them.
+                            if (!isHandedOff) {
+                                discard(passphrases);
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static void discard(UserPassphrase[] passphrases) {
+        for (UserPassphrase passphrase : passphrases) {
+            if (null != passphrase) {
+                discard(passphrase);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.ost.walletsdk.models.entities.OstDevice;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+ * Writes the add-device QR code of a user into the app cache directory.
+ * The file name is derived from the user, the device address (which is what the QR code encodes),
+ * the requested size and the format, so an existing file is reused as long as none of them change.
+ * Files of a previous device of the user are deleted when a new one is written.
+ */
+class OstQRCodeFileCache {
+
+    private static final String LOG_TAG = "OstQRCodeFileCache";
+    private static final String DIRECTORY_NAME = "ost_qr_codes";
+
+    static final String FORMAT_PNG = "png";
+    static final String FORMAT_JPEG = "jpeg";
+    static final String FORMAT_WEBP = "webp";
+
+    static final class QRCodeFile {
+        final File file;
+        final int width;
+        final int height;
+        final String format;
+        final boolean isCached;
+
+        QRCodeFile(File file, int width, int height, String format, boolean isCached) {
+            this.file = file;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.isCached = isCached;
+        }
+
+        String getUri() {
+            return "file://" + file.getAbsolutePath();
+        }
+    }
+
+    private final Context context;
+
+    OstQRCodeFileCache(Context context) {
+        this.context = context;
+    }
+
+    /*
+     * size of 0 or less keeps the size rendered by the sdk.
+     */
+    synchronized QRCodeFile getAddDeviceQRCode(String userId, int size, String format) throws IOException {
+        String normalizedFormat = normalizeFormat(format);
+        OstDevice device = OstSdkFacadeProvider.get().getCurrentDeviceForUserId(userId);
+        if (null == device || null == device.getAddress()) {
+            throw new IllegalStateException("Current device not found for user " + userId);
+        }
+
+        File directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory.getAbsolutePath());
+        }
+
+        String userPrefix = hash(userId).substring(0, 16) + "_";
+        String devicePrefix = userPrefix + hash(device.getAddress()).substring(0, 16) + "_";
+        String fileName = devicePrefix + size + "." + normalizedFormat;
+        File file = new File(directory, fileName);
+        if (file.isFile() && file.length() > 0) {
+            int[] dimensions = readDimensions(file);
+            if (null != dimensions) {
+                return new QRCodeFile(file, dimensions[0], dimensions[1], normalizedFormat, true);
+            }
+        }
+
+        deleteFiles(directory, userPrefix, devicePrefix);
+        return writeQRCode(userId, size, normalizedFormat, file);
+    }
+
+    private QRCodeFile writeQRCode(String userId, int size, String format, File file) throws IOException {
+        Bitmap bitmap = OstSdkFacadeProvider.get().getAddDeviceQRCode(userId);
+        if (null == bitmap) {
+            throw new IllegalStateException("Unable to render QR code for user " + userId);
+        }
+        Bitmap scaled = bitmap;
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        FileOutputStream outputStream = null;
+        try {
+            if (size > 0 && (bitmap.getWidth() != size || bitmap.getHeight() != size)) {
+                // No filtering, so the modules of the code stay sharp.
+                scaled = Bitmap.createScaledBitmap(bitmap, size, size, false);
+            }
+            outputStream = new FileOutputStream(tempFile);
+            if (!scaled.compress(toCompressFormat(format), 100, outputStream)) {
+                throw new IOException("Unable to compress QR code");
+            }
+            outputStream.close();
+            outputStream = null;
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Unable to write " + file.getAbsolutePath());
+            }
+            writeDimensions(file, scaled.getWidth(), scaled.getHeight());
+            return new QRCodeFile(file, scaled.getWidth(), scaled.getHeight(), format, false);
+        } finally {
+            if (null != outputStream) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Unable to close " + tempFile.getAbsolutePath());
+                }
+            }
+            if (tempFile.exists() && !tempFile.delete()) {
+                Log.w(LOG_TAG, "Unable to delete " + tempFile.getAbsolutePath());
+            }
+            if (scaled != bitmap) {
+                scaled.recycle();
+            }
+            bitmap.recycle();
+        }
+    }
+
+    /*
+     * Dimensions are kept in a sibling file so a cached QR code never has to be decoded.
+     */
+    private static void writeDimensions(File file, int width, int height) {
+        FileOutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(getDimensionsFile(file));
+            outputStream.write((width + "x" + height).getBytes("UTF-8"));
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to write dimensions of " + file.getName());
+        } finally {
+            if (null != outputStream) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Unable to close dimensions of " + file.getName());
+                }
+            }
+        }
+    }
+
+    private static int[] readDimensions(File file) {
+        File dimensionsFile = getDimensionsFile(file);
+        if (!dimensionsFile.isFile()) {
+            return null;
+        }
+        FileInputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(dimensionsFile);
+            byte[] buffer = new byte[32];
+            int length = inputStream.read(buffer);
+            String[] parts = new String(buffer, 0, Math.max(0, length), "UTF-8").split("x");
+            return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+        } catch (Throwable e) {
+            return null;
+        } finally {
+            if (null != inputStream) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    Log.w(LOG_TAG, "Unable to close dimensions of " + file.getName());
+                }
+            }
+        }
+    }
+
+    private static File getDimensionsFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ".dim");
+    }
+
+    /*
+     * Deletes files of the user that belong to another device.
+     */
+    private static void deleteFiles(File directory, String prefix, String keepPrefix) {
+        File[] files = directory.listFiles();
+        if (null == files) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(prefix) && !name.startsWith(keepPrefix) && !file.delete()) {
+                Log.w(LOG_TAG, "Unable to delete " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    static String normalizeFormat(String format) {
+        if (null == format) {
+            return FORMAT_PNG;
+        }
+        String lowerCaseFormat = format.toLowerCase();
+        if ("jpg".equals(lowerCaseFormat) || FORMAT_JPEG.equals(lowerCaseFormat)) {
+            return FORMAT_JPEG;
+        }
+        if (FORMAT_WEBP.equals(lowerCaseFormat)) {
+            return FORMAT_WEBP;
+        }
+        if (FORMAT_PNG.equals(lowerCaseFormat)) {
+            return FORMAT_PNG;
+        }
+        throw new IllegalArgumentException("Unsupported QR code format " + format);
+    }
+
+    private static Bitmap.CompressFormat toCompressFormat(String format) {
+        if (FORMAT_JPEG.equals(format)) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        if (FORMAT_WEBP.equals(format)) {
+            return Bitmap.CompressFormat.WEBP;
+        }
+        return Bitmap.CompressFormat.PNG;
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            // Both are guaranteed to be available on Android.
+            throw new IllegalStateException(e);
+        }
+    }
+}
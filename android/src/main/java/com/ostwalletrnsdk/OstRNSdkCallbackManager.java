@@ -14,16 +14,20 @@ import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.module.annotations.ReactModule;
 import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
-import com.ost.walletsdk.workflows.errors.OstError;
 import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
+import com.ostwalletrnsdk.sdkIntracts.OstDeviceRegisteredWrap;
 import com.ostwalletrnsdk.sdkIntracts.OstPinAcceptWrap;
 import com.ostwalletrnsdk.sdkIntracts.OstVerifyDataWrap;
 
 import org.json.JSONObject;
 
+@ReactModule(name = OstRNSdkCallbackManager.NAME)
 public class OstRNSdkCallbackManager extends ReactContextBaseJavaModule {
 
+    public static final String NAME = "OstRNSdkCallbackManager";
+
     private final ReactApplicationContext reactContext;
 
     public OstRNSdkCallbackManager(ReactApplicationContext reactContext) {
@@ -33,16 +37,18 @@ public class OstRNSdkCallbackManager extends ReactContextBaseJavaModule {
 
     @Override
     public String getName() {
-        return "OstRNSdkCallbackManager";
+        return NAME;
     }
 
     @ReactMethod
     public void cancelFlow(
             String uuid
     ) {
-        BaseSdkInteract baseSdkInteract = BaseSdkInteract.map.get(uuid);
+        long receivedAtNanos = System.nanoTime();
+        BaseSdkInteract baseSdkInteract = BaseSdkInteract.registry.take(uuid, BaseSdkInteract.class);
         if (null != baseSdkInteract) {
             baseSdkInteract.messageReceived("cancelFlow"  , new JSONObject().toString());
+            OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "cancelFlow", receivedAtNanos);
         }
 
     }
@@ -53,9 +59,15 @@ public class OstRNSdkCallbackManager extends ReactContextBaseJavaModule {
             String jsonString,
             Callback errorCallback
     ) {
+        long receivedAtNanos = System.nanoTime();
         try {
-            BaseSdkInteract baseSdkInteract = BaseSdkInteract.map.get(uuid);
+            OstDeviceRegisteredWrap baseSdkInteract = BaseSdkInteract.registry.take(uuid, OstDeviceRegisteredWrap.class);
+            if (null == baseSdkInteract) {
+                errorCallback.invoke( Utils.getError( interactNotFound(uuid) ,  "rn_si_ornscm_dr_1") );
+                return;
+            }
             baseSdkInteract.messageReceived("deviceRegistered", jsonString );
+            OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "deviceRegistered", receivedAtNanos);
         } catch (Throwable e) {
             errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_dr_1") );
         }
@@ -65,30 +77,65 @@ public class OstRNSdkCallbackManager extends ReactContextBaseJavaModule {
     public void pinEntered(
           String uuid, String userId, String pin, String passphrasePrefix, Callback errorCallback
     ) {
-        UserPassphrase userPassPhrase = null;
-        try{
-            userPassPhrase = new UserPassphrase(userId, pin, passphrasePrefix) ;
-        } catch(Throwable e){
-            errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_pe_1") );
-            return;
-        }
+        final long receivedAtNanos = System.nanoTime();
+        // Passphrase construction is expensive; keep it off the native-modules thread and ahead of reads.
+        OstExecutors.getInstance().execute(OstExecutors.Lane.CRYPTO, new Runnable() {
+            @Override
+            public void run() {
+                // The flow may have been cancelled while the pin waited for the lane.
+                if (null == BaseSdkInteract.registry.lookup(uuid, OstPinAcceptWrap.class)) {
+                    errorCallback.invoke( Utils.getError( interactNotFound(uuid) ,  "rn_si_ornscm_pe_2") );
+                    return;
+                }
 
-        try {
-            OstPinAcceptWrap baseSdkInteract = (OstPinAcceptWrap) BaseSdkInteract.map.get(uuid);
-            baseSdkInteract.messageReceived("pinEntered", userPassPhrase );
-        } catch (Throwable e) {
-            Utils.cleanPassPhrase( userPassPhrase );
-            errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_pe_2") );
-        }
+                UserPassphrase userPassPhrase = null;
+                try{
+                    userPassPhrase = OstPassphraseDeriver.derive(userId, pin, passphrasePrefix) ;
+                } catch(Throwable e){
+                    errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_pe_1") );
+                    return;
+                }
+
+                boolean isHandedOff = false;
+                try {
+                    OstPinAcceptWrap baseSdkInteract = BaseSdkInteract.registry.take(uuid, OstPinAcceptWrap.class);
+                    if (null == baseSdkInteract) {
+                        // Cancelled during derivation.
+                        errorCallback.invoke( Utils.getError( interactNotFound(uuid) ,  "rn_si_ornscm_pe_2") );
+                        return;
+                    }
+                    baseSdkInteract.messageReceived("pinEntered", userPassPhrase );
+                    isHandedOff = true;
+                    OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "pinEntered", receivedAtNanos);
+                } catch (Throwable e) {
+                    errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_pe_2") );
+                } finally {
+                    // The sdk owns the passphrase only once it has taken it.
+                    if (!isHandedOff) {
+                        OstPassphraseDeriver.discard( userPassPhrase );
+                    }
+                }
+            }
+        });
     }
 
     @ReactMethod
     public void dataVerified( String uuid , Callback errorCallback ){
+        long receivedAtNanos = System.nanoTime();
         try {
-            OstVerifyDataWrap baseSdkInteract = (OstVerifyDataWrap) BaseSdkInteract.map.get(uuid);
+            OstVerifyDataWrap baseSdkInteract = BaseSdkInteract.registry.take(uuid, OstVerifyDataWrap.class);
+            if (null == baseSdkInteract) {
+                errorCallback.invoke( Utils.getError( interactNotFound(uuid) ,  "rn_si_ornscm_dv_1") );
+                return;
+            }
             baseSdkInteract.messageReceived("dataVerified" );
+            OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "dataVerified", receivedAtNanos);
         }catch ( Throwable e){
             errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_dv_1") );
         }
     }
+
+    static IllegalStateException interactNotFound(String uuid) {
+        return new IllegalStateException("No pending interact found for uuid " + uuid);
+    }
 }
@@ -0,0 +1,326 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Choreographer;
+
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Queues emitted events and flushes them to JS as one array event per channel and payload type,
+ * either once per frame (window of 0) or after the configured window.
+ * Events are queued in three lanes:
+ *  interactive   - events that wait for JS to answer (getPin, verifyData, ...); they are flushed right away,
+ *  informational - events that need no answer (requestAcknowledged, pinValidated, batchProgress),
+ *  terminal      - flowComplete, flowInterrupt and other events that are never dropped (queued, ...).
+ * A flush first emits the workflows that have an interactive event pending, each with the events queued before
+ * its interactive one, and then the other events. Events of a workflow always reach JS in the order they were queued.
+ * Under the drop and merge pressure policies, informational events wait for the window rather than the batch size
+ * and their lane holds at most maxInformationalDepth events; beyond that new ones are dropped, or with merge replace
+ * the queued event of the same workflow and function.
+ */
+class OstRNSdkEventDispatcher {
+
+    private static final String LOG_TAG = "OstRNSdkEventDispatcher";
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final int DEFAULT_MAX_INFORMATIONAL_DEPTH = 32;
+
+    static final String POLICY_NONE = "none";
+    static final String POLICY_DROP = "drop";
+    static final String POLICY_MERGE = "merge";
+
+    enum Lane {
+        INTERACTIVE("interactive"),
+        INFORMATIONAL("informational"),
+        TERMINAL("terminal");
+
+        final String label;
+
+        Lane(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class PendingEvent {
+        final ReactContext reactContext;
+        final String eventName;
+        final String uuid;
+        final String mergeKey;
+        final Object payload;
+        final long sequence;
+
+        PendingEvent(ReactContext reactContext, String eventName, String uuid, String mergeKey, Object payload,
+                     long sequence) {
+            this.reactContext = reactContext;
+            this.eventName = eventName;
+            this.uuid = uuid;
+            this.mergeKey = mergeKey;
+            this.payload = payload;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Comparator<PendingEvent> BY_SEQUENCE = new Comparator<PendingEvent>() {
+        @Override
+        public int compare(PendingEvent first, PendingEvent second) {
+            return first.sequence < second.sequence ? -1 : (first.sequence == second.sequence ? 0 : 1);
+        }
+    };
+
+    private final Object queueLock = new Object();
+    private final Object flushLock = new Object();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Indexed by Lane ordinal; guarded by queueLock.
+    private List<List<PendingEvent>> lanes = newLanes();
+    private int queuedCount = 0;
+    private long nextSequence = 0;
+    private boolean flushScheduled = false;
+    private volatile long windowMs = 0;
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private volatile String pressurePolicy = POLICY_NONE;
+    private volatile int maxInformationalDepth = DEFAULT_MAX_INFORMATIONAL_DEPTH;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            flush();
+        }
+    };
+
+    private final Runnable postFrameCallbackRunnable = new Runnable() {
+        @Override
+        public void run() {
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    };
+
+    void setWindowMs(long windowMs) {
+        this.windowMs = Math.max(0, windowMs);
+    }
+
+    void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+    }
+
+    /*
+     * policy is one of POLICY_NONE, POLICY_DROP and POLICY_MERGE; unknown policies are POLICY_NONE.
+     */
+    void setPressurePolicy(String policy, int maxInformationalDepth) {
+        this.pressurePolicy = POLICY_DROP.equals(policy) || POLICY_MERGE.equals(policy) ? policy : POLICY_NONE;
+        this.maxInformationalDepth = maxInformationalDepth > 0 ? maxInformationalDepth : DEFAULT_MAX_INFORMATIONAL_DEPTH;
+    }
+
+    /*
+     * Under POLICY_MERGE, a newer informational event replaces the queued one of the same workflow (uuid) and function.
+     */
+    void enqueue(ReactContext reactContext, String eventName, Lane lane, String uuid, String functionName, Object payload) {
+        String mergeKey = eventName + "/" + uuid + "/" + functionName;
+        String policy = pressurePolicy;
+        boolean flushNow;
+        synchronized (queueLock) {
+            List<PendingEvent> laneQueue = lanes.get(lane.ordinal());
+            if (Lane.INFORMATIONAL == lane && !POLICY_NONE.equals(policy)
+                    && laneQueue.size() >= maxInformationalDepth) {
+                if (POLICY_MERGE.equals(policy)
+                        && replaceLocked(laneQueue, reactContext, eventName, uuid, mergeKey, payload)) {
+                    OstMetrics.getInstance().increment(OstMetrics.INFORMATIONAL_EVENTS_MERGED);
+                } else {
+                    OstMetrics.getInstance().increment(OstMetrics.INFORMATIONAL_EVENTS_DROPPED);
+                }
+                return;
+            }
+            laneQueue.add(new PendingEvent(reactContext, eventName, uuid, mergeKey, payload, nextSequence++));
+            queuedCount++;
+            if (Lane.INTERACTIVE == lane) {
+                flushNow = true;
+            } else if (Lane.INFORMATIONAL == lane && !POLICY_NONE.equals(policy)) {
+                flushNow = false;
+            } else {
+                flushNow = queuedCount >= maxBatchSize;
+            }
+            if (!flushNow) {
+                scheduleFlushLocked();
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    // The replacement takes the place, and so the order, of the replaced event.
+    private static boolean replaceLocked(List<PendingEvent> laneQueue, ReactContext reactContext, String eventName,
+                                         String uuid, String mergeKey, Object payload) {
+        for (int i = laneQueue.size() - 1; i >= 0; i--) {
+            PendingEvent queued = laneQueue.get(i);
+            if (queued.mergeKey.equals(mergeKey)) {
+                laneQueue.set(i, new PendingEvent(reactContext, eventName, uuid, mergeKey, payload, queued.sequence));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Number of queued events of lane.
+     */
+    int getDepth(Lane lane) {
+        synchronized (queueLock) {
+            return lanes.get(lane.ordinal()).size();
+        }
+    }
+
+    private void scheduleFlushLocked() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        if (windowMs > 0) {
+            mainHandler.postDelayed(flushRunnable, windowMs);
+        } else {
+            mainHandler.post(postFrameCallbackRunnable);
+        }
+    }
+
+    void flush() {
+        // flushLock keeps concurrent flushes from overtaking each other.
+        synchronized (flushLock) {
+            List<List<PendingEvent>> pending;
+            synchronized (queueLock) {
+                flushScheduled = false;
+                if (0 == queuedCount) {
+                    return;
+                }
+                pending = lanes;
+                lanes = newLanes();
+                queuedCount = 0;
+            }
+
+            List<PendingEvent> interactive = pending.get(Lane.INTERACTIVE.ordinal());
+            List<PendingEvent> first = new ArrayList<>();
+            List<PendingEvent> rest = new ArrayList<>();
+            if (interactive.isEmpty()) {
+                for (List<PendingEvent> laneEvents : pending) {
+                    rest.addAll(laneEvents);
+                }
+            } else {
+                // Last interactive event of every workflow waiting for JS.
+                Map<String, Long> interactiveUntil = new HashMap<>();
+                for (PendingEvent event : interactive) {
+                    interactiveUntil.put(event.uuid, event.sequence);
+                }
+                for (List<PendingEvent> laneEvents : pending) {
+                    for (PendingEvent event : laneEvents) {
+                        Long until = interactiveUntil.get(event.uuid);
+                        if (null != until && event.sequence <= until) {
+                            first.add(event);
+                        } else {
+                            rest.add(event);
+                        }
+                    }
+                }
+                Collections.sort(first, BY_SEQUENCE);
+            }
+            Collections.sort(rest, BY_SEQUENCE);
+            emit(first);
+            emit(rest);
+        }
+    }
+
+    private void emit(List<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        // Batches per channel; a new one starts wherever the payload type changes, since a batch is either
+        // a JSON string or an array of maps. Both are queued around a switch of the payload type.
+        Map<String, List<List<PendingEvent>>> channels = new LinkedHashMap<>();
+        for (PendingEvent event : events) {
+            List<List<PendingEvent>> batches = channels.get(event.eventName);
+            if (null == batches) {
+                batches = new ArrayList<>();
+                channels.put(event.eventName, batches);
+            }
+            List<PendingEvent> batch = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+            if (null == batch || isString(batch.get(0)) != isString(event)) {
+                batch = new ArrayList<>();
+                batches.add(batch);
+            }
+            batch.add(event);
+        }
+
+        for (Map.Entry<String, List<List<PendingEvent>>> entry : channels.entrySet()) {
+            for (List<PendingEvent> batch : entry.getValue()) {
+                try {
+                    batch.get(0).reactContext
+                            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                            .emit(entry.getKey(), buildBatch(batch));
+                    OstMetrics.getInstance().increment(OstMetrics.EMITS_PREFIX + entry.getKey());
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unexpected error while flushing " + entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    private static boolean isString(PendingEvent event) {
+        return event.payload instanceof String;
+    }
+
+    private static List<List<PendingEvent>> newLanes() {
+        List<List<PendingEvent>> lanes = new ArrayList<>(Lane.values().length);
+        for (int i = 0; i < Lane.values().length; i++) {
+            lanes.add(new ArrayList<PendingEvent>());
+        }
+        return lanes;
+    }
+
+    private Object buildBatch(List<PendingEvent> events) {
+        if (isString(events.get(0))) {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < events.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append((String) events.get(i).payload);
+            }
+            return builder.append(']').toString();
+        }
+
+        WritableArray batch = new WritableNativeArray();
+        for (PendingEvent event : events) {
+            batch.pushMap((WritableMap) event.payload);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/*
+ * Builds the workflow event envelope and emits it to JS.
+ * By default the envelope is emitted as a WritableNativeMap so that JS receives
+ * an object and does not have to JSON.parse it. Apps relying on the old string
+ * payload can switch back using setUseJsonStringPayload.
+ * When batching is enabled, envelopes are handed to OstRNSdkEventDispatcher and
+ * reach JS as an array of envelopes on the same channel. Events with an interact (getPin, verifyData, ...)
+ * wait for JS to answer; the dispatcher flushes them right away, ahead of informational events.
+ */
+public class OstRNSdkEventEmitter {
+
+    private static final String LOG_TAG = "OstRNSdkEventEmitter";
+
+    public static final String SDK_EVENTS = "onOstWalletSdkEvents";
+    public static final String SDK_UI_EVENTS = "onOstWalletSdkUIEvents";
+
+    static final String UUID_KEY = "uuid";
+    static final String FUNCTION_NAME_KEY = "functionName";
+    static final String PARAMS_KEY = "params";
+    static final String INTERACT_NAME_KEY = "interactName";
+    static final String INTERACT_UUID_KEY = "interactuuid";
+
+    private static volatile boolean useJsonStringPayload = false;
+    private static volatile boolean batchingEnabled = false;
+    private static volatile OstRNSdkEventDispatcher dispatcher = null;
+    // Guarded by OstRNSdkEventEmitter.class.
+    private static String pressurePolicy = OstRNSdkEventDispatcher.POLICY_NONE;
+    private static int maxInformationalDepth = 0;
+
+    public static void setUseJsonStringPayload(boolean useJsonString) {
+        // Events queued before the switch reach JS first. Events emitted meanwhile on another thread may still
+        // be queued in either form; the dispatcher never batches the two together.
+        flushPendingEvents();
+        useJsonStringPayload = useJsonString;
+    }
+
+    /*
+     * windowMs of 0 flushes once per frame.
+     */
+    public static synchronized void setBatchingConfig(boolean enabled, long windowMs, int maxBatchSize) {
+        if (enabled) {
+            if (null == dispatcher) {
+                dispatcher = new OstRNSdkEventDispatcher();
+                dispatcher.setPressurePolicy(pressurePolicy, maxInformationalDepth);
+            }
+            dispatcher.setWindowMs(windowMs);
+            dispatcher.setMaxBatchSize(maxBatchSize);
+        } else {
+            flushPendingEvents();
+        }
+        batchingEnabled = enabled;
+    }
+
+    /*
+     * What happens to informational events (requestAcknowledged, pinValidated, ...) piling up while batching:
+     * "none" queues them all, "drop" drops new ones beyond maxInformationalDepth and "merge" replaces
+     * the queued event of the same workflow and function instead, if any. maxInformationalDepth of 0 is the default.
+     */
+    public static synchronized void setPressurePolicy(String policy, int maxDepth) {
+        pressurePolicy = policy;
+        maxInformationalDepth = maxDepth;
+        if (null != dispatcher) {
+            dispatcher.setPressurePolicy(policy, maxDepth);
+        }
+    }
+
+    /*
+     * Queued events per lane: {interactive, informational, terminal}; 0 while batching has not been enabled.
+     */
+    public static Map<String, Integer> getQueueDepths() {
+        OstRNSdkEventDispatcher currentDispatcher = dispatcher;
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (OstRNSdkEventDispatcher.Lane lane : OstRNSdkEventDispatcher.Lane.values()) {
+            depths.put(lane.label, null == currentDispatcher ? 0 : currentDispatcher.getDepth(lane));
+        }
+        return depths;
+    }
+
+    public static boolean isBatchingEnabled() {
+        return batchingEnabled;
+    }
+
+    public static void flushPendingEvents() {
+        OstRNSdkEventDispatcher currentDispatcher = dispatcher;
+        if (null != currentDispatcher) {
+            currentDispatcher.flush();
+        }
+    }
+
+    public static boolean isUsingJsonStringPayload() {
+        return useJsonStringPayload;
+    }
+
+    public static void emit(ReactContext reactContext,
+                            String eventName,
+                            String uuid,
+                            String functionName,
+                            @Nullable JSONObject params,
+                            @Nullable String interactName,
+                            @Nullable String interactId) {
+
+        Object payload;
+        if (useJsonStringPayload) {
+            payload = buildJsonEnvelope(uuid, functionName, params, interactName, interactId).toString();
+        } else {
+            payload = buildEnvelope(uuid, functionName, params, interactName, interactId);
+        }
+
+        OstMetrics metrics = OstMetrics.getInstance();
+        if (metrics.isEnabled()) {
+            metrics.increment(OstMetrics.EVENTS_PREFIX + eventName);
+            // Only the string payload has a size at hand; measuring a map would serialize every event.
+            if (payload instanceof String) {
+                metrics.recordBytes(OstMetrics.PAYLOAD_BYTES_PREFIX + functionName, ((String) payload).length());
+            }
+        }
+
+        OstRNSdkEventDispatcher currentDispatcher = dispatcher;
+        if (batchingEnabled && null != currentDispatcher) {
+            currentDispatcher.enqueue(reactContext, eventName, getLane(functionName, interactName),
+                    uuid, functionName, payload);
+            return;
+        }
+
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(eventName, payload);
+        OstMetrics.getInstance().increment(OstMetrics.EMITS_PREFIX + eventName);
+    }
+
+    static OstRNSdkEventDispatcher.Lane getLane(String functionName, @Nullable String interactName) {
+        if (!TextUtils.isEmpty(interactName)) {
+            return OstRNSdkEventDispatcher.Lane.INTERACTIVE;
+        }
+        if ("requestAcknowledged".equals(functionName) || "pinValidated".equals(functionName)
+                || "batchProgress".equals(functionName)) {
+            return OstRNSdkEventDispatcher.Lane.INFORMATIONAL;
+        }
+        // flowComplete, flowInterrupt, queued (JS needs it to show the queue position) and events added later,
+        // which are never dropped.
+        return OstRNSdkEventDispatcher.Lane.TERMINAL;
+    }
+
+    static WritableMap buildEnvelope(String uuid,
+                                     String functionName,
+                                     @Nullable JSONObject params,
+                                     @Nullable String interactName,
+                                     @Nullable String interactId) {
+        WritableMap envelope = new WritableNativeMap();
+        envelope.putString(UUID_KEY, uuid);
+        envelope.putString(FUNCTION_NAME_KEY, functionName);
+
+        if (null != params) {
+            try {
+                envelope.putMap(PARAMS_KEY, Utils.convertJsonToMap(params));
+            } catch (Throwable e) {
+                Log.e(LOG_TAG, "Unexpected error while converting params of " + functionName);
+            }
+        }
+
+        if (!TextUtils.isEmpty(interactName)) {
+            envelope.putString(INTERACT_NAME_KEY, interactName);
+        }
+
+        if (!TextUtils.isEmpty(interactId)) {
+            envelope.putString(INTERACT_UUID_KEY, interactId);
+        }
+        return envelope;
+    }
+
+    static JSONObject buildJsonEnvelope(String uuid,
+                                        String functionName,
+                                        @Nullable JSONObject params,
+                                        @Nullable String interactName,
+                                        @Nullable String interactId) {
+        JSONObject obj = new JSONObject();
+
+        try {
+            obj.put(UUID_KEY, uuid);
+            obj.put(FUNCTION_NAME_KEY, functionName);
+
+            if (null != params) {
+                obj.put(PARAMS_KEY, params);
+            }
+
+            if (!TextUtils.isEmpty(interactName)) {
+                obj.put(INTERACT_NAME_KEY, interactName);
+            }
+
+            if (!TextUtils.isEmpty(interactId)) {
+                obj.put(INTERACT_UUID_KEY, interactId);
+            }
+
+        } catch (Throwable error) {
+            Log.e(LOG_TAG, "Unexpected error in buildJsonEnvelope");
+        }
+        return obj;
+    }
+}
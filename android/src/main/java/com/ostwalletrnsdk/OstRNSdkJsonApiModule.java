@@ -15,6 +15,9 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.module.annotations.ReactModule;
 import com.ost.walletsdk.network.OstJsonApi;
 import com.ost.walletsdk.network.OstJsonApiCallback;
 import com.ost.walletsdk.workflows.errors.OstError;
@@ -24,13 +27,73 @@ import org.json.JSONObject;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+@ReactModule(name = OstRNSdkJsonApiModule.NAME)
 public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
 
+    public static final String NAME = "OstJsonApi";
+
+    private static final String CACHE_INFO_KEY = "cache_info";
+    private static final String CURSOR_INFO_KEY = "cursor_info";
+
     private final ReactApplicationContext reactContext;
+    private final OstJsonApiResponseCache responseCache = OstJsonApiResponseCache.getInstance();
+    private final OstJsonApiRequestCoalescer coalescer = new OstJsonApiRequestCoalescer();
+    private final ConcurrentHashMap<String, OstTransactionsCursor> transactionsCursors = new ConcurrentHashMap<>();
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_BALANCE = new OstJsonApiRequestCoalescer.ApiCall("getBalance") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getBalance(userId, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_BALANCE_WITH_PRICE_POINTS = new OstJsonApiRequestCoalescer.ApiCall("getBalanceWithPricePoints") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getBalanceWithPricePoints(userId, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_PRICE_POINTS = new OstJsonApiRequestCoalescer.ApiCall("getPricePoints") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getPricePoints(userId, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_TRANSACTIONS = new OstJsonApiRequestCoalescer.ApiCall("getTransactions") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getTransactions(userId, payload, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_PENDING_RECOVERY = new OstJsonApiRequestCoalescer.ApiCall("getPendingRecovery") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getPendingRecovery(userId, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_DEVICE_LIST = new OstJsonApiRequestCoalescer.ApiCall("getDeviceList") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getDeviceList(userId, payload, callback);
+        }
+    };
+
+    private static final OstJsonApiRequestCoalescer.ApiCall GET_CURRENT_DEVICE = new OstJsonApiRequestCoalescer.ApiCall("getCurrentDevice") {
+        @Override
+        void execute(String userId, @Nullable Map<String, Object> payload, OstJsonApiCallback callback) {
+            OstJsonApi.getCurrentDevice(userId, callback);
+        }
+    };
 
     public OstRNSdkJsonApiModule(ReactApplicationContext reactContext) {
         super(reactContext);
@@ -39,7 +102,15 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
 
     @Override
     public String getName() {
-        return "OstJsonApi";
+        return NAME;
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        for (OstTransactionsCursor cursor : transactionsCursors.values()) {
+            cursor.close();
+        }
+        transactionsCursors.clear();
     }
 
     @ReactMethod
@@ -49,7 +120,7 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             Callback errorCallback
     ) {
         try {
-            OstJsonApi.getBalance(userId, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            getCachedEntity(OstJsonApiResponseCache.BALANCE, userId, GET_BALANCE, successCallback, errorCallback);
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gbfui_1"));
             return;
@@ -63,7 +134,8 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             Callback errorCallback
     ) {
         try {
-            OstJsonApi.getBalanceWithPricePoints(userId, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            getCachedEntity(OstJsonApiResponseCache.BALANCE_WITH_PRICE_POINTS, userId, GET_BALANCE_WITH_PRICE_POINTS,
+                    successCallback, errorCallback);
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gbwppui_1"));
             return;
@@ -77,7 +149,7 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             Callback errorCallback
     ) {
         try {
-            OstJsonApi.getPricePoints(userId, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            getCachedEntity(OstJsonApiResponseCache.PRICE_POINTS, userId, GET_PRICE_POINTS, successCallback, errorCallback);
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gppui_1"));
             return;
@@ -94,15 +166,89 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
         try {
             Map<String,Object> requestPayload = new HashMap<>();
             if (null != requestMap) {
-                requestPayload = requestMap.toHashMap();
+                requestPayload = Utils.convertMapToHashMap(requestMap);
             }
-            OstJsonApi.getTransactions(userId, requestPayload, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            coalescer.execute(GET_TRANSACTIONS, userId, requestPayload, new OstJsonApiCallbackImpl(successCallback, errorCallback));
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gtui_1"));
             return;
         }
     }
 
+    /**
+     * Opens a paging cursor over getTransactions. Pages following the current one are
+     * fetched in the background, up to prefetchDepth pages ahead.
+     * successCallback receives the cursor id.
+     */
+    @ReactMethod
+    public void openTransactionsCursor(
+            String userId,
+            ReadableMap requestMap,
+            int prefetchDepth,
+            Callback successCallback,
+            Callback errorCallback
+    ) {
+        try {
+            expireIdleCursors();
+            Map<String,Object> requestPayload = new HashMap<>();
+            if (null != requestMap) {
+                requestPayload = Utils.convertMapToHashMap(requestMap);
+            }
+            String cursorId = UUID.randomUUID().toString();
+            OstTransactionsCursor cursor = new OstTransactionsCursor(cursorId, userId, requestPayload,
+                    prefetchDepth, coalescer, GET_TRANSACTIONS);
+            transactionsCursors.put(cursorId, cursor);
+            cursor.open();
+            successCallback.invoke(cursorId);
+        } catch (Throwable e) {
+            errorCallback.invoke(Utils.getError(e, "rn_orsjam_otc_1"));
+            return;
+        }
+    }
+
+    /**
+     * Delivers the next page of the cursor. cursor_info.has_more is false on the last page,
+     * after which the cursor is closed.
+     */
+    @ReactMethod
+    public void nextTransactionsPage(
+            String cursorId,
+            Callback successCallback,
+            Callback errorCallback
+    ) {
+        try {
+            expireIdleCursors();
+            OstTransactionsCursor cursor = null == cursorId ? null : transactionsCursors.get(cursorId);
+            if (null == cursor) {
+                throw new IllegalStateException("Transactions cursor not found: " + cursorId);
+            }
+            cursor.next(new CursorPageCallback(successCallback, errorCallback, cursor, transactionsCursors));
+        } catch (Throwable e) {
+            errorCallback.invoke(Utils.getError(e, "rn_orsjam_ntp_1"));
+            return;
+        }
+    }
+
+    @ReactMethod
+    public void closeTransactionsCursor(String cursorId) {
+        OstTransactionsCursor cursor = null == cursorId ? null : transactionsCursors.remove(cursorId);
+        if (null != cursor) {
+            cursor.close();
+        }
+    }
+
+    /*
+     * Checked whenever JS opens or reads a cursor, which is when cursors are created or kept alive.
+     */
+    private void expireIdleCursors() {
+        long now = System.nanoTime();
+        for (OstTransactionsCursor cursor : transactionsCursors.values()) {
+            if (cursor.isIdle(now) && transactionsCursors.remove(cursor.getId(), cursor)) {
+                cursor.close();
+            }
+        }
+    }
+
     @ReactMethod
     public void getPendingRecoveryForUserId(
             String userId,
@@ -110,7 +256,7 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             Callback errorCallback
     ) {
         try {
-            OstJsonApi.getPendingRecovery(userId, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            coalescer.execute(GET_PENDING_RECOVERY, userId, null, new OstJsonApiCallbackImpl(successCallback, errorCallback));
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gprui_1"));
             return;
@@ -128,9 +274,9 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
 
             Map<String,Object> requestPayload = new HashMap<>();
             if (null != requestMap) {
-                requestPayload = requestMap.toHashMap();
+                requestPayload = Utils.convertMapToHashMap(requestMap);
             }
-            OstJsonApi.getDeviceList(userId, requestPayload, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            coalescer.execute(GET_DEVICE_LIST, userId, requestPayload, new OstJsonApiCallbackImpl(successCallback, errorCallback));
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gdlui_1"));
             return;
@@ -144,13 +290,102 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             Callback errorCallback
     ) {
         try {
-            OstJsonApi.getCurrentDevice(userId, new OstJsonApiCallbackImpl(successCallback, errorCallback));
+            coalescer.execute(GET_CURRENT_DEVICE, userId, null, new OstJsonApiCallbackImpl(successCallback, errorCallback));
         } catch (Throwable e) {
             errorCallback.invoke(Utils.getError(e, "rn_orsjam_gcdui_1"));
             return;
         }
     }
 
+    /**
+     * Drops cached responses. null endpoint or userId matches all.
+     */
+    @ReactMethod
+    public void invalidateResponseCache(
+            @Nullable String endpoint,
+            @Nullable String userId
+    ) {
+        responseCache.invalidate(endpoint, userId);
+    }
+
+    /**
+     * ttlInMs of 0 disables caching for the endpoint.
+     */
+    @ReactMethod
+    public void setResponseCachePolicy(
+            String endpoint,
+            double ttlInMs,
+            double maxStaleInMs
+    ) {
+        responseCache.setPolicy(endpoint, (long) ttlInMs, (long) maxStaleInMs);
+    }
+
+    @ReactMethod
+    public void getRequestCoalescingStats(Callback callback) {
+        WritableMap stats = new WritableNativeMap();
+        stats.putDouble("issued_requests", coalescer.getIssuedCount());
+        stats.putDouble("coalesced_requests", coalescer.getCoalescedCount());
+        stats.putInt("in_flight_requests", coalescer.getInFlightCount());
+        callback.invoke(stats);
+    }
+
+    /*
+     * Serves a cached response when one is available. Stale responses are served as well,
+     * and refreshed in the background (stale-while-revalidate).
+     */
+    private void getCachedEntity(
+            String endpoint,
+            String userId,
+            OstJsonApiRequestCoalescer.ApiCall apiCall,
+            Callback successCallback,
+            Callback errorCallback
+    ) throws JSONException {
+        long generation = responseCache.getGeneration();
+        OstJsonApiResponseCache.Entry entry = responseCache.get(endpoint, userId);
+        OstJsonApiResponseCache.State state = responseCache.getState(endpoint, entry);
+
+        if (OstJsonApiResponseCache.State.MISS == state) {
+            coalescer.execute(apiCall, userId, null, generation,
+                    new CachingJsonApiCallback(successCallback, errorCallback, responseCache, endpoint, userId, generation));
+            return;
+        }
+
+        WritableMap response = Utils.convertJsonToMap(entry.data);
+        putCacheInfo(response, OstJsonApiResponseCache.State.FRESH == state, responseCache.getAgeMs(entry), "cache");
+        successCallback.invoke(response);
+
+        if (OstJsonApiResponseCache.State.STALE == state) {
+            revalidate(endpoint, userId, apiCall, generation);
+        }
+    }
+
+    /*
+     * A revalidation joins any identical request already in flight, so a burst of stale
+     * reads results in a single refresh.
+     */
+    private void revalidate(final String endpoint, final String userId, OstJsonApiRequestCoalescer.ApiCall apiCall,
+                            final long generation) {
+        coalescer.execute(apiCall, userId, null, generation, new OstJsonApiCallback() {
+            @Override
+            public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+                if (null != data) {
+                    responseCache.put(endpoint, userId, data, generation);
+                }
+            }
+
+            @Override
+            public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
+            }
+        });
+    }
+
+    private static void putCacheInfo(WritableMap response, boolean isFresh, long ageInMs, String source) {
+        WritableMap cacheInfo = new WritableNativeMap();
+        cacheInfo.putBoolean("is_fresh", isFresh);
+        cacheInfo.putDouble("age_in_ms", ageInMs);
+        cacheInfo.putString("source", source);
+        response.putMap(CACHE_INFO_KEY, cacheInfo);
+    }
 
     private static class OstJsonApiCallbackImpl implements OstJsonApiCallback {
 
@@ -167,12 +402,16 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             try {
                 if (null == data) data = new JSONObject();
 
-                successCallback.invoke(Utils.convertJsonToMap(data));
+                successCallback.invoke(toResponse(data));
             } catch (JSONException e) {
                 errorCallback.invoke(Utils.getError(e, "rn_ojaci_ojas_1"));
             }
         }
 
+        WritableMap toResponse(JSONObject data) throws JSONException {
+            return Utils.convertJsonToMap(data);
+        }
+
         @Override
         public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
             try {
@@ -184,4 +423,63 @@ public class OstRNSdkJsonApiModule extends ReactContextBaseJavaModule {
             }
         }
     }
-}
\ No newline at end of file
+
+    private static class CursorPageCallback extends OstJsonApiCallbackImpl {
+
+        private final OstTransactionsCursor cursor;
+        private final ConcurrentHashMap<String, OstTransactionsCursor> cursors;
+
+        CursorPageCallback(Callback success, Callback error, OstTransactionsCursor cursor,
+                           ConcurrentHashMap<String, OstTransactionsCursor> cursors) {
+            super(success, error);
+            this.cursor = cursor;
+            this.cursors = cursors;
+        }
+
+        @Override
+        WritableMap toResponse(JSONObject data) throws JSONException {
+            WritableMap response = super.toResponse(data);
+            boolean hasMore = cursor.hasMore();
+            if (!hasMore && cursor.isExhausted()) {
+                cursors.remove(cursor.getId(), cursor);
+            }
+            WritableMap cursorInfo = new WritableNativeMap();
+            cursorInfo.putString("cursor_id", cursor.getId());
+            cursorInfo.putBoolean("has_more", hasMore);
+            response.putMap(CURSOR_INFO_KEY, cursorInfo);
+            return response;
+        }
+    }
+
+    private static class CachingJsonApiCallback extends OstJsonApiCallbackImpl {
+
+        private final OstJsonApiResponseCache cache;
+        private final String endpoint;
+        private final String userId;
+        private final long generation;
+
+        CachingJsonApiCallback(Callback success, Callback error, OstJsonApiResponseCache cache,
+                               String endpoint, String userId, long generation) {
+            super(success, error);
+            this.cache = cache;
+            this.endpoint = endpoint;
+            this.userId = userId;
+            this.generation = generation;
+        }
+
+        @Override
+        public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+            if (null != data) {
+                cache.put(endpoint, userId, data, generation);
+            }
+            super.onOstJsonApiSuccess(data);
+        }
+
+        @Override
+        WritableMap toResponse(JSONObject data) throws JSONException {
+            WritableMap response = super.toResponse(data);
+            putCacheInfo(response, true, 0, "network");
+            return response;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.graphics.Bitmap;
+
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The part of the OstSdk api used by the bridge.
+ * The modules call the sdk through OstSdkFacadeProvider.get(), so that the sdk can be swapped for
+ * another backend, e.g. com.ostwalletrnsdk.simulator.SimulatedOstSdkFacade.
+ */
+public interface OstSdkFacade {
+
+    OstUser getUser(String userId);
+
+    OstToken getToken(String tokenId);
+
+    OstDevice getCurrentDeviceForUserId(String userId);
+
+    List<OstSession> getActiveSessionsForUserId(String userId, String minimumSpendingLimitInWei);
+
+    Bitmap getAddDeviceQRCode(String userId);
+
+    boolean isBiometricEnabled(String userId);
+
+    void setupDevice(String userId, String tokenId, OstWorkFlowCallback callback);
+
+    void activateUser(UserPassphrase passphrase, long expiresAfterInSecs, String spendingLimit, OstWorkFlowCallback callback);
+
+    void addSession(String userId, String spendingLimit, long expiresAfterInSecs, OstWorkFlowCallback callback);
+
+    void executeTransaction(String userId,
+                            List<String> tokenHolderAddresses,
+                            List<String> amounts,
+                            String ruleName,
+                            Map<String, Object> meta,
+                            Map<String, Object> options,
+                            OstWorkFlowCallback callback);
+
+    void getDeviceMnemonics(String userId, OstWorkFlowCallback callback);
+
+    void authorizeCurrentDeviceWithMnemonics(String userId, byte[] mnemonics, OstWorkFlowCallback callback);
+
+    void performQRAction(String userId, String data, OstWorkFlowCallback callback);
+
+    void resetPin(String userId, UserPassphrase currentPassphrase, UserPassphrase newPassphrase, OstWorkFlowCallback callback);
+
+    void revokeDevice(String userId, String deviceAddress, OstWorkFlowCallback callback);
+
+    void initiateDeviceRecovery(String userId, UserPassphrase passphrase, String deviceAddressToRecover, OstWorkFlowCallback callback);
+
+    void abortDeviceRecovery(String userId, UserPassphrase passphrase, OstWorkFlowCallback callback);
+
+    void updateBiometricPreference(String userId, boolean enable, OstWorkFlowCallback callback);
+
+    void logoutAllSessions(String userId, OstWorkFlowCallback callback);
+}
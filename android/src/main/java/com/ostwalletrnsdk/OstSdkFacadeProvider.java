@@ -0,0 +1,42 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import javax.annotation.Nullable;
+
+/*
+ * Holds the OstSdkFacade used by the bridge. Defaults to the real OstSdk.
+ */
+public class OstSdkFacadeProvider {
+
+    private static final OstSdkFacade DEFAULT_FACADE = new DefaultOstSdkFacade();
+
+    private static volatile OstSdkFacade facade = DEFAULT_FACADE;
+
+    private OstSdkFacadeProvider() {
+    }
+
+    public static OstSdkFacade get() {
+        return facade;
+    }
+
+    /*
+     * null restores the real OstSdk.
+     * Workflows already started keep running on the facade they were started with.
+     */
+    public static void set(@Nullable OstSdkFacade sdkFacade) {
+        facade = null == sdkFacade ? DEFAULT_FACADE : sdkFacade;
+    }
+
+    public static boolean isDefault() {
+        return DEFAULT_FACADE == facade;
+    }
+}
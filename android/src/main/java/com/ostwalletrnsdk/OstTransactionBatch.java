@@ -0,0 +1,453 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+import com.ost.walletsdk.workflows.OstContextEntity;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+import com.ost.walletsdk.workflows.interfaces.OstDeviceRegisteredInterface;
+import com.ost.walletsdk.workflows.interfaces.OstPinAcceptInterface;
+import com.ost.walletsdk.workflows.interfaces.OstVerifyDataInterface;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Runs a list of transfer specs as one workflow.
+ * Every spec is an executeTransaction workflow of its own; at most maxConcurrent of them run at a time
+ * (1 runs them serially, in order). Interactive callbacks of the items are forwarded to the batch
+ * workflow callback, each finished item is reported with a batchProgress event, and the batch
+ * completes with the results of all items.
+ */
+class OstTransactionBatch {
+
+    private static final String LOG_TAG = "OstTransactionBatch";
+
+    static final String ENTITY_TYPE = "transactions_batch";
+    static final int DEFAULT_MAX_CONCURRENT = 1;
+    static final int MAX_CONCURRENT = 5;
+
+    static final String STATUS_ACKNOWLEDGED = "acknowledged";
+    static final String STATUS_SUCCESS = "success";
+    static final String STATUS_FAILED = "failed";
+    static final String STATUS_SKIPPED = "skipped";
+
+    static final class Spec {
+        final List<String> tokenHolderAddresses;
+        final List<String> amounts;
+        final String ruleName;
+        final Map<String, Object> meta;
+        final Map<String, Object> options;
+
+        Spec(List<String> tokenHolderAddresses, List<String> amounts, String ruleName,
+             Map<String, Object> meta, Map<String, Object> options) {
+            this.tokenHolderAddresses = tokenHolderAddresses;
+            this.amounts = amounts;
+            this.ruleName = ruleName;
+            this.meta = meta;
+            this.options = options;
+        }
+    }
+
+    /*
+     * Token holder addresses and amounts of a transfer, validated by parseTransfers.
+     */
+    static final class Transfers {
+        final List<String> tokenHolderAddresses;
+        final List<String> amounts;
+
+        Transfers(List<String> tokenHolderAddresses, List<String> amounts) {
+            this.tokenHolderAddresses = tokenHolderAddresses;
+            this.amounts = amounts;
+        }
+    }
+
+    /*
+     * Thrown while parsing transfers. Carries the field of the offending input, the position of the
+     * spec (executeTransactions) and the position of the address or amount within its arrays; -1 when
+     * not applicable. error_info has the same shape for executeTransaction and executeTransactions:
+     * {field, reason, spec, item}, without spec or item when not applicable.
+     */
+    static final class InvalidSpecException extends Exception {
+        final int spec;
+        final int item;
+        final String field;
+
+        InvalidSpecException(int spec, int item, String field, String message) {
+            super(message);
+            this.spec = spec;
+            this.item = item;
+            this.field = field;
+        }
+
+        JSONObject toErrorInfo() {
+            JSONObject errorInfo = new JSONObject();
+            try {
+                errorInfo.put("field", field);
+                errorInfo.put("reason", getMessage());
+                if (spec >= 0) {
+                    errorInfo.put("spec", spec);
+                }
+                if (item >= 0) {
+                    errorInfo.put("item", item);
+                }
+            } catch (Throwable e) {
+                Log.w(LOG_TAG, "Unexpected error while building error info");
+            }
+            return errorInfo;
+        }
+    }
+
+    private final String userId;
+    private final List<Spec> specs;
+    private final int maxConcurrent;
+    private final boolean stopOnFailure;
+    private final OstWorkFlowCallbackImpl batchCallback;
+    private final OstWorkflowContext batchContext;
+
+    private final JSONObject[] results;
+    private int nextIndex = 0;
+    private int running = 0;
+    private int finished = 0;
+    private int succeeded = 0;
+    private int failed = 0;
+    private boolean isStopped = false;
+
+    OstTransactionBatch(String userId, List<Spec> specs, int maxConcurrent, boolean stopOnFailure,
+                        OstWorkFlowCallbackImpl batchCallback, OstWorkflowContext batchContext) {
+        this.userId = userId;
+        this.specs = specs;
+        this.maxConcurrent = Math.max(1, Math.min(MAX_CONCURRENT, maxConcurrent));
+        this.stopOnFailure = stopOnFailure;
+        this.batchCallback = batchCallback;
+        this.batchContext = batchContext;
+        this.results = new JSONObject[specs.size()];
+    }
+
+    void start() {
+        if (specs.isEmpty()) {
+            complete();
+            return;
+        }
+        launchNext();
+    }
+
+    /*
+     * Validates every spec before anything is submitted, so an invalid spec never leaves the
+     * batch half executed.
+     */
+    static List<Spec> parseSpecs(ReadableArray specs) throws InvalidSpecException {
+        if (null == specs || specs.size() == 0) {
+            throw new InvalidSpecException(-1, -1, "specs", "No transfer specs provided");
+        }
+        List<Spec> parsed = new ArrayList<>(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            if (ReadableType.Map != specs.getType(i)) {
+                throw new InvalidSpecException(i, -1, "spec", "Transfer spec must be an object");
+            }
+            parsed.add(parseSpec(i, specs.getMap(i)));
+        }
+        return parsed;
+    }
+
+    private static Spec parseSpec(int index, ReadableMap spec) throws InvalidSpecException {
+        Transfers transfers;
+        try {
+            transfers = parseTransfers(getArray(spec, "tokenHolderAddresses"), getArray(spec, "amounts"));
+        } catch (InvalidSpecException e) {
+            throw new InvalidSpecException(index, e.item, e.field, e.getMessage());
+        }
+
+        String ruleName = spec.hasKey("ruleName") && ReadableType.String == spec.getType("ruleName")
+                ? spec.getString("ruleName") : null;
+        if (null == ruleName || ruleName.isEmpty()) {
+            throw new InvalidSpecException(index, -1, "ruleName", "Rule name is required");
+        }
+
+        try {
+            Map<String, Object> meta = spec.hasKey("meta") && ReadableType.Map == spec.getType("meta")
+                    ? Utils.convertMapToHashMap(spec.getMap("meta")) : new HashMap<String, Object>();
+            Map<String, Object> options = spec.hasKey("options") && ReadableType.Map == spec.getType("options")
+                    ? Utils.convertMapToHashMap(spec.getMap("options")) : new HashMap<String, Object>();
+            return new Spec(transfers.tokenHolderAddresses, transfers.amounts, ruleName, meta, options);
+        } catch (Throwable e) {
+            throw new InvalidSpecException(index, -1, "meta", "Invalid meta or options");
+        }
+    }
+
+    private static ReadableArray getArray(ReadableMap spec, String field) {
+        return spec.hasKey(field) && ReadableType.Array == spec.getType(field) ? spec.getArray(field) : null;
+    }
+
+    /*
+     * Validates addresses (0x followed by 40 hex digits) and amounts (non-negative integers in ASCII digits) in one pass.
+     * The item of a thrown InvalidSpecException is the position in the arrays, or -1 for the arrays as a whole.
+     */
+    static Transfers parseTransfers(ReadableArray addresses, ReadableArray amounts) throws InvalidSpecException {
+        if (null == addresses) {
+            throw new InvalidSpecException(-1, -1, "tokenHolderAddresses", "tokenHolderAddresses must be an array");
+        }
+        if (null == amounts) {
+            throw new InvalidSpecException(-1, -1, "amounts", "amounts must be an array");
+        }
+        int size = addresses.size();
+        if (0 == size) {
+            throw new InvalidSpecException(-1, -1, "tokenHolderAddresses", "No token holder addresses provided");
+        }
+        if (size != amounts.size()) {
+            throw new InvalidSpecException(-1, Math.min(size, amounts.size()), "amounts",
+                    "Amounts and token holder addresses differ in length");
+        }
+
+        List<String> addressList = new ArrayList<>(size);
+        List<String> amountList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (ReadableType.String != addresses.getType(i)) {
+                throw new InvalidSpecException(-1, i, "tokenHolderAddresses", "Token holder address must be a string");
+            }
+            String address = addresses.getString(i);
+            if (!isAddress(address)) {
+                throw new InvalidSpecException(-1, i, "tokenHolderAddresses", "Invalid token holder address: " + address);
+            }
+            if (ReadableType.String != amounts.getType(i)) {
+                throw new InvalidSpecException(-1, i, "amounts", "Amount must be a string");
+            }
+            String amount = amounts.getString(i);
+            if (!isAmount(amount)) {
+                if (null != amount && amount.startsWith("-") && isAmount(amount.substring(1))) {
+                    throw new InvalidSpecException(-1, i, "amounts", "Negative amount: " + amount);
+                }
+                throw new InvalidSpecException(-1, i, "amounts", "Invalid amount: " + amount);
+            }
+            addressList.add(address);
+            amountList.add(amount);
+        }
+        return new Transfers(addressList, amountList);
+    }
+
+    /*
+     * ASCII digits only: the amount is handed to the sdk as it is, so neither a sign nor
+     * non-ASCII digits (which BigInteger would accept) may pass.
+     */
+    private static boolean isAmount(String amount) {
+        if (null == amount || amount.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < amount.length(); i++) {
+            char c = amount.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAddress(String address) {
+        if (null == address || address.length() != 42 || '0' != address.charAt(0) || 'x' != address.charAt(1)) {
+            return false;
+        }
+        for (int i = 2; i < 42; i++) {
+            char c = address.charAt(i);
+            // Character.digit would also accept non-ASCII digits, e.g. fullwidth ones.
+            boolean isHexDigit = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            if (!isHexDigit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void launchNext() {
+        while (true) {
+            final int index;
+            synchronized (this) {
+                if (isStopped || batchCallback.isFinished() || running >= maxConcurrent || nextIndex >= specs.size()) {
+                    return;
+                }
+                index = nextIndex++;
+                running++;
+            }
+            Spec spec = specs.get(index);
+            try {
+                OstSdkFacadeProvider.get().executeTransaction(userId, spec.tokenHolderAddresses, spec.amounts, spec.ruleName,
+                        spec.meta, spec.options, new ItemCallback(index));
+            } catch (Throwable e) {
+                Log.e(LOG_TAG, "Unable to submit transfer " + index, e);
+                onItemFinished(index, STATUS_FAILED, null,
+                        new OstError("rn_otb_ln_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED));
+            }
+        }
+    }
+
+    private void onItemFinished(int index, String status, JSONObject transaction, OstError ostError) {
+        JSONObject result = buildResult(index, status, transaction, ostError);
+        JSONObject progress;
+        boolean isDone;
+        synchronized (this) {
+            if (null != results[index]) {
+                return;
+            }
+            results[index] = result;
+            running--;
+            finished++;
+            if (STATUS_SUCCESS.equals(status)) {
+                succeeded++;
+            } else {
+                failed++;
+                if (stopOnFailure) {
+                    isStopped = true;
+                }
+            }
+            progress = buildProgress(result);
+            isDone = 0 == running && (isStopped || nextIndex >= specs.size());
+        }
+
+        batchCallback.batchProgress(batchContext, progress);
+        if (isDone) {
+            complete();
+        } else {
+            launchNext();
+        }
+    }
+
+    private void onItemAcknowledged(int index, JSONObject transaction) {
+        JSONObject progress;
+        synchronized (this) {
+            progress = buildProgress(buildResult(index, STATUS_ACKNOWLEDGED, transaction, null));
+        }
+        batchCallback.batchProgress(batchContext, progress);
+    }
+
+    private void complete() {
+        JSONObject entity = new JSONObject();
+        try {
+            JSONArray resultsArray = new JSONArray();
+            int skipped = 0;
+            synchronized (this) {
+                for (int i = 0; i < results.length; i++) {
+                    JSONObject result = results[i];
+                    if (null == result) {
+                        result = buildResult(i, STATUS_SKIPPED, null, null);
+                        skipped++;
+                    }
+                    resultsArray.put(result);
+                }
+                entity.put("total", specs.size());
+                entity.put("succeeded", succeeded);
+                entity.put("failed", failed);
+                entity.put("skipped", skipped);
+            }
+            entity.put("results", resultsArray);
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unexpected error while building batch results");
+        }
+        batchCallback.batchComplete(batchContext, ENTITY_TYPE, entity);
+    }
+
+    private static JSONObject buildResult(int index, String status, JSONObject transaction, OstError ostError) {
+        JSONObject result = new JSONObject();
+        try {
+            result.put("index", index);
+            result.put("status", status);
+            if (null != transaction) {
+                result.put("transaction", transaction);
+            }
+            if (null != ostError) {
+                result.put("ostError", ostError.toJSONObject());
+            }
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error while building item result");
+        }
+        return result;
+    }
+
+    // Must be called holding the batch lock.
+    private JSONObject buildProgress(JSONObject result) {
+        JSONObject progress = new JSONObject();
+        try {
+            progress.put("result", result);
+            progress.put("total", specs.size());
+            progress.put("completed", finished);
+            progress.put("succeeded", succeeded);
+            progress.put("failed", failed);
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error while building batch progress");
+        }
+        return progress;
+    }
+
+    private JSONObject getTransaction(OstContextEntity ostContextEntity) {
+        JSONObject contextEntity = batchCallback.convert(ostContextEntity);
+        Object entity = contextEntity.opt("entity");
+        return entity instanceof JSONObject ? (JSONObject) entity : contextEntity;
+    }
+
+    private class ItemCallback implements OstWorkFlowCallback {
+
+        private final int index;
+
+        ItemCallback(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void registerDevice(JSONObject apiParams, OstDeviceRegisteredInterface ostDeviceRegisteredInterface) {
+            batchCallback.registerDevice(apiParams, ostDeviceRegisteredInterface);
+        }
+
+        @Override
+        public void getPin(OstWorkflowContext ostWorkflowContext, String userId, OstPinAcceptInterface ostPinAcceptInterface) {
+            batchCallback.getPin(ostWorkflowContext, userId, ostPinAcceptInterface);
+        }
+
+        @Override
+        public void invalidPin(OstWorkflowContext ostWorkflowContext, String userId, OstPinAcceptInterface ostPinAcceptInterface) {
+            batchCallback.invalidPin(ostWorkflowContext, userId, ostPinAcceptInterface);
+        }
+
+        @Override
+        public void pinValidated(OstWorkflowContext ostWorkflowContext, String userId) {
+            batchCallback.pinValidated(ostWorkflowContext, userId);
+        }
+
+        @Override
+        public void verifyData(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity, OstVerifyDataInterface ostVerifyDataInterface) {
+            batchCallback.verifyData(ostWorkflowContext, ostContextEntity, ostVerifyDataInterface);
+        }
+
+        @Override
+        public void requestAcknowledged(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity) {
+            onItemAcknowledged(index, getTransaction(ostContextEntity));
+        }
+
+        @Override
+        public void flowComplete(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity) {
+            onItemFinished(index, STATUS_SUCCESS, getTransaction(ostContextEntity), null);
+        }
+
+        @Override
+        public void flowInterrupt(OstWorkflowContext ostWorkflowContext, OstError ostError) {
+            onItemFinished(index, STATUS_FAILED, null, ostError);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.ost.walletsdk.network.OstJsonApiCallback;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/*
+ * Pages through getTransactions using meta.next_page_payload.
+ * Up to prefetchDepth pages are fetched ahead of the reader, so a page is usually
+ * already buffered when JS asks for it.
+ * A cursor JS has not read from for IDLE_TIMEOUT_MS is expired by OstRNSdkJsonApiModule, so that cursors
+ * JS forgot to close do not keep their buffered pages.
+ */
+class OstTransactionsCursor {
+
+    static final int DEFAULT_PREFETCH_DEPTH = 1;
+    static final int MAX_PREFETCH_DEPTH = 5;
+    static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final String META_KEY = "meta";
+    private static final String NEXT_PAGE_PAYLOAD_KEY = "next_page_payload";
+
+    private final String id;
+    private final String userId;
+    private final int prefetchDepth;
+    private final OstJsonApiRequestCoalescer coalescer;
+    private final OstJsonApiRequestCoalescer.ApiCall apiCall;
+
+    private final ArrayDeque<JSONObject> pages = new ArrayDeque<>();
+    private final ArrayDeque<OstJsonApiCallback> readers = new ArrayDeque<>();
+    private Map<String, Object> nextPayload;
+    private OstError pendingError = null;
+    private boolean isFetching = false;
+    private boolean isClosed = false;
+    private volatile long lastReadNanos = System.nanoTime();
+
+    OstTransactionsCursor(String id, String userId, @Nullable Map<String, Object> payload, int prefetchDepth,
+                          OstJsonApiRequestCoalescer coalescer, OstJsonApiRequestCoalescer.ApiCall apiCall) {
+        this.id = id;
+        this.userId = userId;
+        this.nextPayload = null == payload ? new HashMap<String, Object>() : payload;
+        this.prefetchDepth = Math.max(0, Math.min(MAX_PREFETCH_DEPTH, prefetchDepth));
+        this.coalescer = coalescer;
+        this.apiCall = apiCall;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    /*
+     * Starts fetching the first page(s) before JS asks for them.
+     */
+    void open() {
+        fetchIfNeeded();
+    }
+
+    /*
+     * Delivers the next page. Once the last page has been delivered, the reader receives
+     * an empty response and isExhausted() returns true.
+     */
+    void next(OstJsonApiCallback reader) {
+        lastReadNanos = System.nanoTime();
+        JSONObject page = null;
+        OstError error = null;
+        boolean isEnd = false;
+        synchronized (this) {
+            if (isClosed) {
+                error = new OstError("rn_otc_n_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED);
+            } else if (!pages.isEmpty()) {
+                page = pages.poll();
+            } else if (null != pendingError) {
+                error = pendingError;
+                pendingError = null;
+            } else if (null == nextPayload && !isFetching) {
+                isEnd = true;
+            } else {
+                readers.add(reader);
+            }
+        }
+
+        if (null != page) {
+            reader.onOstJsonApiSuccess(page);
+        } else if (null != error) {
+            reader.onOstJsonApiError(error, null);
+        } else if (isEnd) {
+            reader.onOstJsonApiSuccess(new JSONObject());
+        }
+        fetchIfNeeded();
+    }
+
+    boolean isIdle(long nowNanos) {
+        return nowNanos - lastReadNanos > TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS);
+    }
+
+    synchronized boolean isExhausted() {
+        return pages.isEmpty() && null == nextPayload && !isFetching;
+    }
+
+    synchronized boolean hasMore() {
+        return !pages.isEmpty() || null != nextPayload;
+    }
+
+    /*
+     * Stops prefetching and fails readers still waiting for a page.
+     */
+    void close() {
+        List<OstJsonApiCallback> waiting;
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            pages.clear();
+            nextPayload = null;
+            waiting = new ArrayList<>(readers);
+            readers.clear();
+        }
+        for (OstJsonApiCallback reader : waiting) {
+            reader.onOstJsonApiError(new OstError("rn_otc_c_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED), null);
+        }
+    }
+
+    private void fetchIfNeeded() {
+        final Map<String, Object> payload;
+        synchronized (this) {
+            if (isClosed || isFetching || null == nextPayload || null != pendingError) {
+                return;
+            }
+            if (readers.isEmpty() && pages.size() >= prefetchDepth) {
+                return;
+            }
+            isFetching = true;
+            payload = nextPayload;
+        }
+
+        coalescer.execute(apiCall, userId, payload, new OstJsonApiCallback() {
+            @Override
+            public void onOstJsonApiSuccess(@Nullable JSONObject data) {
+                onPage(null == data ? new JSONObject() : data);
+            }
+
+            @Override
+            public void onOstJsonApiError(@Nonnull OstError err, @Nullable JSONObject data) {
+                onError(err);
+            }
+        });
+    }
+
+    private void onPage(JSONObject page) {
+        OstJsonApiCallback reader;
+        synchronized (this) {
+            isFetching = false;
+            if (isClosed) {
+                return;
+            }
+            nextPayload = getNextPagePayload(page);
+            reader = readers.poll();
+            if (null == reader) {
+                pages.add(page);
+            }
+        }
+        if (null != reader) {
+            reader.onOstJsonApiSuccess(page);
+        }
+        fetchIfNeeded();
+    }
+
+    private void onError(OstError err) {
+        List<OstJsonApiCallback> waiting;
+        synchronized (this) {
+            isFetching = false;
+            if (isClosed) {
+                return;
+            }
+            waiting = new ArrayList<>(readers);
+            readers.clear();
+            if (waiting.isEmpty()) {
+                // Prefetch failed; report it on the next read, which retries afterwards.
+                pendingError = err;
+            }
+        }
+        for (OstJsonApiCallback reader : waiting) {
+            reader.onOstJsonApiError(err, null);
+        }
+    }
+
+    /*
+     * An empty or missing next_page_payload marks the last page.
+     */
+    @Nullable
+    private static Map<String, Object> getNextPagePayload(JSONObject page) {
+        JSONObject meta = page.optJSONObject(META_KEY);
+        JSONObject nextPagePayload = null == meta ? null : meta.optJSONObject(NEXT_PAGE_PAYLOAD_KEY);
+        if (null == nextPagePayload || nextPagePayload.length() == 0) {
+            return null;
+        }
+        try {
+            return toMap(nextPagePayload);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, Object> toMap(JSONObject jsonObject) throws JSONException {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> iterator = jsonObject.keys();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            map.put(key, toPayloadValue(jsonObject.get(key)));
+        }
+        return map;
+    }
+
+    private static Object toPayloadValue(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return toMap((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray jsonArray = (JSONArray) value;
+            List<Object> list = new ArrayList<>();
+            for (int i = 0; i < jsonArray.length(); i++) {
+                list.add(toPayloadValue(jsonArray.get(i)));
+            }
+            return list;
+        }
+        if (JSONObject.NULL.equals(value)) {
+            return null;
+        }
+        return value;
+    }
+}
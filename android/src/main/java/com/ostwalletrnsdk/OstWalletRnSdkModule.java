@@ -20,22 +20,22 @@ import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
-import com.ost.walletsdk.OstSdk;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.module.annotations.ReactModule;
 import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
-import com.ost.walletsdk.models.entities.OstDevice;
-import com.ost.walletsdk.models.entities.OstSession;
-import com.ost.walletsdk.models.entities.OstToken;
-import com.ost.walletsdk.models.entities.OstUser;
-import com.ost.walletsdk.ui.OstWalletUI;
 import com.ost.walletsdk.utils.CommonUtils;
 import com.ost.walletsdk.workflows.OstWorkflowContext;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors;
+import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
+import com.ostwalletrnsdk.ui.OstUICallbackImpl;
 
 import jnr.a64asm.Util;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
@@ -43,11 +43,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+@ReactModule(name = OstWalletRnSdkModule.NAME)
 public class OstWalletRnSdkModule extends ReactContextBaseJavaModule {
 
+  public static final String NAME = "OstWalletSdk";
+
   private static final String TAG = "OstWalletRnSdkModule";
 
   private final ReactApplicationContext reactContext;
+  private OstQRCodeFileCache qrCodeFileCache;
 
   public OstWalletRnSdkModule(ReactApplicationContext reactContext) {
     super(reactContext);
@@ -56,33 +60,35 @@ public class OstWalletRnSdkModule extends ReactContextBaseJavaModule {
 
   @Override
   public String getName() {
-    return "OstWalletSdk";
+    return NAME;
   }
 
   // region - Methods
+  /**
+   * Initializes the sdk off the native-modules thread; see OstInitPipeline.
+   * The callback is invoked once the sdk is initialized, with the error if it could not be.
+   */
   @ReactMethod
   public void initialize(
     String BASE_URL,
     ReadableMap rmConfig,
     Callback callback
   ) {
-    JSONObject config = null;
-    if ( null != rmConfig ) {
-      try {
-        config = Utils.convertMapToJson( rmConfig );
-      } catch (JSONException e) {
-        Log.e(TAG, "Unable to parse config");
-        e.printStackTrace();
-      }
-    }
+    OstInitPipeline.getInstance().start(getReactApplicationContext(), BASE_URL, rmConfig, null, callback);
+  }
 
-    try{
-      OstWalletUI.initialize(getReactApplicationContext(), BASE_URL, config);
-    } catch(Throwable e){
-      callback.invoke( Utils.getError( e , "rn_ownsm_i_1")  );
-      return;
-    }
-    callback.invoke();
+  /**
+   * Same as initialize, and then loads the entities of options.userId and options.tokenId so that the first
+   * getters are served from memory. Stages are reported on onOstWalletSdkInitEvents.
+   */
+  @ReactMethod
+  public void initializeWithWarmUp(
+    String BASE_URL,
+    ReadableMap rmConfig,
+    ReadableMap options,
+    Callback callback
+  ) {
+    OstInitPipeline.getInstance().start(getReactApplicationContext(), BASE_URL, rmConfig, options, callback);
   }
 
   @ReactMethod
@@ -90,17 +96,22 @@ public class OstWalletRnSdkModule extends ReactContextBaseJavaModule {
           String userId,
           Callback callback
   ) {
-    try{
-      OstUser ostUser = OstSdk.getUser(userId);
-      if (null == ostUser) {
-        callback.invoke();
-      } else {
-        callback.invoke(Utils.convertJsonToMap(ostUser.getData()));
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try{
+          WritableMap user = OstEntityReader.readUser(userId);
+          if (null == user) {
+            callback.invoke();
+          } else {
+            callback.invoke(user);
+          }
+        } catch(Throwable e){
+          callback.invoke( Utils.getError( e , "rn_ownsm_gu_1")  );
+          return;
+        }
       }
-    } catch(Throwable e){
-      callback.invoke( Utils.getError( e , "rn_ownsm_gu_1")  );
-      return;
-    }
+    });
   }
 
   @ReactMethod
@@ -108,119 +119,474 @@ public class OstWalletRnSdkModule extends ReactContextBaseJavaModule {
           String tokenId,
           Callback callback
   ) {
-    try{
-      OstToken ostToken = OstSdk.getToken(tokenId);
-      if (null == ostToken) {
-        callback.invoke();
-      } else {
-        callback.invoke(Utils.convertJsonToMap(ostToken.getData()));
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try{
+          WritableMap token = OstEntityReader.readToken(tokenId);
+          if (null == token) {
+            callback.invoke();
+          } else {
+            callback.invoke(token);
+          }
+        } catch(Throwable e){
+          callback.invoke( Utils.getError( e , "rn_ownsm_gt_1")  );
+          return;
+        }
       }
-    } catch(Throwable e){
-      callback.invoke( Utils.getError( e , "rn_ownsm_gt_1")  );
-      return;
-    }
+    });
   }
 
   @ReactMethod
   public void getCurrentDeviceForUserId(@NonNull String userId, @NonNull Callback callback) {
-    try{
-      OstDevice ostDevice = OstSdk.getCurrentDeviceForUserId(userId);
-      if (null == ostDevice) {
-        callback.invoke();
-      } else {
-        callback.invoke(Utils.convertJsonToMap(ostDevice.getData()));
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try{
+          WritableMap device = OstEntityReader.readCurrentDevice(userId);
+          if (null == device) {
+            callback.invoke();
+          } else {
+            callback.invoke(device);
+          }
+        } catch(Throwable e){
+          callback.invoke( Utils.getError( e , "rn_ownsm_gcdfuid_1")  );
+          return;
+        }
       }
-    } catch(Throwable e){
-      callback.invoke( Utils.getError( e , "rn_ownsm_gcdfuid_1")  );
-      return;
-    }
+    });
   }
 
   @ReactMethod
   public void getActiveSessionsForUserId(@NonNull String userId, @Nullable String minimumSpendingLimitInWei, @NonNull Callback callback) {
-    try{
-      List<OstSession> activeSessions = OstSdk.getActiveSessionsForUserId(userId, minimumSpendingLimitInWei);
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try{
+          // Invoke callback
+          callback.invoke(OstEntityReader.readActiveSessions(userId, minimumSpendingLimitInWei));
+        } catch(Throwable e){
+          callback.invoke( Utils.getError( e , "rn_gasfuid_gt_1")  );
+          return;
+        }
+      }
+    });
+  }
 
-      // Convert to JSON Array.
-      JSONArray jsonArray = new JSONArray();
-      for (OstSession session : activeSessions) {
-        jsonArray.put( session.getData() );
+  /**
+   * Runs several reads in one bridge call.
+   * reads: [{key, type, userId | tokenId, minimumSpendingLimitInWei}] where type is one of
+   * user, token, currentDevice, activeSessions and isBiometricEnabled.
+   * The callback receives a map of key (index when absent) to {data} or {error}.
+   */
+  @ReactMethod
+  public void batchGet(ReadableArray reads, Callback callback) {
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        WritableMap results;
+        try {
+          results = OstEntityReader.batchRead(reads);
+        } catch (Throwable e) {
+          callback.invoke( null, Utils.getError( e , "rn_ownsm_bg_1" ) );
+          return;
+        }
+        callback.invoke( results );
       }
+    });
+  }
 
-      // Invoke callback
-      callback.invoke(Utils.convertJsonToArray( jsonArray ));
-    } catch(Throwable e){
-      callback.invoke( Utils.getError( e , "rn_gasfuid_gt_1")  );
-      return;
+  @ReactMethod
+  public void getAddDeviceQRCode(String userId ,Callback successCallback ,  Callback errorCallback ){
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Bitmap bitmap = OstSdkFacadeProvider.get().getAddDeviceQRCode( userId );
+          String encoded;
+          try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, byteArrayOutputStream);
+            byte[] byteArray = byteArrayOutputStream .toByteArray();
+            encoded = Base64.encodeToString(byteArray, Base64.DEFAULT);
+          } finally {
+            bitmap.recycle();
+          }
+          successCallback.invoke( encoded );
+        }catch ( Throwable e ){
+          errorCallback.invoke( Utils.getError( e , "rn_ownsm_gadqrc_1" )  );
+        }
+      }
+    });
+  }
+
+  /**
+   * Writes the add-device QR code into the cache directory and returns its file uri and dimensions.
+   * The file is reused while the current device of the user does not change.
+   * options: size (in pixels, rendered size when absent), format (png, jpeg or webp).
+   */
+  @ReactMethod
+  public void getAddDeviceQRCodeFile(String userId, ReadableMap options, Callback successCallback, Callback errorCallback ){
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          int size = 0;
+          String format = OstQRCodeFileCache.FORMAT_PNG;
+          if (null != options) {
+            if (options.hasKey("size") && ReadableType.Number == options.getType("size")) {
+              size = options.getInt("size");
+            }
+            if (options.hasKey("format") && ReadableType.String == options.getType("format")) {
+              format = options.getString("format");
+            }
+          }
+          OstQRCodeFileCache.QRCodeFile qrCodeFile = getQRCodeFileCache().getAddDeviceQRCode(userId, size, format);
+          WritableMap result = new WritableNativeMap();
+          result.putString("uri", qrCodeFile.getUri());
+          result.putInt("width", qrCodeFile.width);
+          result.putInt("height", qrCodeFile.height);
+          result.putString("format", qrCodeFile.format);
+          result.putBoolean("is_cached", qrCodeFile.isCached);
+          successCallback.invoke( result );
+        }catch ( Throwable e ){
+          errorCallback.invoke( Utils.getError( e , "rn_ownsm_gadqrcf_1" )  );
+        }
+      }
+    });
+  }
+
+  private synchronized OstQRCodeFileCache getQRCodeFileCache() {
+    if (null == qrCodeFileCache) {
+      qrCodeFileCache = new OstQRCodeFileCache(this.reactContext.getApplicationContext());
     }
+    return qrCodeFileCache;
   }
 
   @ReactMethod
-  public void getAddDeviceQRCode(String userId ,Callback successCallback ,  Callback errorCallback ){
+  public void isBiometricEnabled(@NonNull String userId, @NonNull Callback callback) {
+    OstExecutors.getInstance().execute(OstExecutors.Lane.READ, new Runnable() {
+      @Override
+      public void run() {
+        if ( null == userId ) {
+          callback.invoke(false);
+          return;
+        }
+        boolean isEnabled;
+        try {
+          isEnabled = OstSdkFacadeProvider.get().isBiometricEnabled(userId);
+        } catch (Throwable e) {
+          // The callback only takes the preference; an unreadable one is reported as disabled.
+          Log.e(TAG, "Unable to read biometric preference", e);
+          isEnabled = false;
+        }
+        callback.invoke( isEnabled );
+      }
+    });
+  }
+
+  // endregion
+
+  // region - Synchronous getters
+  // Served from OstEntitySnapshot, which is invalidated whenever a workflow completes.
+  // They return null when the entity is not found or cannot be read, and while the sdk is being initialized,
+  // since they cannot wait for it like the READ lane does.
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getUserSync(String userId) {
+    if ( OstExecutors.getInstance().isHoldingReads() ) {
+      return null;
+    }
+    try {
+      JSONObject user = OstEntitySnapshot.getInstance().getUser(userId);
+      return null == user ? null : OstEntityConverter.convertUser(user);
+    } catch (Throwable e) {
+      Log.e(TAG, "Unable to read user", e);
+      return null;
+    }
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getTokenSync(String tokenId) {
+    if ( OstExecutors.getInstance().isHoldingReads() ) {
+      return null;
+    }
     try {
-      Bitmap bitmap = OstSdk.getAddDeviceQRCode( userId );
-      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-      bitmap.compress(Bitmap.CompressFormat.PNG, 100, byteArrayOutputStream);
-      byte[] byteArray = byteArrayOutputStream .toByteArray();
-      String encoded = Base64.encodeToString(byteArray, Base64.DEFAULT);
-      successCallback.invoke( encoded );
-    }catch ( Throwable e ){
-      errorCallback.invoke( Utils.getError( e , "rn_ownsm_gadqrc_1" )  );
+      JSONObject token = OstEntitySnapshot.getInstance().getToken(tokenId);
+      return null == token ? null : OstEntityConverter.convertToken(token);
+    } catch (Throwable e) {
+      Log.e(TAG, "Unable to read token", e);
+      return null;
     }
   }
 
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public WritableMap getCurrentDeviceForUserIdSync(String userId) {
+    if ( OstExecutors.getInstance().isHoldingReads() ) {
+      return null;
+    }
+    try {
+      JSONObject device = OstEntitySnapshot.getInstance().getCurrentDevice(userId);
+      return null == device ? null : OstEntityConverter.convertDevice(device);
+    } catch (Throwable e) {
+      Log.e(TAG, "Unable to read current device", e);
+      return null;
+    }
+  }
+
+  @ReactMethod(isBlockingSynchronousMethod = true)
+  public boolean isBiometricEnabledSync(String userId) {
+    if ( OstExecutors.getInstance().isHoldingReads() ) {
+      return false;
+    }
+    try {
+      return OstEntitySnapshot.getInstance().isBiometricEnabled(userId);
+    } catch (Throwable e) {
+      Log.e(TAG, "Unable to read biometric preference", e);
+      return false;
+    }
+  }
+  // endregion
+
+  // region - Event configuration
   @ReactMethod
-  public void isBiometricEnabled(@NonNull String userId, @NonNull Callback callback) {
-    if ( null == userId ) {
-      callback.invoke(false);
+  public void setUseJsonStringEventPayload(boolean useJsonString) {
+    OstRNSdkEventEmitter.setUseJsonStringPayload( useJsonString );
+  }
+
+  @ReactMethod
+  public void setEventBatching(boolean enabled, int windowMs, int maxBatchSize) {
+    OstRNSdkEventEmitter.setBatchingConfig( enabled, windowMs, maxBatchSize );
+  }
+
+  @ReactMethod
+  public void setEventPressurePolicy(String policy, int maxInformationalDepth) {
+    OstRNSdkEventEmitter.setPressurePolicy( policy, maxInformationalDepth );
+  }
+  // endregion
+
+  // region - Workflow tracing
+  @ReactMethod
+  public void setWorkflowTracingEnabled(boolean enabled) {
+    OstWorkflowTracer.getInstance().setEnabled( enabled );
+  }
+
+  /**
+   * Callback receives the trace summary of the workflow with its events, or nothing if the workflow is unknown.
+   */
+  @ReactMethod
+  public void getWorkflowTrace(String uuid, Callback callback) {
+    WritableMap summary = OstWorkflowTracer.getInstance().getSummary( uuid, true );
+    if ( null == summary ) {
+      callback.invoke();
+    } else {
+      callback.invoke( summary );
     }
-    callback.invoke( OstSdk.isBiometricEnabled(userId) );
   }
 
+  @ReactMethod
+  public void getWorkflowTraceSummaries(Callback callback) {
+    callback.invoke( OstWorkflowTracer.getInstance().getFinishedSummaries() );
+  }
+
+  @ReactMethod
+  public void clearWorkflowTraces() {
+    OstWorkflowTracer.getInstance().clear();
+  }
   // endregion
 
+  // region - Executors
+  /**
+   * config: enabled (false runs everything on the native-modules thread), readPoolSize.
+   */
+  @ReactMethod
+  public void setExecutorConfig(ReadableMap config) {
+    if ( null == config ) {
+      return;
+    }
+    if ( config.hasKey("enabled") && ReadableType.Boolean == config.getType("enabled") ) {
+      OstExecutors.getInstance().setEnabled( config.getBoolean("enabled") );
+    }
+    if ( config.hasKey("readPoolSize") && ReadableType.Number == config.getType("readPoolSize") ) {
+      OstExecutors.getInstance().setReadPoolSize( config.getInt("readPoolSize") );
+    }
+  }
+
+  @ReactMethod
+  public void getExecutorStats(Callback callback) {
+    OstExecutors executors = OstExecutors.getInstance();
+    WritableMap stats = new WritableNativeMap();
+    stats.putBoolean("enabled", executors.isEnabled());
+    stats.putInt("held_reads", executors.getHeldReadCount());
+    for (OstExecutors.Lane lane : OstExecutors.Lane.values()) {
+      WritableMap laneStats = new WritableNativeMap();
+      laneStats.putInt("pool_size", executors.getPoolSize(lane));
+      laneStats.putInt("queue_depth", executors.getQueueDepth(lane));
+      laneStats.putInt("peak_queue_depth", executors.getPeakQueueDepth(lane));
+      laneStats.putInt("active", executors.getActiveCount(lane));
+      laneStats.putDouble("completed", executors.getCompletedCount(lane));
+      stats.putMap(lane.name().toLowerCase(), laneStats);
+    }
+    callback.invoke( stats );
+  }
+  // endregion
+
+  // region - Workflow watchdog
+  @ReactMethod
+  public void setWorkflowDeadline(@Nullable String workflowType, double deadlineInSecs) {
+    long deadlineMs = (long) (deadlineInSecs * 1000);
+    if ( null == workflowType ) {
+      OstWorkflowWatchdog.getInstance().setDefaultDeadline( deadlineMs );
+    } else {
+      OstWorkflowWatchdog.getInstance().setDeadline( workflowType, deadlineMs );
+    }
+  }
+
+  @ReactMethod
+  public void getWorkflowWatchdogStats(Callback callback) {
+    WritableMap stats = new WritableNativeMap();
+    stats.putInt("live_workflows", OstWorkFlowCallbackImpl.getLiveCount());
+    stats.putInt("live_ui_workflows", OstUICallbackImpl.getLiveCount());
+    stats.putInt("live_interacts", BaseSdkInteract.registry.size());
+    stats.putInt("watched_workflows", OstWorkflowWatchdog.getInstance().getWatchedCount());
+    stats.putDouble("evicted_workflows", OstWorkflowWatchdog.getInstance().getEvictionCount());
+    callback.invoke( stats );
+  }
+  // endregion
+
+  // region - Workflow scheduler
+  /**
+   * config: enabled, maxConcurrent (workflows running at once), serializePerUser (one workflow per user at a time).
+   */
+  @ReactMethod
+  public void setWorkflowSchedulerConfig(ReadableMap config) {
+    if ( null == config ) {
+      return;
+    }
+    OstWorkflowScheduler scheduler = OstWorkflowScheduler.getInstance();
+    if ( config.hasKey("maxConcurrent") && ReadableType.Number == config.getType("maxConcurrent") ) {
+      scheduler.setMaxConcurrent( config.getInt("maxConcurrent") );
+    }
+    if ( config.hasKey("serializePerUser") && ReadableType.Boolean == config.getType("serializePerUser") ) {
+      scheduler.setSerializePerUser( config.getBoolean("serializePerUser") );
+    }
+    if ( config.hasKey("enabled") && ReadableType.Boolean == config.getType("enabled") ) {
+      scheduler.setEnabled( config.getBoolean("enabled") );
+    }
+  }
+
+  /**
+   * Cancels a workflow that is still queued; it is interrupted with WORKFLOW_CANCELLED.
+   * callback receives false when the workflow is not queued (already running, finished or unknown).
+   */
+  @ReactMethod
+  public void cancelQueuedWorkflow(String uuid, Callback callback) {
+    boolean isCancelled = null != uuid && OstWorkflowScheduler.getInstance().cancel(uuid);
+    if ( null != callback ) {
+      callback.invoke( isCancelled );
+    }
+  }
+
+  @ReactMethod
+  public void getWorkflowSchedulerStats(Callback callback) {
+    OstWorkflowScheduler scheduler = OstWorkflowScheduler.getInstance();
+    WritableMap stats = new WritableNativeMap();
+    stats.putBoolean("enabled", scheduler.isEnabled());
+    stats.putInt("max_concurrent", scheduler.getMaxConcurrent());
+    stats.putBoolean("serialize_per_user", scheduler.isSerializingPerUser());
+    stats.putInt("running", scheduler.getRunningCount());
+    stats.putInt("queued", scheduler.getQueuedCount());
+    stats.putDouble("total_queued", scheduler.getTotalQueuedCount());
+    callback.invoke( stats );
+  }
+  // endregion
+
+  private interface WorkflowStart {
+    void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback);
+  }
+
+  /*
+   * Creates the workflow callback on the WORKFLOW lane and hands the workflow to OstWorkflowScheduler,
+   * which starts it right away or once the workflows it conflicts with have finished.
+   */
+  private void startWorkflow(final String userId, final String uuid,
+                             final OstWorkflowContext.WORKFLOW_TYPE workflowType, final WorkflowStart workflowStart) {
+    // Before the post, so that cancelQueuedWorkflow finds the workflow however soon JS calls it.
+    OstWorkflowScheduler.getInstance().announce(uuid);
+    OstExecutors.getInstance().execute(OstExecutors.Lane.WORKFLOW, new Runnable() {
+      @Override
+      public void run() {
+        final OstWorkflowContext context = new OstWorkflowContext(workflowType);
+        final OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, userId, reactContext, context );
+        OstWorkflowScheduler.getInstance().submit(uuid, userId, workFlowCallback, context, new Runnable() {
+          @Override
+          public void run() {
+            try {
+              workflowStart.start(context, workFlowCallback);
+            } catch (Throwable e) {
+              // Interrupts the workflow rather than leaving JS waiting for a callback that never comes.
+              Log.e(TAG, "Unable to start workflow " + workflowType, e);
+              workFlowCallback.errorEncountered("rn_ownsm_sw_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED);
+            }
+          }
+        });
+      }
+    });
+  }
+
   @ReactMethod
   public void setupDevice(
     String userId ,
     String tokenId ,
     String uuid) {
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    OstSdk.setupDevice(userId, tokenId, workFlowCallback  );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstSdkFacadeProvider.get().setupDevice(userId, tokenId, workFlowCallback  );
+      }
+    });
   }
 
 
   @ReactMethod
   public void activateUser(String userId, String pin, String passphrasePrefix,
                            String expiresAfterInSecs, String spendingLimit, String uuid ){
-      UserPassphrase userPassPhrase = null;
-      OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.ACTIVATE_USER);
-      OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-      try{
-         userPassPhrase = new UserPassphrase(userId, pin, passphrasePrefix) ;
-      } catch(OstError e){
-        workFlowCallback.flowInterrupt( context , e );
-        return;
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.ACTIVATE_USER, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, final OstWorkFlowCallbackImpl workFlowCallback) {
+        final long expiresAfterInSecsLong;
+        try {
+          expiresAfterInSecsLong =  Long.valueOf(expiresAfterInSecs);
+        } catch (Throwable e) {
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_au_1" , OstErrors.ErrorCode.INVALID_SESSION_EXPIRY_TIME));
+          return;
+        }
+        OstPassphraseDeriver.deriveForWorkflow(userId, passphrasePrefix, new String[]{pin}, context, workFlowCallback,
+            new OstPassphraseDeriver.Listener() {
+          @Override
+          public void onPassphrases(UserPassphrase[] passphrases) {
+            OstSdkFacadeProvider.get().activateUser(passphrases[0], expiresAfterInSecsLong, spendingLimit, workFlowCallback );
+          }
+        });
       }
-
-      long expiresAfterInSecsLong =  Long.valueOf(expiresAfterInSecs);
-      OstSdk.activateUser(userPassPhrase, expiresAfterInSecsLong, spendingLimit, workFlowCallback );
+    });
   }
 
   @ReactMethod
   public void addSession(String userId, String expiresAfterInSecs, String spendingLimit, String uuid ){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-
-    long expiresAfterInSecsLong = 0;
-    try {
-       expiresAfterInSecsLong =  Long.valueOf(expiresAfterInSecs);
-    }catch (Throwable e ){
-      workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_as_1" , OstErrors.ErrorCode.INVALID_SESSION_EXPIRY_TIME));
-      return;
-    }
-
-    OstSdk.addSession(userId, spendingLimit , expiresAfterInSecsLong, workFlowCallback );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        long expiresAfterInSecsLong = 0;
+        try {
+           expiresAfterInSecsLong =  Long.valueOf(expiresAfterInSecs);
+        }catch (Throwable e ){
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_as_1" , OstErrors.ErrorCode.INVALID_SESSION_EXPIRY_TIME));
+          return;
+        }
+
+        OstSdkFacadeProvider.get().addSession(userId, spendingLimit , expiresAfterInSecsLong, workFlowCallback );
+      }
+    });
   }
 
   @ReactMethod
@@ -231,137 +597,230 @@ public class OstWalletRnSdkModule extends ReactContextBaseJavaModule {
                                  ReadableMap meta,
                                  ReadableMap options,
                                  String uuid ){
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        List<String> listAddresses = null ;
+        List<String> listAmounts = null ;
+        Map<String, Object> metaMap =null;
+        try {
+          JSONArray jsonArrayAddresses = new JSONArray(tokenHolderAddresses);
+          listAddresses = new CommonUtils().jsonArrayToList(jsonArrayAddresses);
+        }catch (Throwable e ) {
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_et_1" , OstErrors.ErrorCode.INVALID_JSON_ARRAY));
+          return;
+        }
+
+        try{
+          JSONArray jsonArrayAmounts = new JSONArray( amounts ) ;
+          listAmounts = new CommonUtils().jsonArrayToList(jsonArrayAmounts);
+        } catch(Throwable e){
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_et_2" , OstErrors.ErrorCode.INVALID_JSON_ARRAY));
+          return;
+        }
+
+        HashMap<String, Object> optionsMap = null;
+        try {
+          metaMap = null == meta ? new HashMap<String, Object>() : Utils.convertMapToHashMap( meta );
+          optionsMap = null == options ? new HashMap<String, Object>() : Utils.convertMapToHashMap( options );
+        } catch (Throwable e) {
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_et_3" , OstErrors.ErrorCode.INVALID_JSON_STRING));
+          return;
+        }
+        OstSdkFacadeProvider.get().executeTransaction(userId, listAddresses, listAmounts, ruleName, metaMap, optionsMap ,workFlowCallback);
+      }
+    });
+  }
 
-    List<String> listAddresses = null ;
-    List<String> listAmounts = null ;
-    Map<String, Object> metaMap =null;
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    try {
-      JSONArray jsonArrayAddresses = new JSONArray(tokenHolderAddresses);
-      listAddresses = new CommonUtils().jsonArrayToList(jsonArrayAddresses);
-    }catch (Throwable e ) {
-      workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_et_1" , OstErrors.ErrorCode.INVALID_JSON_ARRAY));
-      return;
-    }
-
-    try{
-      JSONArray jsonArrayAmounts = new JSONArray( amounts ) ;
-      listAmounts = new CommonUtils().jsonArrayToList(jsonArrayAmounts);
-    } catch(Throwable e){
-      workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_et_2" , OstErrors.ErrorCode.INVALID_JSON_ARRAY));
-      return;
-    }
-
-    if ( null == meta ) {
-      metaMap = new HashMap<>();
-    } else {
-      metaMap = meta.toHashMap();
-    }
+  /**
+   * executeTransaction with the token holder addresses and amounts as arrays rather than JSON strings.
+   * Addresses and amounts are validated in one pass; an invalid one interrupts the workflow with
+   * error info {index, field, reason}.
+   */
+  @ReactMethod
+  public void executeTransactionWithArrays(String userId,
+                                           ReadableArray tokenHolderAddresses,
+                                           ReadableArray amounts,
+                                           String ruleName,
+                                           ReadableMap meta,
+                                           ReadableMap options,
+                                           String uuid ){
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstTransactionBatch.Transfers transfers;
+        try {
+          transfers = OstTransactionBatch.parseTransfers(tokenHolderAddresses, amounts);
+        } catch (OstTransactionBatch.InvalidSpecException e) {
+          Log.e(TAG, "Invalid transfer", e);
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_etwa_1" , OstErrors.ErrorCode.INVALID_JSON_ARRAY), e.toErrorInfo());
+          return;
+        }
+
+        Map<String, Object> metaMap;
+        HashMap<String, Object> optionsMap;
+        try {
+          metaMap = null == meta ? new HashMap<String, Object>() : Utils.convertMapToHashMap( meta );
+          optionsMap = null == options ? new HashMap<String, Object>() : Utils.convertMapToHashMap( options );
+        } catch (Throwable e) {
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_etwa_2" , OstErrors.ErrorCode.INVALID_JSON_STRING));
+          return;
+        }
+        OstSdkFacadeProvider.get().executeTransaction(userId, transfers.tokenHolderAddresses, transfers.amounts,
+            ruleName, metaMap, optionsMap, workFlowCallback);
+      }
+    });
+  }
 
-    HashMap<String, Object> optionsMap = null;
-    if ( null != options) {
-      optionsMap = options.toHashMap();
-    } else {
-      optionsMap = new HashMap<>();
-    }
-    OstSdk.executeTransaction(userId, listAddresses, listAmounts, ruleName, metaMap, optionsMap ,workFlowCallback);
+  /**
+   * Executes a list of transfer specs ({tokenHolderAddresses, amounts, ruleName, meta, options}) as one workflow.
+   * All specs are validated before the first one is submitted.
+   * options: maxConcurrent (1 runs the specs serially), stopOnFailure.
+   */
+  @ReactMethod
+  public void executeTransactions(String userId,
+                                  ReadableArray specs,
+                                  ReadableMap options,
+                                  String uuid ){
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        List<OstTransactionBatch.Spec> transferSpecs;
+        try {
+          transferSpecs = OstTransactionBatch.parseSpecs(specs);
+        } catch (OstTransactionBatch.InvalidSpecException e) {
+          Log.e(TAG, "Invalid transfer spec", e);
+          workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_ets_1" , OstErrors.ErrorCode.INVALID_JSON_ARRAY), e.toErrorInfo());
+          return;
+        }
+
+        int maxConcurrent = OstTransactionBatch.DEFAULT_MAX_CONCURRENT;
+        boolean stopOnFailure = false;
+        if (null != options) {
+          if (options.hasKey("maxConcurrent") && ReadableType.Number == options.getType("maxConcurrent")) {
+            maxConcurrent = options.getInt("maxConcurrent");
+          }
+          if (options.hasKey("stopOnFailure") && ReadableType.Boolean == options.getType("stopOnFailure")) {
+            stopOnFailure = options.getBoolean("stopOnFailure");
+          }
+        }
+        new OstTransactionBatch(userId, transferSpecs, maxConcurrent, stopOnFailure, workFlowCallback, context).start();
+      }
+    });
   }
 
   @ReactMethod
   public void getDeviceMnemonics(String userId, String uuid ){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.GET_DEVICE_MNEMONICS);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    OstSdk.getDeviceMnemonics(userId,  workFlowCallback);
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.GET_DEVICE_MNEMONICS, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstSdkFacadeProvider.get().getDeviceMnemonics(userId,  workFlowCallback);
+      }
+    });
   }
 
   @ReactMethod
     public void authorizeCurrentDeviceWithMnemonics(String userId , String mnemonics , String uuid  ){
-      byte[] byteArrayMnemonics = mnemonics.getBytes();
-      OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.AUTHORIZE_DEVICE_WITH_MNEMONICS);
-      OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-      OstSdk.authorizeCurrentDeviceWithMnemonics(userId , byteArrayMnemonics ,workFlowCallback ) ;
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.AUTHORIZE_DEVICE_WITH_MNEMONICS, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        byte[] byteArrayMnemonics = mnemonics.getBytes();
+        OstSdkFacadeProvider.get().authorizeCurrentDeviceWithMnemonics(userId , byteArrayMnemonics ,workFlowCallback ) ;
+      }
+    });
   }
 
   @ReactMethod
   public void performQRAction( String userId ,  String data , String uuid  ){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.PERFORM_QR_ACTION);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    try {
-      OstSdk.performQRAction( userId , data ,workFlowCallback) ;
-    }catch (Throwable e ){
-        workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_pqra_1" , OstErrors.ErrorCode.INVALID_JSON_STRING));
-    }
-
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.PERFORM_QR_ACTION, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        try {
+          OstSdkFacadeProvider.get().performQRAction( userId , data ,workFlowCallback) ;
+        }catch (Throwable e ){
+            workFlowCallback.flowInterrupt(context , new OstError( "rn_ownsm_pqra_1" , OstErrors.ErrorCode.INVALID_JSON_STRING));
+        }
+      }
+    });
   }
 
   @ReactMethod
   public void resetPin( String userId, String appSalt, String currentPin, String newPin , String uuid ){
-    UserPassphrase currentPassphrase = null ;
-    UserPassphrase newPassphrase = null ;
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.RESET_PIN);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    try{
-      currentPassphrase = new UserPassphrase(userId, currentPin, appSalt) ;
-      newPassphrase = new UserPassphrase(userId, newPin, appSalt) ;
-    }catch ( OstError e ){
-      workFlowCallback.flowInterrupt( context , e);
-      return;
-    }
-    OstSdk.resetPin(userId, currentPassphrase, newPassphrase, workFlowCallback );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.RESET_PIN, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, final OstWorkFlowCallbackImpl workFlowCallback) {
+        OstPassphraseDeriver.deriveForWorkflow(userId, appSalt, new String[]{currentPin, newPin}, context, workFlowCallback,
+            new OstPassphraseDeriver.Listener() {
+          @Override
+          public void onPassphrases(UserPassphrase[] passphrases) {
+            OstSdkFacadeProvider.get().resetPin(userId, passphrases[0], passphrases[1], workFlowCallback );
+          }
+        });
+      }
+    });
   }
 
   @ReactMethod
   public  void revokeDevice(String userId ,  String deviceAddress , String uuid ){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.REVOKE_DEVICE);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    OstSdk.revokeDevice(userId , deviceAddress , workFlowCallback );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.REVOKE_DEVICE, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstSdkFacadeProvider.get().revokeDevice(userId , deviceAddress , workFlowCallback );
+      }
+    });
   }
 
   @ReactMethod
   public void initiateDeviceRecovery( String userId, String pin , String appSalt , String deviceAddressToRecover,
                                       String uuid  ){
-    UserPassphrase passphrase = null ;
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.INITIATE_DEVICE_RECOVERY);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-
-    try{
-      passphrase = new UserPassphrase(userId, pin, appSalt) ;
-    }catch (OstError e ){
-      workFlowCallback.flowInterrupt( context , e);
-      return;
-    }
-    OstSdk.initiateDeviceRecovery(userId, passphrase, deviceAddressToRecover, workFlowCallback );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.INITIATE_DEVICE_RECOVERY, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, final OstWorkFlowCallbackImpl workFlowCallback) {
+        OstPassphraseDeriver.deriveForWorkflow(userId, appSalt, new String[]{pin}, context, workFlowCallback,
+            new OstPassphraseDeriver.Listener() {
+          @Override
+          public void onPassphrases(UserPassphrase[] passphrases) {
+            OstSdkFacadeProvider.get().initiateDeviceRecovery(userId, passphrases[0], deviceAddressToRecover, workFlowCallback );
+          }
+        });
+      }
+    });
   }
 
   @ReactMethod
   public void abortDeviceRecovery(String userId, String pin , String appSalt , String uuid  ){
-    UserPassphrase passphrase = null ;
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.ABORT_DEVICE_RECOVERY);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    try{
-      passphrase = new UserPassphrase(userId, pin, appSalt) ;
-    }catch (OstError e ){
-      workFlowCallback.flowInterrupt( context ,  e);
-      return;
-    }
-
-      OstSdk.abortDeviceRecovery(userId, passphrase, workFlowCallback );
-
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.ABORT_DEVICE_RECOVERY, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, final OstWorkFlowCallbackImpl workFlowCallback) {
+        OstPassphraseDeriver.deriveForWorkflow(userId, appSalt, new String[]{pin}, context, workFlowCallback,
+            new OstPassphraseDeriver.Listener() {
+          @Override
+          public void onPassphrases(UserPassphrase[] passphrases) {
+            OstSdkFacadeProvider.get().abortDeviceRecovery(userId, passphrases[0], workFlowCallback );
+          }
+        });
+      }
+    });
   }
 
   @ReactMethod
   public void updateBiometricPreference(String userId, boolean enable, String uuid){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.UPDATE_BIOMETRIC_PREFERENCE);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    OstSdk.updateBiometricPreference(userId , enable , workFlowCallback);
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.UPDATE_BIOMETRIC_PREFERENCE, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstSdkFacadeProvider.get().updateBiometricPreference(userId , enable , workFlowCallback);
+      }
+    });
   }
 
   @ReactMethod
   public void logoutAllSessions(String userId , String uuid ){
-    OstWorkflowContext context = new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.LOGOUT_ALL_SESSIONS);
-    OstWorkFlowCallbackImpl workFlowCallback = new OstWorkFlowCallbackImpl( uuid, this.reactContext, context );
-    OstSdk.logoutAllSessions(userId, workFlowCallback );
+    startWorkflow(userId, uuid, OstWorkflowContext.WORKFLOW_TYPE.LOGOUT_ALL_SESSIONS, new WorkflowStart() {
+      @Override
+      public void start(OstWorkflowContext context, OstWorkFlowCallbackImpl workFlowCallback) {
+        OstSdkFacadeProvider.get().logoutAllSessions(userId, workFlowCallback );
+      }
+    });
   }
 
 
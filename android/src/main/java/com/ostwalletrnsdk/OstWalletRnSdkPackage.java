@@ -12,38 +12,149 @@ package com.ostwalletrnsdk;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.facebook.react.ReactPackage;
+import javax.inject.Provider;
+
+import com.facebook.react.LazyReactPackage;
+import com.facebook.react.bridge.ModuleSpec;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
 import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
 import com.ostwalletrnsdk.ui.OstRNSdkUICallbackManager;
 import com.ostwalletrnsdk.ui.OstWalletUiRnSdkModule;
 
-public class OstWalletRnSdkPackage implements ReactPackage {
+/*
+ * Native modules are created on first use from JS rather than with the React context, so that app sessions
+ * that never open the wallet do not load the modules or the OST sdk behind them.
+ * Creation times are recorded in OstModuleInitTimes.
+ */
+public class OstWalletRnSdkPackage extends LazyReactPackage {
+
+    private final boolean isEagerInit;
+
+    public OstWalletRnSdkPackage() {
+        this(false);
+    }
+
+    /*
+     * eagerInit creates every module with the React context, as before lazy creation; e.g. to compare start-up times.
+     */
+    public OstWalletRnSdkPackage(boolean eagerInit) {
+        this.isEagerInit = eagerInit;
+    }
+
+    /*
+     * Runs the bridge on another sdk backend, e.g. SimulatedOstSdkFacade.
+     */
+    public OstWalletRnSdkPackage(OstSdkFacade sdkFacade) {
+        this(false);
+        OstSdkFacadeProvider.set(sdkFacade);
+    }
+
+    private abstract static class TimedProvider implements Provider<NativeModule> {
+        private final String name;
+
+        TimedProvider(String name) {
+            this.name = name;
+        }
+
+        abstract NativeModule create();
+
+        @Override
+        public NativeModule get() {
+            long startNanos = System.nanoTime();
+            NativeModule module = create();
+            OstModuleInitTimes.getInstance().moduleCreated(name, startNanos);
+            return module;
+        }
+    }
 
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-
-        return Arrays.<NativeModule>asList(
-                new OstWalletRnSdkModule(reactContext),
-                new OstRNSdkCallbackManager(reactContext),
-                new OstRNSdkUICallbackManager(reactContext),
-                new OstRNSdkJsonApiModule(reactContext),
-                new OstWalletUiRnSdkModule(reactContext)
+    protected List<ModuleSpec> getNativeModules(final ReactApplicationContext reactContext) {
+        long startNanos = System.nanoTime();
+        List<ModuleSpec> specs = Arrays.asList(
+                ModuleSpec.nativeModuleSpec(OstWalletRnSdkModule.class, new TimedProvider(OstWalletRnSdkModule.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstWalletRnSdkModule(reactContext);
+                    }
+                }),
+                ModuleSpec.nativeModuleSpec(OstRNSdkCallbackManager.class, new TimedProvider(OstRNSdkCallbackManager.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstRNSdkCallbackManager(reactContext);
+                    }
+                }),
+                ModuleSpec.nativeModuleSpec(OstRNSdkUICallbackManager.class, new TimedProvider(OstRNSdkUICallbackManager.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstRNSdkUICallbackManager(reactContext);
+                    }
+                }),
+                ModuleSpec.nativeModuleSpec(OstRNSdkJsonApiModule.class, new TimedProvider(OstRNSdkJsonApiModule.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstRNSdkJsonApiModule(reactContext);
+                    }
+                }),
+                ModuleSpec.nativeModuleSpec(OstWalletUiRnSdkModule.class, new TimedProvider(OstWalletUiRnSdkModule.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstWalletUiRnSdkModule(reactContext);
+                    }
+                }),
+                ModuleSpec.nativeModuleSpec(OstMetricsModule.class, new TimedProvider(OstMetricsModule.NAME) {
+                    @Override
+                    NativeModule create() {
+                        return new OstMetricsModule(reactContext);
+                    }
+                })
         );
+        OstModuleInitTimes.getInstance().contextCreated(startNanos, System.nanoTime() - startNanos, isEagerInit);
+        return specs;
     }
 
-    // Deprecated from RN 0.47
-    public List<Class<? extends JavaScriptModule>> createJSModules() {
-      return Collections.emptyList();
+    /*
+     * Written by hand rather than generated by the @ReactModule annotation processor; the names must match
+     * the @ReactModule names of the modules, or React Native creates the module eagerly.
+     */
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return new ReactModuleInfoProvider() {
+            @Override
+            public Map<String, ReactModuleInfo> getReactModuleInfos() {
+                Map<String, ReactModuleInfo> moduleInfos = new HashMap<>();
+                putModuleInfo(moduleInfos, OstWalletRnSdkModule.NAME, OstWalletRnSdkModule.class);
+                putModuleInfo(moduleInfos, OstRNSdkCallbackManager.NAME, OstRNSdkCallbackManager.class);
+                putModuleInfo(moduleInfos, OstRNSdkUICallbackManager.NAME, OstRNSdkUICallbackManager.class);
+                putModuleInfo(moduleInfos, OstRNSdkJsonApiModule.NAME, OstRNSdkJsonApiModule.class);
+                putModuleInfo(moduleInfos, OstWalletUiRnSdkModule.NAME, OstWalletUiRnSdkModule.class);
+                putModuleInfo(moduleInfos, OstMetricsModule.NAME, OstMetricsModule.class);
+                return moduleInfos;
+            }
+        };
     }
 
-    @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
+    private void putModuleInfo(Map<String, ReactModuleInfo> moduleInfos, String name, Class<? extends NativeModule> type) {
+        moduleInfos.put(name, new ReactModuleInfo(
+                name,
+                type.getName(),
+                false,       // canOverrideExistingModule
+                isEagerInit, // needsEagerInit
+                false,       // hasConstants
+                false,       // isCxxModule
+                false        // isTurboModule
+        ));
+    }
+
+    // Deprecated from RN 0.47
+    public List<Class<? extends JavaScriptModule>> createJSModules() {
       return Collections.emptyList();
     }
 
@@ -10,12 +10,9 @@
 
 package com.ostwalletrnsdk;
 
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContext;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.workflows.OstContextEntity;
@@ -26,36 +23,51 @@ import com.ost.walletsdk.workflows.interfaces.OstDeviceRegisteredInterface;
 import com.ost.walletsdk.workflows.interfaces.OstPinAcceptInterface;
 import com.ost.walletsdk.workflows.interfaces.OstVerifyDataInterface;
 import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
 import com.ostwalletrnsdk.sdkIntracts.OstDeviceRegisteredWrap;
 import com.ostwalletrnsdk.sdkIntracts.OstPinAcceptWrap;
 import com.ostwalletrnsdk.sdkIntracts.OstVerifyDataWrap;
 
 import org.json.JSONObject;
 
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.annotation.Nullable;
-
-public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
+public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback, OstWorkflowWatchdog.Watchable {
 
     private static final String LOG_TAG = "OstWorkFlowCallbackImpl";
-    static private HashMap<String, OstWorkFlowCallbackImpl> map = new HashMap<>();
+    static private ConcurrentHashMap<String, OstWorkFlowCallbackImpl> map = new ConcurrentHashMap<>();
 
     public static OstWorkFlowCallbackImpl getInstance(String uuid) {
         return map.get(uuid);
     }
 
+    public static int getLiveCount() {
+        return map.size();
+    }
+
     String uuid;
+    // Null when the workflow was not started for a user.
+    private final String userId;
+
+    private final AtomicBoolean isFinished = new AtomicBoolean(false);
 
 
     OstWorkflowContext pseudoContext;
     ReactApplicationContext reactContext;
 
     OstWorkFlowCallbackImpl(String uuid, ReactApplicationContext reactContext, OstWorkflowContext workflowContext) {
+        this(uuid, null, reactContext, workflowContext);
+    }
+
+    OstWorkFlowCallbackImpl(String uuid, String userId, ReactApplicationContext reactContext, OstWorkflowContext workflowContext) {
         this.uuid = uuid;
+        this.userId = userId;
         this.reactContext = reactContext;
         this.pseudoContext = workflowContext ;
         map.put(this.uuid, this);
+        OstWorkflowTracer.getInstance().start(this.uuid, getWorkflowTypeName(workflowContext));
     }
 
 
@@ -72,6 +84,7 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
             errorEncountered("rn_owfcb_rd_1", OstErrors.ErrorCode.INVALID_JSON_STRING);
             return;
         }
+        watchInteract();
         invokeCallback("registerDevice", params, "OstDeviceRegisteredInterface", ostDeviceRegisteredWrap.getUUID());
     }
 
@@ -87,6 +100,7 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
             errorEncountered("rn_owfcb_gp_1", OstErrors.ErrorCode.INVALID_JSON_STRING);
             return;
         }
+        watchInteract();
         invokeCallback("getPin", params, "OstPinAcceptInterface", ostPinAcceptWrap.getUUID());
     }
 
@@ -102,6 +116,7 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
             errorEncountered("rn_owfcb_ip_1", OstErrors.ErrorCode.INVALID_JSON_STRING);
             return;
         }
+        watchInteract();
         invokeCallback("invalidPin", params, "OstPinAcceptInterface", ostPinAcceptWrap.getUUID());
     }
 
@@ -120,6 +135,10 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
 
     @Override
     public void flowComplete(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "flowComplete received after workflow finished");
+            return;
+        }
         JSONObject params = new JSONObject();
         try {
             params.put("ostWorkflowContext", convert(ostWorkflowContext));
@@ -127,12 +146,19 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
         } catch (Throwable e) {
             Log.e(LOG_TAG, "Unexpected error in flowComplete");
         }
+        // Invalidated before JS is notified, so synchronous getters called from flowComplete see the new state.
+        OstEntitySnapshot.getInstance().invalidate(this.userId);
+        invalidateBalances();
         invokeCallback("flowComplete", params, null, null);
         cleanUp();
     }
 
     @Override
     public void flowInterrupt(OstWorkflowContext ostWorkflowContext, OstError ostError) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "flowInterrupt received after workflow finished");
+            return;
+        }
         JSONObject params = new JSONObject();
         try {
             params.put("ostWorkflowContext", convert(ostWorkflowContext));
@@ -144,6 +170,97 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
         cleanUp();
     }
 
+    /*
+     * Interrupts the workflow with an ostError carrying error_info, e.g. the index of an invalid input.
+     */
+    void flowInterrupt(OstWorkflowContext ostWorkflowContext, OstError ostError, JSONObject errorInfo) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "flowInterrupt received after workflow finished");
+            return;
+        }
+        JSONObject params = new JSONObject();
+        try {
+            JSONObject errorJson = ostError.toJSONObject();
+            errorJson.put("error_info", errorInfo);
+            params.put("ostWorkflowContext", convert(ostWorkflowContext));
+            params.put("ostError", errorJson);
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error in flowInterrupt");
+        }
+        invokeCallback("flowInterrupt", params, null, null);
+        cleanUp();
+    }
+
+    /*
+     * Progress of one item of a batch workflow.
+     */
+    void batchProgress(OstWorkflowContext ostWorkflowContext, JSONObject progress) {
+        if (isFinished.get()) {
+            return;
+        }
+        JSONObject params = new JSONObject();
+        try {
+            params.put("ostWorkflowContext", convert(ostWorkflowContext));
+            params.put("progress", progress);
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error in batchProgress");
+            return;
+        }
+        invokeCallback("batchProgress", params, null, null);
+    }
+
+    /*
+     * Completes a batch workflow. The context entity carries the per-item results.
+     */
+    void batchComplete(OstWorkflowContext ostWorkflowContext, String entityType, JSONObject entity) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "batchComplete received after workflow finished");
+            return;
+        }
+        JSONObject params = new JSONObject();
+        try {
+            JSONObject contextEntity = new JSONObject();
+            contextEntity.put("entityType", entityType);
+            contextEntity.put("message", "");
+            contextEntity.put("entity", entity);
+            params.put("ostWorkflowContext", convert(ostWorkflowContext));
+            params.put("ostContextEntity", contextEntity);
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unexpected error in batchComplete");
+        }
+        // Invalidated before JS is notified, so synchronous getters called from flowComplete see the new state.
+        OstEntitySnapshot.getInstance().invalidate(this.userId);
+        invalidateBalances();
+        invokeCallback("flowComplete", params, null, null);
+        cleanUp();
+    }
+
+    /*
+     * The workflow is waiting in OstWorkflowScheduler; position is 1 for the next one to start.
+     */
+    void queued(OstWorkflowContext ostWorkflowContext, int position) {
+        if (isFinished.get()) {
+            return;
+        }
+        JSONObject params = new JSONObject();
+        try {
+            JSONObject queue = new JSONObject();
+            queue.put("position", position);
+            queue.put("running", OstWorkflowScheduler.getInstance().getRunningCount());
+            queue.put("max_concurrent", OstWorkflowScheduler.getInstance().getMaxConcurrent());
+            params.put("ostWorkflowContext", convert(ostWorkflowContext));
+            params.put("queue", queue);
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error in queued");
+            return;
+        }
+        invokeCallback("queued", params, null, null);
+    }
+
+    boolean isFinished() {
+        return isFinished.get();
+    }
+
     @Override
     public void requestAcknowledged(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity) {
         JSONObject params = new JSONObject();
@@ -168,54 +285,78 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
             errorEncountered("rn_owfcb_vd_1", OstErrors.ErrorCode.INVALID_JSON_STRING);
             return;
         }
+        watchInteract();
         invokeCallback("verifyData", params, "OstVerifyDataInterface", ostVerifyDataWrap.getUUID());
     }
 
+    /*
+     * A completed transaction changes the balances of the user; JS typically reads them again from flowComplete.
+     */
+    private void invalidateBalances() {
+        if (OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION == pseudoContext.getWorkflow_type()) {
+            OstJsonApiResponseCache.getInstance().invalidateBalances(this.userId);
+        }
+    }
+
     private void cleanUp() {
         map.remove(this.uuid);
+        // Interacts the sdk dropped by interrupting while JS still had to answer them.
+        BaseSdkInteract.registry.removeAllForWorkflow(this.uuid);
+        OstWorkflowWatchdog.getInstance().unwatch(this.uuid);
+        OstWorkflowScheduler.getInstance().finished(this.uuid);
     }
 
-    public void errorEncountered(String internalErrorCode, OstErrors.ErrorCode errorCode) {
-        OstError error = new OstError( internalErrorCode , errorCode );
-        Log.e(LOG_TAG, String.format("Internal error code: %s Error code: %s", error.getInternalErrorCode(), errorCode.toString()));
-        this.flowInterrupt(pseudoContext, error);
+    /*
+     * Armed before an interact is sent to JS, so that an answer never arrives before its deadline is armed.
+     * The registry disarms it once the interact is answered or cleaned up.
+     */
+    private void watchInteract() {
+        BaseSdkInteract.registry.watch(this.uuid, getWorkflowTypeName(pseudoContext), this);
     }
 
-    private void sendEvent(ReactContext reactContext,
-                           String eventName,
-                           @Nullable JSONObject params) {
-        reactContext
-                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(eventName, params.toString());
+    @Override
+    public void onDeadlineExpired(long deadlineMs) {
+        // Takes the interacts the sdk is blocked on; none left means JS has just answered.
+        List<BaseSdkInteract> expired = BaseSdkInteract.registry.takeAllForWorkflow(this.uuid);
+        if (expired.isEmpty()) {
+            return;
+        }
+        Log.e(LOG_TAG, String.format("Workflow %s got no answer from JS within %d ms", this.uuid, deadlineMs));
+        // Interrupted before the sdk is released, so that JS gets the timeout rather than the cancel the sdk reports.
+        this.flowInterrupt(pseudoContext, new OstError("rn_owfcb_ode_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED),
+                OstWorkflowWatchdog.getDeadlineErrorInfo(deadlineMs));
+        for (BaseSdkInteract interact : expired) {
+            interact.cancelFlow();
+        }
     }
 
-    private void invokeCallback(String methodName, JSONObject params, String interactName, String interactId) {
-        JSONObject obj = new JSONObject();
-
+    private static String getWorkflowTypeName(OstWorkflowContext context) {
         try {
-            obj.put("uuid", this.uuid);
-            obj.put("functionName", methodName);
-
-            if (null != params) {
-                obj.put("params", params);
-            }
-
-            if (!TextUtils.isEmpty(interactName)) {
-                obj.put("interactName", interactName);
-            }
+            return context.getWorkflow_type().name();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
 
-            if (!TextUtils.isEmpty(interactId)) {
-                obj.put("interactuuid", interactId);
-            }
+    public void errorEncountered(String internalErrorCode, OstErrors.ErrorCode errorCode) {
+        OstError error = new OstError( internalErrorCode , errorCode );
+        Log.e(LOG_TAG, String.format("Internal error code: %s Error code: %s", error.getInternalErrorCode(), errorCode.toString()));
+        this.flowInterrupt(pseudoContext, error);
+    }
 
-        } catch (Throwable error) {
-            Log.e(LOG_TAG, "Unexpected error in  invokeCallback");
+    private void invokeCallback(String methodName, JSONObject params, String interactName, String interactId) {
+        long emitStartNanos = System.nanoTime();
+        OstRNSdkEventEmitter.emit(this.reactContext, OstRNSdkEventEmitter.SDK_EVENTS,
+                this.uuid, methodName, params, interactName, interactId);
+        long emitNanos = System.nanoTime() - emitStartNanos;
+        if ("flowComplete".equals(methodName) || "flowInterrupt".equals(methodName)) {
+            OstWorkflowTracer.getInstance().end(this.uuid, methodName, emitNanos);
+        } else {
+            OstWorkflowTracer.getInstance().callback(this.uuid, methodName, null != interactId, emitNanos);
         }
-
-        sendEvent(this.reactContext, "onOstWalletSdkEvents", obj);
     }
 
-    private JSONObject convert(OstWorkflowContext context) {
+    JSONObject convert(OstWorkflowContext context) {
         JSONObject obj = new JSONObject();
 
         try {
@@ -228,7 +369,7 @@ public class OstWorkFlowCallbackImpl implements OstWorkFlowCallback {
         return obj;
     }
 
-    private JSONObject convert(OstContextEntity contextEntity) {
+    JSONObject convert(OstContextEntity contextEntity) {
         JSONObject obj = new JSONObject();
 
         if (null == contextEntity) {
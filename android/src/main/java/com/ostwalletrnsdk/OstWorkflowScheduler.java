@@ -0,0 +1,271 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Admission control in front of the workflow starts of OstWalletRnSdkModule.
+ * Workflows of the same user run one at a time, since overlapping workflows of a user contend
+ * inside the sdk (nonces, sessions, the key manager) and fail. At most maxConcurrent workflows run overall.
+ * A workflow that cannot start is queued, in order, and its callback receives `queued` with its position;
+ * it is started on the WORKFLOW lane once a running workflow completes or is interrupted.
+ * Workflows are announced as soon as JS starts them, before their submit runs on the WORKFLOW lane, so that
+ * a cancel arriving in between is remembered and the workflow is interrupted instead of started.
+ * Disabled by default, in which case workflows start immediately.
+ */
+public class OstWorkflowScheduler {
+
+    private static final String LOG_TAG = "OstWorkflowScheduler";
+
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    private static final OstWorkflowScheduler INSTANCE = new OstWorkflowScheduler();
+
+    public static OstWorkflowScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Entry {
+        final String uuid;
+        final String userId;
+        final OstWorkFlowCallbackImpl callback;
+        final OstWorkflowContext context;
+        final Runnable start;
+
+        Entry(String uuid, String userId, OstWorkFlowCallbackImpl callback, OstWorkflowContext context, Runnable start) {
+            this.uuid = uuid;
+            this.userId = userId;
+            this.callback = callback;
+            this.context = context;
+            this.start = start;
+        }
+    }
+
+    // Guarded by this.
+    private final LinkedList<Entry> queue = new LinkedList<>();
+    private final Map<String, String> runningUsers = new HashMap<>();
+    private final Map<String, Entry> running = new HashMap<>();
+    // Announced and not submitted yet, with whether they were cancelled meanwhile.
+    private final Map<String, Boolean> announced = new HashMap<>();
+    private boolean isEnabled = false;
+    private boolean serializePerUser = true;
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private long queuedCount = 0;
+
+    private OstWorkflowScheduler() {
+    }
+
+    public void setEnabled(boolean enabled) {
+        List<Entry> admitted;
+        synchronized (this) {
+            isEnabled = enabled;
+            if (enabled) {
+                return;
+            }
+            // Nothing is held back any more.
+            admitted = new ArrayList<>(queue);
+            queue.clear();
+            running.clear();
+            runningUsers.clear();
+        }
+        startLater(admitted);
+    }
+
+    public synchronized boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public void setMaxConcurrent(int max) {
+        synchronized (this) {
+            maxConcurrent = Math.max(1, max);
+        }
+        startLater(admitNext());
+    }
+
+    public void setSerializePerUser(boolean serialize) {
+        synchronized (this) {
+            serializePerUser = serialize;
+        }
+        startLater(admitNext());
+    }
+
+    /*
+     * Called on the thread JS starts the workflow on, before its submit is posted.
+     */
+    public synchronized void announce(String uuid) {
+        announced.put(uuid, false);
+    }
+
+    /*
+     * Runs start now, on the calling thread, or queues it.
+     * The workflow must call finished(uuid) when it completes or is interrupted.
+     */
+    public void submit(String uuid, String userId, OstWorkFlowCallbackImpl callback, OstWorkflowContext context, Runnable start) {
+        Entry entry = new Entry(uuid, userId, callback, context, start);
+        int position;
+        synchronized (this) {
+            if (Boolean.TRUE.equals(announced.remove(uuid))) {
+                position = -1;
+            } else if (!isEnabled || canStart(entry)) {
+                if (isEnabled) {
+                    markRunning(entry);
+                }
+                position = 0;
+            } else {
+                queue.add(entry);
+                queuedCount++;
+                position = queue.size();
+            }
+        }
+        if (-1 == position) {
+            callback.flowInterrupt(context, new OstError("rn_ows_s_2", OstErrors.ErrorCode.WORKFLOW_CANCELLED));
+        } else if (0 == position) {
+            start(entry, "rn_ows_s_1");
+        } else {
+            callback.queued(context, position);
+        }
+    }
+
+    /*
+     * Called when a workflow completes or is interrupted; starts the workflows it was holding back.
+     * A workflow interrupted while queued (e.g. by cancel) is dropped from the queue.
+     */
+    public void finished(String uuid) {
+        List<Entry> admitted;
+        synchronized (this) {
+            Entry entry = running.remove(uuid);
+            if (null == entry) {
+                removeQueued(uuid);
+                return;
+            }
+            if (null != entry.userId && uuid.equals(runningUsers.get(entry.userId))) {
+                runningUsers.remove(entry.userId);
+            }
+            admitted = admitNext();
+        }
+        startLater(admitted);
+    }
+
+    /*
+     * Interrupts a queued workflow with WORKFLOW_CANCELLED. Returns false if it is not queued.
+     * An announced workflow not submitted yet counts as queued; it is interrupted on submit.
+     */
+    public boolean cancel(String uuid) {
+        synchronized (this) {
+            if (announced.containsKey(uuid)) {
+                announced.put(uuid, true);
+                return true;
+            }
+        }
+        Entry cancelled = removeQueued(uuid);
+        if (null == cancelled) {
+            return false;
+        }
+        cancelled.callback.flowInterrupt(cancelled.context, new OstError("rn_ows_c_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED));
+        return true;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return running.size();
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized boolean isSerializingPerUser() {
+        return serializePerUser;
+    }
+
+    public synchronized long getTotalQueuedCount() {
+        return queuedCount;
+    }
+
+    private boolean canStart(Entry entry) {
+        if (running.size() >= maxConcurrent) {
+            return false;
+        }
+        return !serializePerUser || null == entry.userId || !runningUsers.containsKey(entry.userId);
+    }
+
+    private synchronized Entry removeQueued(String uuid) {
+        Iterator<Entry> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.uuid.equals(uuid)) {
+                iterator.remove();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void markRunning(Entry entry) {
+        running.put(entry.uuid, entry);
+        if (null != entry.userId) {
+            runningUsers.put(entry.userId, entry.uuid);
+        }
+    }
+
+    // Queue order is kept per user; another user's workflow may overtake a blocked one.
+    private synchronized List<Entry> admitNext() {
+        List<Entry> admitted = new ArrayList<>();
+        Iterator<Entry> iterator = queue.iterator();
+        while (iterator.hasNext() && running.size() < maxConcurrent) {
+            Entry entry = iterator.next();
+            if (canStart(entry)) {
+                iterator.remove();
+                markRunning(entry);
+                admitted.add(entry);
+            }
+        }
+        return admitted;
+    }
+
+    private static void startLater(List<Entry> entries) {
+        for (final Entry entry : entries) {
+            OstExecutors.getInstance().execute(OstExecutors.Lane.WORKFLOW, new Runnable() {
+                @Override
+                public void run() {
+                    start(entry, "rn_ows_sl_1");
+                }
+            });
+        }
+    }
+
+    /*
+     * A start that throws interrupts the workflow, whose clean up calls finished(uuid) and frees the slot.
+     */
+    private static void start(Entry entry, String internalErrorCode) {
+        try {
+            entry.start.run();
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unable to start workflow " + entry.uuid, e);
+            entry.callback.errorEncountered(internalErrorCode, OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED);
+        }
+    }
+}
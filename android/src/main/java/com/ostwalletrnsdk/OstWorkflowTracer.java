@@ -0,0 +1,233 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Records the timeline of every workflow, keyed by its uuid: start, each callback sent to JS,
+ * each answer received from JS and the final flowComplete / flowInterrupt.
+ * The duration of a workflow is split into
+ *  js     - time between an interactive callback (registerDevice, getPin, verifyData...) and its answer,
+ *  native - time spent in this module emitting callbacks and processing answers,
+ *  sdk    - the remainder, i.e. time spent in the sdk (api calls, signing, chain acknowledgment).
+ * The last MAX_FINISHED_TRACES finished traces are kept.
+ */
+public class OstWorkflowTracer {
+
+    public static final int MAX_FINISHED_TRACES = 50;
+
+    public static final String START = "start";
+    public static final String CALLBACK = "callback";
+    public static final String ANSWER = "answer";
+    public static final String END = "end";
+
+    private static final OstWorkflowTracer INSTANCE = new OstWorkflowTracer();
+
+    public static OstWorkflowTracer getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Event {
+        final String kind;
+        final String name;
+        final long atNanos;
+
+        Event(String kind, String name, long atNanos) {
+            this.kind = kind;
+            this.name = name;
+            this.atNanos = atNanos;
+        }
+    }
+
+    private static final class Trace {
+        final String uuid;
+        final String workflowType;
+        final long startNanos;
+        final List<Event> events = new ArrayList<>();
+        final ArrayDeque<Long> pendingSince = new ArrayDeque<>();
+        long jsNanos = 0;
+        long nativeNanos = 0;
+        long endNanos = 0;
+
+        Trace(String uuid, String workflowType, long startNanos) {
+            this.uuid = uuid;
+            this.workflowType = workflowType;
+            this.startNanos = startNanos;
+            events.add(new Event(START, workflowType, startNanos));
+        }
+    }
+
+    private final ConcurrentHashMap<String, Trace> activeTraces = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Trace> finishedTraces = new LinkedHashMap<String, Trace>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Trace> eldest) {
+            return size() > MAX_FINISHED_TRACES;
+        }
+    };
+    private volatile boolean isEnabled = true;
+
+    private OstWorkflowTracer() {
+    }
+
+    public void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+        if (!enabled) {
+            activeTraces.clear();
+        }
+    }
+
+    public void start(String uuid, String workflowType) {
+        if (!isEnabled || null == uuid) {
+            return;
+        }
+        activeTraces.put(uuid, new Trace(uuid, workflowType, System.nanoTime()));
+    }
+
+    /*
+     * emitNanos is the time spent handing the callback over to JS.
+     * An interactive callback starts waiting for an answer from JS.
+     */
+    public void callback(String uuid, String name, boolean isInteractive, long emitNanos) {
+        Trace trace = getActive(uuid);
+        if (null == trace) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (trace) {
+            trace.events.add(new Event(CALLBACK, name, now - emitNanos));
+            trace.nativeNanos += emitNanos;
+            if (isInteractive) {
+                trace.pendingSince.add(now);
+            }
+        }
+    }
+
+    /*
+     * receivedAtNanos is when the answer arrived from JS; the time since then was spent processing it.
+     */
+    public void answer(String uuid, String name, long receivedAtNanos) {
+        Trace trace = getActive(uuid);
+        if (null == trace) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (trace) {
+            trace.events.add(new Event(ANSWER, name, receivedAtNanos));
+            Long pendingSince = trace.pendingSince.poll();
+            if (null != pendingSince) {
+                trace.jsNanos += Math.max(0, receivedAtNanos - pendingSince);
+            }
+            trace.nativeNanos += Math.max(0, now - receivedAtNanos);
+        }
+    }
+
+    public void end(String uuid, String name, long emitNanos) {
+        if (null == uuid) {
+            return;
+        }
+        Trace trace = activeTraces.remove(uuid);
+        if (null == trace) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (trace) {
+            trace.events.add(new Event(END, name, now - emitNanos));
+            trace.nativeNanos += emitNanos;
+            trace.endNanos = now;
+        }
+        synchronized (finishedTraces) {
+            finishedTraces.put(uuid, trace);
+        }
+    }
+
+    /*
+     * Summary of the trace, with its events when includeEvents is set. null when the trace is unknown.
+     */
+    public WritableMap getSummary(String uuid, boolean includeEvents) {
+        Trace trace = null == uuid ? null : activeTraces.get(uuid);
+        if (null == trace && null != uuid) {
+            synchronized (finishedTraces) {
+                trace = finishedTraces.get(uuid);
+            }
+        }
+        return null == trace ? null : toSummary(trace, includeEvents);
+    }
+
+    public WritableArray getFinishedSummaries() {
+        List<Trace> traces;
+        synchronized (finishedTraces) {
+            traces = new ArrayList<>(finishedTraces.values());
+        }
+        WritableArray summaries = new WritableNativeArray();
+        for (Trace trace : traces) {
+            summaries.pushMap(toSummary(trace, false));
+        }
+        return summaries;
+    }
+
+    public void clear() {
+        activeTraces.clear();
+        synchronized (finishedTraces) {
+            finishedTraces.clear();
+        }
+    }
+
+    private Trace getActive(String uuid) {
+        return null == uuid ? null : activeTraces.get(uuid);
+    }
+
+    private static WritableMap toSummary(Trace trace, boolean includeEvents) {
+        WritableMap summary = new WritableNativeMap();
+        synchronized (trace) {
+            boolean isFinished = trace.endNanos > 0;
+            long totalNanos = (isFinished ? trace.endNanos : System.nanoTime()) - trace.startNanos;
+            long sdkNanos = Math.max(0, totalNanos - trace.jsNanos - trace.nativeNanos);
+
+            summary.putString("uuid", trace.uuid);
+            summary.putString("workflow_type", trace.workflowType);
+            summary.putBoolean("is_finished", isFinished);
+            summary.putString("result", isFinished ? trace.events.get(trace.events.size() - 1).name : null);
+            summary.putDouble("total_ms", toMs(totalNanos));
+            summary.putDouble("js_ms", toMs(trace.jsNanos));
+            summary.putDouble("native_ms", toMs(trace.nativeNanos));
+            summary.putDouble("sdk_ms", toMs(sdkNanos));
+
+            if (includeEvents) {
+                WritableArray events = new WritableNativeArray();
+                for (Event event : trace.events) {
+                    WritableMap eventMap = new WritableNativeMap();
+                    eventMap.putString("kind", event.kind);
+                    eventMap.putString("name", event.name);
+                    eventMap.putDouble("at_ms", toMs(event.atNanos - trace.startNanos));
+                    events.pushMap(eventMap);
+                }
+                summary.putArray("events", events);
+            }
+        }
+        return summary;
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Evicts workflows whose interact (getPin, verifyData, registerDevice, getPassphrase) JS did not answer
+ * within the deadline of their workflow type. The deadline is armed when an interact is sent to JS and
+ * disarmed once the interact is answered or cleaned up, so time spent queued, running in the sdk or
+ * waiting for finalization never counts. While an interact is pending the sdk is blocked on it, so on
+ * expiry the workflow cancels the interact and interrupts itself, which also releases the callback,
+ * the react context reference and the sdk interface. The interrupt carries getDeadlineErrorInfo as
+ * error_info, so that JS can tell a timeout from a cancel.
+ */
+public class OstWorkflowWatchdog {
+
+    private static final String LOG_TAG = "OstWorkflowWatchdog";
+
+    public static final long DEFAULT_DEADLINE_MS = TimeUnit.MINUTES.toMillis(15);
+
+    public static final String REASON_DEADLINE_EXPIRED = "deadline_expired";
+
+    public interface Watchable {
+        void onDeadlineExpired(long deadlineMs);
+    }
+
+    private static final OstWorkflowWatchdog INSTANCE = new OstWorkflowWatchdog();
+
+    public static OstWorkflowWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ConcurrentHashMap<String, ScheduledFuture<?>> watched = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final AtomicLong evictionCount = new AtomicLong(0);
+    private volatile long defaultDeadlineMs = DEFAULT_DEADLINE_MS;
+
+    private OstWorkflowWatchdog() {
+        scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ost-workflow-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /*
+     * A deadline of 0 or less disables the watchdog for the workflow type.
+     */
+    public void setDeadline(String workflowType, long deadlineMs) {
+        deadlines.put(workflowType, deadlineMs);
+    }
+
+    public void setDefaultDeadline(long deadlineMs) {
+        defaultDeadlineMs = deadlineMs;
+    }
+
+    public long getDeadline(String workflowType) {
+        Long deadlineMs = null == workflowType ? null : deadlines.get(workflowType);
+        return null == deadlineMs ? defaultDeadlineMs : deadlineMs;
+    }
+
+    /*
+     * Arms the deadline of the workflow, replacing the previous one.
+     */
+    public void watch(final String uuid, String workflowType, final Watchable watchable) {
+        final long deadlineMs = getDeadline(workflowType);
+        if (deadlineMs <= 0 || null == uuid) {
+            return;
+        }
+
+        ScheduledFuture<?> future = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (null == watched.remove(uuid)) {
+                    return;
+                }
+                evictionCount.incrementAndGet();
+                Log.w(LOG_TAG, String.format("Workflow %s did not complete within %d ms", uuid, deadlineMs));
+                try {
+                    watchable.onDeadlineExpired(deadlineMs);
+                } catch (Throwable e) {
+                    Log.e(LOG_TAG, "Unexpected error while evicting workflow " + uuid, e);
+                }
+            }
+        }, deadlineMs, TimeUnit.MILLISECONDS);
+
+        ScheduledFuture<?> previous = watched.put(uuid, future);
+        if (null != previous) {
+            previous.cancel(false);
+        }
+    }
+
+    public void unwatch(String uuid) {
+        if (null == uuid) {
+            return;
+        }
+        ScheduledFuture<?> future = watched.remove(uuid);
+        if (null != future) {
+            future.cancel(false);
+        }
+    }
+
+    /*
+     * error_info of the interrupt of an evicted workflow: {reason: "deadline_expired", deadline_ms}.
+     */
+    public static JSONObject getDeadlineErrorInfo(long deadlineMs) {
+        JSONObject errorInfo = new JSONObject();
+        try {
+            errorInfo.put("reason", REASON_DEADLINE_EXPIRED);
+            errorInfo.put("deadline_ms", deadlineMs);
+        } catch (Throwable e) {
+            Log.w(LOG_TAG, "Unexpected error while building error info");
+        }
+        return errorInfo;
+    }
+
+    public int getWatchedCount() {
+        return watched.size();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+}
@@ -25,6 +25,11 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 
 public class Utils {
@@ -36,6 +41,15 @@ public class Utils {
     */
 
     public static String getError(Object error, String internalErrorCode ){
+        long startNanos = System.nanoTime();
+        try {
+            return buildError(error, internalErrorCode);
+        } finally {
+            OstMetrics.getInstance().recordSince(OstMetrics.GET_ERROR, startNanos);
+        }
+    }
+
+    private static String buildError(Object error, String internalErrorCode ){
         String jsonError = null ;
         if( error instanceof OstError){
             return  ((OstError) error).toJSONObject().toString();
@@ -76,108 +90,305 @@ public class Utils {
         }
     }
 
+    /*
+    * Largest integer JS can represent exactly (Number.MAX_SAFE_INTEGER).
+    * Integral values beyond it are sent as strings so that wei amounts keep their precision.
+    */
+    static final long MAX_SAFE_INTEGER = 9007199254740991L;
+
     public static WritableMap convertJsonToMap(JSONObject jsonObject) throws JSONException {
+        if (!OstMetrics.getInstance().isEnabled()) {
+            return jsonToMap(jsonObject);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            return jsonToMap(jsonObject);
+        } finally {
+            OstMetrics.getInstance().recordSince(OstMetrics.CONVERT_JSON_TO_MAP, startNanos);
+        }
+    }
+
+    public static WritableArray convertJsonToArray(JSONArray jsonArray) throws JSONException {
+        if (!OstMetrics.getInstance().isEnabled()) {
+            return jsonToArray(jsonArray);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            return jsonToArray(jsonArray);
+        } finally {
+            OstMetrics.getInstance().recordSince(OstMetrics.CONVERT_JSON_TO_ARRAY, startNanos);
+        }
+    }
+
+    private static WritableMap jsonToMap(JSONObject jsonObject) throws JSONException {
         WritableMap map = new WritableNativeMap();
 
         Iterator<String> iterator = jsonObject.keys();
         while (iterator.hasNext()) {
             String key = iterator.next();
-            Object value = jsonObject.get(key);
-            if (value instanceof JSONObject) {
-                map.putMap(key, convertJsonToMap((JSONObject) value));
-            } else if (value instanceof  JSONArray) {
-                map.putArray(key, convertJsonToArray((JSONArray) value));
-            } else if (value instanceof  Boolean) {
-                map.putBoolean(key, (Boolean) value);
-            } else if (value instanceof  Integer) {
-                map.putInt(key, (Integer) value);
-            } else if (value instanceof  Double) {
-                map.putDouble(key, (Double) value);
-            } else if (value instanceof String)  {
-                map.putString(key, (String) value);
-            } else {
-                map.putString(key, value.toString());
-            }
+            putValue(map, key, jsonObject.get(key));
         }
         return map;
     }
 
-    public static WritableArray convertJsonToArray(JSONArray jsonArray) throws JSONException {
+    private static WritableArray jsonToArray(JSONArray jsonArray) throws JSONException {
         WritableArray array = new WritableNativeArray();
 
         for (int i = 0; i < jsonArray.length(); i++) {
-            Object value = jsonArray.get(i);
-            if (value instanceof JSONObject) {
-                array.pushMap(convertJsonToMap((JSONObject) value));
-            } else if (value instanceof  JSONArray) {
-                array.pushArray(convertJsonToArray((JSONArray) value));
-            } else if (value instanceof  Boolean) {
-                array.pushBoolean((Boolean) value);
-            } else if (value instanceof  Integer) {
-                array.pushInt((Integer) value);
-            } else if (value instanceof  Double) {
-                array.pushDouble((Double) value);
-            } else if (value instanceof String)  {
-                array.pushString((String) value);
-            } else {
-                array.pushString(value.toString());
-            }
+            pushValue(array, jsonArray.get(i));
         }
         return array;
     }
 
+    public static void putValue(WritableMap map, String key, Object value) throws JSONException {
+        if (value instanceof String)  {
+            map.putString(key, (String) value);
+        } else if (value instanceof JSONObject) {
+            map.putMap(key, jsonToMap((JSONObject) value));
+        } else if (value instanceof  JSONArray) {
+            map.putArray(key, jsonToArray((JSONArray) value));
+        } else if (value instanceof  Boolean) {
+            map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof  Integer) {
+            map.putInt(key, (Integer) value);
+        } else if (value instanceof  Double) {
+            map.putDouble(key, (Double) value);
+        } else if (value instanceof Number) {
+            putNumber(map, key, (Number) value);
+        } else if (null == value || JSONObject.NULL.equals(value)) {
+            map.putNull(key);
+        } else {
+            map.putString(key, value.toString());
+        }
+    }
+
+    public static void pushValue(WritableArray array, Object value) throws JSONException {
+        if (value instanceof String)  {
+            array.pushString((String) value);
+        } else if (value instanceof JSONObject) {
+            array.pushMap(jsonToMap((JSONObject) value));
+        } else if (value instanceof  JSONArray) {
+            array.pushArray(jsonToArray((JSONArray) value));
+        } else if (value instanceof  Boolean) {
+            array.pushBoolean((Boolean) value);
+        } else if (value instanceof  Integer) {
+            array.pushInt((Integer) value);
+        } else if (value instanceof  Double) {
+            array.pushDouble((Double) value);
+        } else if (value instanceof Number) {
+            pushNumber(array, (Number) value);
+        } else if (null == value || JSONObject.NULL.equals(value)) {
+            array.pushNull();
+        } else {
+            array.pushString(value.toString());
+        }
+    }
+
+    public static void putNumber(WritableMap map, String key, Number value) {
+        if (isSafeNumber(value)) {
+            map.putDouble(key, value.doubleValue());
+        } else {
+            map.putString(key, value.toString());
+        }
+    }
+
+    public static void pushNumber(WritableArray array, Number value) {
+        if (isSafeNumber(value)) {
+            array.pushDouble(value.doubleValue());
+        } else {
+            array.pushString(value.toString());
+        }
+    }
+
+    private static boolean isSafeNumber(Number value) {
+        if (value instanceof Long) {
+            long longValue = value.longValue();
+            return longValue <= MAX_SAFE_INTEGER && longValue >= -MAX_SAFE_INTEGER;
+        }
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).bitLength() <= 53;
+        }
+        if (value instanceof BigDecimal) {
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    * ReadableMap / ReadableArray conversions below walk the input iteratively using an explicit
+    * stack and write straight into the target containers. Integral numbers are kept as
+    * Integer / Long instead of being widened to Double.
+    */
+
     public static JSONObject convertMapToJson(ReadableMap readableMap) throws JSONException {
-        JSONObject object = new JSONObject();
-        ReadableMapKeySetIterator iterator = readableMap.keySetIterator();
-        while (iterator.hasNextKey()) {
-            String key = iterator.nextKey();
-            switch (readableMap.getType(key)) {
-                case Null:
-                    object.put(key, JSONObject.NULL);
-                    break;
-                case Boolean:
-                    object.put(key, readableMap.getBoolean(key));
-                    break;
-                case Number:
-                    object.put(key, readableMap.getDouble(key));
-                    break;
-                case String:
-                    object.put(key, readableMap.getString(key));
-                    break;
-                case Map:
-                    object.put(key, convertMapToJson(readableMap.getMap(key)));
-                    break;
-                case Array:
-                    object.put(key, convertArrayToJson(readableMap.getArray(key)));
-                    break;
-            }
+        long startNanos = System.nanoTime();
+        try {
+            return (JSONObject) convertReadable(readableMap, true);
+        } finally {
+            OstMetrics.getInstance().recordSince(OstMetrics.CONVERT_MAP_TO_JSON, startNanos);
         }
-        return object;
     }
 
     public static JSONArray convertArrayToJson(ReadableArray readableArray) throws JSONException {
-        JSONArray array = new JSONArray();
-        for (int i = 0; i < readableArray.size(); i++) {
-            switch (readableArray.getType(i)) {
-                case Null:
-                    break;
-                case Boolean:
-                    array.put(readableArray.getBoolean(i));
-                    break;
-                case Number:
-                    array.put(readableArray.getDouble(i));
-                    break;
-                case String:
-                    array.put(readableArray.getString(i));
-                    break;
-                case Map:
-                    array.put(convertMapToJson(readableArray.getMap(i)));
-                    break;
-                case Array:
-                    array.put(convertArrayToJson(readableArray.getArray(i)));
-                    break;
+        return (JSONArray) convertReadable(readableArray, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static HashMap<String, Object> convertMapToHashMap(ReadableMap readableMap) throws JSONException {
+        long startNanos = System.nanoTime();
+        try {
+            return (HashMap<String, Object>) convertReadable(readableMap, false);
+        } finally {
+            OstMetrics.getInstance().recordSince(OstMetrics.CONVERT_MAP_TO_HASH_MAP, startNanos);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ArrayList<Object> convertArrayToList(ReadableArray readableArray) throws JSONException {
+        return (ArrayList<Object>) convertReadable(readableArray, false);
+    }
+
+    private static final class ConversionFrame {
+        final ReadableMap map;
+        final ReadableMapKeySetIterator iterator;
+        final ReadableArray array;
+        final Object target;
+        int index = 0;
+
+        ConversionFrame(ReadableMap map, Object target) {
+            this.map = map;
+            this.iterator = map.keySetIterator();
+            this.array = null;
+            this.target = target;
+        }
+
+        ConversionFrame(ReadableArray array, Object target) {
+            this.map = null;
+            this.iterator = null;
+            this.array = array;
+            this.target = target;
+        }
+    }
+
+    private static Object convertReadable(Object source, boolean toJson) throws JSONException {
+        ArrayDeque<ConversionFrame> stack = new ArrayDeque<>();
+        Object root;
+        if (source instanceof ReadableMap) {
+            root = newMapContainer(toJson);
+            stack.push(new ConversionFrame((ReadableMap) source, root));
+        } else {
+            root = newArrayContainer(toJson);
+            stack.push(new ConversionFrame((ReadableArray) source, root));
+        }
+
+        while (!stack.isEmpty()) {
+            ConversionFrame frame = stack.peek();
+            if (null != frame.map) {
+                if (!frame.iterator.hasNextKey()) {
+                    stack.pop();
+                    continue;
+                }
+                String key = frame.iterator.nextKey();
+                switch (frame.map.getType(key)) {
+                    case Map: {
+                        Object child = newMapContainer(toJson);
+                        putInContainer(frame.target, key, child);
+                        stack.push(new ConversionFrame(frame.map.getMap(key), child));
+                        break;
+                    }
+                    case Array: {
+                        Object child = newArrayContainer(toJson);
+                        putInContainer(frame.target, key, child);
+                        stack.push(new ConversionFrame(frame.map.getArray(key), child));
+                        break;
+                    }
+                    case Boolean:
+                        putInContainer(frame.target, key, frame.map.getBoolean(key));
+                        break;
+                    case Number:
+                        putInContainer(frame.target, key, toNumber(frame.map.getDouble(key)));
+                        break;
+                    case String:
+                        putInContainer(frame.target, key, frame.map.getString(key));
+                        break;
+                    case Null:
+                        putInContainer(frame.target, key, toJson ? JSONObject.NULL : null);
+                        break;
+                }
+            } else {
+                if (frame.index >= frame.array.size()) {
+                    stack.pop();
+                    continue;
+                }
+                int i = frame.index++;
+                switch (frame.array.getType(i)) {
+                    case Map: {
+                        Object child = newMapContainer(toJson);
+                        addToContainer(frame.target, child);
+                        stack.push(new ConversionFrame(frame.array.getMap(i), child));
+                        break;
+                    }
+                    case Array: {
+                        Object child = newArrayContainer(toJson);
+                        addToContainer(frame.target, child);
+                        stack.push(new ConversionFrame(frame.array.getArray(i), child));
+                        break;
+                    }
+                    case Boolean:
+                        addToContainer(frame.target, frame.array.getBoolean(i));
+                        break;
+                    case Number:
+                        addToContainer(frame.target, toNumber(frame.array.getDouble(i)));
+                        break;
+                    case String:
+                        addToContainer(frame.target, frame.array.getString(i));
+                        break;
+                    case Null:
+                        addToContainer(frame.target, toJson ? JSONObject.NULL : null);
+                        break;
+                }
             }
         }
-        return array;
+        return root;
+    }
+
+    private static Object newMapContainer(boolean toJson) {
+        return toJson ? new JSONObject() : new HashMap<String, Object>();
+    }
+
+    private static Object newArrayContainer(boolean toJson) {
+        return toJson ? new JSONArray() : new ArrayList<Object>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putInContainer(Object container, String key, Object value) throws JSONException {
+        if (container instanceof JSONObject) {
+            ((JSONObject) container).put(key, value);
+        } else {
+            ((HashMap<String, Object>) container).put(key, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addToContainer(Object container, Object value) {
+        if (container instanceof JSONArray) {
+            ((JSONArray) container).put(value);
+        } else {
+            ((ArrayList<Object>) container).add(value);
+        }
+    }
+
+    /*
+    * JS numbers always arrive as double. Integral values are narrowed back
+    * to Integer / Long so that ids, counts and limits are not turned into "10.0".
+    */
+    static Object toNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) <= MAX_SAFE_INTEGER) {
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return (long) value;
+        }
+        return value;
     }
 }
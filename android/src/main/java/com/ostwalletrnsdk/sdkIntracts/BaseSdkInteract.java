@@ -14,14 +14,14 @@ import com.ost.walletsdk.workflows.errors.OstErrors;
 import com.ost.walletsdk.workflows.interfaces.*;
 import com.ostwalletrnsdk.OstWorkFlowCallbackImpl;
 
-import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class BaseSdkInteract {
 
-    public static HashMap<String, BaseSdkInteract> map = new HashMap<>();
+    public static final OstInteractRegistry registry = new OstInteractRegistry();
 
-    OstBaseInterface sdkCallback;
+    private final AtomicReference<OstBaseInterface> sdkCallback = new AtomicReference<>();
 
     public String getUUID() {
         return uuid;
@@ -38,24 +38,33 @@ public class BaseSdkInteract {
     BaseSdkInteract(OstBaseInterface sdkCallback, String workflowCallbackId) {
         this.uuid = UUID.randomUUID().toString();
         this.workflowCallbackId = workflowCallbackId;
-        this.sdkCallback = sdkCallback;
-        map.put(this.uuid, this);
+        this.sdkCallback.set(sdkCallback);
+        registry.register(this);
     }
 
     public void cancelFlow() {
-        getSdkCallbackForAction().cancelFlow();
+        OstBaseInterface instance = getSdkCallbackForAction();
+        if (null != instance) {
+            instance.cancelFlow();
+        }
     }
 
+    /*
+     * Hands out the sdk callback exactly once, even if JS answers the same interact twice.
+     * Returns null if the interact has already been answered or cleaned up.
+     */
     protected OstBaseInterface getSdkCallbackForAction() {
-        OstBaseInterface instance = this.sdkCallback;
-        this.cleanUp();
+        OstBaseInterface instance = this.sdkCallback.getAndSet(null);
+        registry.remove(this);
         return instance;
     }
 
     protected void errorEncountered(String internalErrorCode, OstErrors.ErrorCode errorCode) {
         getSdkCallbackForAction();
         OstWorkFlowCallbackImpl ostWorkFlowCallback = OstWorkFlowCallbackImpl.getInstance( this.workflowCallbackId );
-        ostWorkFlowCallback.errorEncountered( internalErrorCode , errorCode );
+        if (null != ostWorkFlowCallback) {
+            ostWorkFlowCallback.errorEncountered( internalErrorCode , errorCode );
+        }
     }
 
     public boolean messageReceived(String methodName, String jsonParams) {
@@ -68,7 +77,7 @@ public class BaseSdkInteract {
     }
 
     public void cleanUp() {
-        this.sdkCallback = null;
-        map.remove(this.uuid);
+        this.sdkCallback.set(null);
+        registry.remove(this);
     }
 }
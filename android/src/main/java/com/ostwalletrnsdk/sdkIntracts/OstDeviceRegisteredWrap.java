@@ -22,11 +22,14 @@ public class OstDeviceRegisteredWrap extends BaseSdkInteract {
     }
 
     public static OstDeviceRegisteredWrap getInstance(String uuid ){
-        return (OstDeviceRegisteredWrap) map.get( uuid );
+        return registry.lookup( uuid, OstDeviceRegisteredWrap.class );
     }
 
     void deviceRegistered(JSONObject jsonMethodParams) {
-        ((OstDeviceRegisteredInterface)getSdkCallbackForAction()).deviceRegistered( jsonMethodParams );
+        OstDeviceRegisteredInterface instance = (OstDeviceRegisteredInterface) getSdkCallbackForAction();
+        if (null != instance) {
+            instance.deviceRegistered( jsonMethodParams );
+        }
     }
 
     @Override
@@ -0,0 +1,172 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.sdkIntracts;
+
+import com.ostwalletrnsdk.OstWorkflowWatchdog;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Registry of interacts waiting for an answer from JS.
+ * Interacts are registered from SDK worker threads and looked up / removed from the
+ * native-modules thread, so the registry is backed by a ConcurrentHashMap.
+ * Typed lookups return null instead of throwing a ClassCastException when the uuid
+ * belongs to a different kind of interact.
+ * The pending interacts of a workflow are also kept per workflow. The watchdog deadline of a workflow is
+ * armed and disarmed under the lock of that set, so it is armed exactly while one of its interacts is pending.
+ */
+public class OstInteractRegistry {
+
+    private static final class WorkflowInteracts {
+        // Guarded by this.
+        final Set<BaseSdkInteract> pending = new HashSet<>();
+        // Guarded by this; set once the set is removed from byWorkflow.
+        boolean isRemoved = false;
+    }
+
+    private final ConcurrentHashMap<String, BaseSdkInteract> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, WorkflowInteracts> byWorkflow = new ConcurrentHashMap<>();
+    private final AtomicInteger liveCount = new AtomicInteger(0);
+
+    void register(BaseSdkInteract interact) {
+        String workflowCallbackId = interact.getWorkflowCallbackId();
+        if (null != workflowCallbackId) {
+            while (true) {
+                WorkflowInteracts workflowInteracts = byWorkflow.get(workflowCallbackId);
+                if (null == workflowInteracts) {
+                    WorkflowInteracts created = new WorkflowInteracts();
+                    workflowInteracts = byWorkflow.putIfAbsent(workflowCallbackId, created);
+                    if (null == workflowInteracts) {
+                        workflowInteracts = created;
+                    }
+                }
+                synchronized (workflowInteracts) {
+                    if (!workflowInteracts.isRemoved) {
+                        workflowInteracts.pending.add(interact);
+                        break;
+                    }
+                }
+                // Its last interact was removed in the meantime; try again.
+            }
+        }
+        if (null == entries.put(interact.getUUID(), interact)) {
+            liveCount.incrementAndGet();
+        }
+    }
+
+    boolean remove(BaseSdkInteract interact) {
+        if (!entries.remove(interact.getUUID(), interact)) {
+            return false;
+        }
+        liveCount.decrementAndGet();
+        String workflowCallbackId = interact.getWorkflowCallbackId();
+        WorkflowInteracts workflowInteracts = null == workflowCallbackId ? null : byWorkflow.get(workflowCallbackId);
+        if (null != workflowInteracts) {
+            synchronized (workflowInteracts) {
+                workflowInteracts.pending.remove(interact);
+                if (workflowInteracts.pending.isEmpty() && !workflowInteracts.isRemoved) {
+                    workflowInteracts.isRemoved = true;
+                    byWorkflow.remove(workflowCallbackId, workflowInteracts);
+                    // Answered or cleaned up: the workflow no longer waits on JS.
+                    OstWorkflowWatchdog.getInstance().unwatch(workflowCallbackId);
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Arms the deadline of the workflow if one of its interacts is pending; called before the interact is sent to JS.
+     */
+    public void watch(String workflowCallbackId, String workflowType, OstWorkflowWatchdog.Watchable watchable) {
+        WorkflowInteracts workflowInteracts = null == workflowCallbackId ? null : byWorkflow.get(workflowCallbackId);
+        if (null == workflowInteracts) {
+            return;
+        }
+        synchronized (workflowInteracts) {
+            if (!workflowInteracts.isRemoved && !workflowInteracts.pending.isEmpty()) {
+                OstWorkflowWatchdog.getInstance().watch(workflowCallbackId, workflowType, watchable);
+            }
+        }
+    }
+
+    public BaseSdkInteract lookup(String uuid) {
+        return lookup(uuid, BaseSdkInteract.class);
+    }
+
+    public <T extends BaseSdkInteract> T lookup(String uuid, Class<T> type) {
+        if (null == uuid) {
+            return null;
+        }
+        BaseSdkInteract interact = entries.get(uuid);
+        return type.isInstance(interact) ? type.cast(interact) : null;
+    }
+
+    /*
+     * Removes and returns the interact only if it is of the expected type.
+     * Of two concurrent takes for the same uuid, only one gets the interact.
+     */
+    public <T extends BaseSdkInteract> T take(String uuid, Class<T> type) {
+        T interact = lookup(uuid, type);
+        if (null != interact && remove(interact)) {
+            return interact;
+        }
+        return null;
+    }
+
+    /*
+     * Removes and returns every interact still waiting on JS for the given workflow; JS can no longer answer them,
+     * and the caller cancels them.
+     */
+    public List<BaseSdkInteract> takeAllForWorkflow(String workflowCallbackId) {
+        List<BaseSdkInteract> taken = new ArrayList<>();
+        for (BaseSdkInteract interact : getPending(workflowCallbackId)) {
+            if (remove(interact)) {
+                taken.add(interact);
+            }
+        }
+        return taken;
+    }
+
+    /*
+     * Drops every interact still registered for the given workflow, without answering it;
+     * called once the workflow has finished.
+     */
+    public int removeAllForWorkflow(String workflowCallbackId) {
+        int removed = 0;
+        for (BaseSdkInteract interact : getPending(workflowCallbackId)) {
+            if (remove(interact)) {
+                interact.cleanUp();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private List<BaseSdkInteract> getPending(String workflowCallbackId) {
+        WorkflowInteracts workflowInteracts = null == workflowCallbackId ? null : byWorkflow.get(workflowCallbackId);
+        if (null == workflowInteracts) {
+            return new ArrayList<>();
+        }
+        synchronized (workflowInteracts) {
+            return new ArrayList<>(workflowInteracts.pending);
+        }
+    }
+
+    public int size() {
+        return liveCount.get();
+    }
+}
@@ -9,12 +9,15 @@ public class OstPassphraseAcceptWrap extends BaseSdkInteract {
         super(sdkCallback, workflowCallbackId);
     }
 
-    public static OstPassphraseAcceptor getInstance(String uuid ){
-        return (OstPassphraseAcceptor) map.get( uuid );
+    public static OstPassphraseAcceptWrap getInstance(String uuid ){
+        return registry.lookup( uuid, OstPassphraseAcceptWrap.class );
     }
 
     void setPassphrase( String passphrase ){
-        ((OstPassphraseAcceptor)getSdkCallbackForAction()).setPassphrase( passphrase );
+        OstPassphraseAcceptor instance = (OstPassphraseAcceptor) getSdkCallbackForAction();
+        if (null != instance) {
+            instance.setPassphrase( passphrase );
+        }
     }
 
     public boolean messageReceived(String methodName, String passphrase ) {
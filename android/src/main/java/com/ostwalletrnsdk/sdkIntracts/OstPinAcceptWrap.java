@@ -19,11 +19,14 @@ public class OstPinAcceptWrap  extends  BaseSdkInteract{
     }
 
     public static OstPinAcceptWrap getInstance(String uuid ){
-        return (OstPinAcceptWrap) map.get( uuid );
+        return registry.lookup( uuid, OstPinAcceptWrap.class );
     }
 
     void pinEntered( UserPassphrase passphrase ){
-        ((OstPinAcceptInterface)getSdkCallbackForAction()).pinEntered( passphrase );
+        OstPinAcceptInterface instance = (OstPinAcceptInterface) getSdkCallbackForAction();
+        if (null != instance) {
+            instance.pinEntered( passphrase );
+        }
     }
 
 
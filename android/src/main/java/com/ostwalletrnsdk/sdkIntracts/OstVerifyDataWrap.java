@@ -19,11 +19,14 @@ public class OstVerifyDataWrap extends BaseSdkInteract {
     }
 
     public static OstVerifyDataWrap getInstance(String uuid ){
-        return (OstVerifyDataWrap) map.get( uuid );
+        return registry.lookup( uuid, OstVerifyDataWrap.class );
     }
 
     void dataVerified( ) {
-        ((OstVerifyDataInterface)getSdkCallbackForAction()).dataVerified( );
+        OstVerifyDataInterface instance = (OstVerifyDataInterface) getSdkCallbackForAction();
+        if (null != instance) {
+            instance.dataVerified( );
+        }
     }
 
     public boolean messageReceived(String methodName ) {
@@ -0,0 +1,281 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.simulator;
+
+import android.graphics.Bitmap;
+
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.models.entities.OstDevice;
+import com.ost.walletsdk.models.entities.OstSession;
+import com.ost.walletsdk.models.entities.OstToken;
+import com.ost.walletsdk.models.entities.OstUser;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ostwalletrnsdk.OstSdkFacade;
+import com.ostwalletrnsdk.Utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * In-memory OstSdkFacade for load-testing the bridge without a backend.
+ * Workflows drive their OstWorkFlowCallback through the same callbacks as the sdk
+ * (registerDevice, verifyData, getPin, pinValidated, requestAcknowledged, flowComplete / flowInterrupt),
+ * waiting a random latency before each step and failing at the given rate.
+ * Latencies and failures are drawn from a Random seeded with the seed and the workflow's start order,
+ * so the same sequence of workflow starts always plays out the same way.
+ * Entity getters return null: the local database is not simulated.
+ */
+public class SimulatedOstSdkFacade implements OstSdkFacade {
+
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    private final long seed;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicLong workflowCount = new AtomicLong(0);
+    private final AtomicInteger inFlightCount = new AtomicInteger(0);
+    private final AtomicLong completedCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong cancelledCount = new AtomicLong(0);
+    private final ConcurrentHashMap<String, Boolean> biometricPreferences = new ConcurrentHashMap<>();
+
+    private volatile long minLatencyMs = 0;
+    private volatile long maxLatencyMs = 0;
+    private volatile double failureRate = 0;
+
+    public SimulatedOstSdkFacade(long seed) {
+        this(seed, DEFAULT_POOL_SIZE);
+    }
+
+    public SimulatedOstSdkFacade(long seed, int poolSize) {
+        this.seed = seed;
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, poolSize), new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ost-simulator-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /*
+     * Latency of every sdk step, uniformly drawn from [minMs, maxMs].
+     */
+    public void setLatency(long minMs, long maxMs) {
+        minLatencyMs = Math.max(0, minMs);
+        maxLatencyMs = Math.max(minLatencyMs, maxMs);
+    }
+
+    /*
+     * Share of workflows that end in flowInterrupt after their interactive steps, between 0 and 1.
+     */
+    public void setFailureRate(double rate) {
+        failureRate = Math.max(0, Math.min(1, rate));
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    public long getStartedCount() {
+        return workflowCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public OstUser getUser(String userId) {
+        return null;
+    }
+
+    @Override
+    public OstToken getToken(String tokenId) {
+        return null;
+    }
+
+    @Override
+    public OstDevice getCurrentDeviceForUserId(String userId) {
+        return null;
+    }
+
+    @Override
+    public List<OstSession> getActiveSessionsForUserId(String userId, String minimumSpendingLimitInWei) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Bitmap getAddDeviceQRCode(String userId) {
+        return null;
+    }
+
+    @Override
+    public boolean isBiometricEnabled(String userId) {
+        return Boolean.TRUE.equals(biometricPreferences.get(userId));
+    }
+
+    @Override
+    public void setupDevice(String userId, String tokenId, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.SETUP_DEVICE, userId, callback);
+    }
+
+    @Override
+    public void activateUser(UserPassphrase passphrase, long expiresAfterInSecs, String spendingLimit, OstWorkFlowCallback callback) {
+        Utils.cleanPassPhrase(passphrase);
+        // UserPassphrase does not expose the user id.
+        start(OstWorkflowContext.WORKFLOW_TYPE.ACTIVATE_USER, null, callback);
+    }
+
+    @Override
+    public void addSession(String userId, String spendingLimit, long expiresAfterInSecs, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.ADD_SESSION, userId, callback);
+    }
+
+    @Override
+    public void executeTransaction(String userId,
+                                   List<String> tokenHolderAddresses,
+                                   List<String> amounts,
+                                   String ruleName,
+                                   Map<String, Object> meta,
+                                   Map<String, Object> options,
+                                   OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION, userId, callback);
+    }
+
+    @Override
+    public void getDeviceMnemonics(String userId, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.GET_DEVICE_MNEMONICS, userId, callback);
+    }
+
+    @Override
+    public void authorizeCurrentDeviceWithMnemonics(String userId, byte[] mnemonics, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.AUTHORIZE_DEVICE_WITH_MNEMONICS, userId, callback);
+    }
+
+    @Override
+    public void performQRAction(String userId, String data, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.PERFORM_QR_ACTION, userId, callback);
+    }
+
+    @Override
+    public void resetPin(String userId, UserPassphrase currentPassphrase, UserPassphrase newPassphrase, OstWorkFlowCallback callback) {
+        Utils.cleanPassPhrase(currentPassphrase);
+        Utils.cleanPassPhrase(newPassphrase);
+        start(OstWorkflowContext.WORKFLOW_TYPE.RESET_PIN, userId, callback);
+    }
+
+    @Override
+    public void revokeDevice(String userId, String deviceAddress, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.REVOKE_DEVICE, userId, callback);
+    }
+
+    @Override
+    public void initiateDeviceRecovery(String userId, UserPassphrase passphrase, String deviceAddressToRecover, OstWorkFlowCallback callback) {
+        Utils.cleanPassPhrase(passphrase);
+        start(OstWorkflowContext.WORKFLOW_TYPE.INITIATE_DEVICE_RECOVERY, userId, callback);
+    }
+
+    @Override
+    public void abortDeviceRecovery(String userId, UserPassphrase passphrase, OstWorkFlowCallback callback) {
+        Utils.cleanPassPhrase(passphrase);
+        start(OstWorkflowContext.WORKFLOW_TYPE.ABORT_DEVICE_RECOVERY, userId, callback);
+    }
+
+    @Override
+    public void updateBiometricPreference(final String userId, final boolean enable, OstWorkFlowCallback callback) {
+        SimulatedWorkflow workflow = start(OstWorkflowContext.WORKFLOW_TYPE.UPDATE_BIOMETRIC_PREFERENCE, userId, callback);
+        workflow.setOnComplete(new Runnable() {
+            @Override
+            public void run() {
+                if (null != userId) {
+                    biometricPreferences.put(userId, enable);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void logoutAllSessions(String userId, OstWorkFlowCallback callback) {
+        start(OstWorkflowContext.WORKFLOW_TYPE.LOGOUT_ALL_SESSIONS, userId, callback);
+    }
+
+    private SimulatedWorkflow start(OstWorkflowContext.WORKFLOW_TYPE workflowType, String userId, OstWorkFlowCallback callback) {
+        long sequence = workflowCount.getAndIncrement();
+        inFlightCount.incrementAndGet();
+        SimulatedWorkflow workflow = new SimulatedWorkflow(this, workflowType, userId, callback, workflowSeed(sequence));
+        workflow.start();
+        return workflow;
+    }
+
+    /*
+     * Random instances with nearby seeds start with correlated values, so the seed is scrambled (SplitMix64).
+     */
+    private long workflowSeed(long sequence) {
+        long z = seed + (sequence + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    long nextLatencyMs(Random random) {
+        long min = minLatencyMs;
+        long spread = maxLatencyMs - min;
+        return spread <= 0 ? min : min + (long) (random.nextDouble() * (spread + 1));
+    }
+
+    boolean shouldFail(Random random) {
+        return random.nextDouble() < failureRate;
+    }
+
+    void schedule(Runnable step, long delayMs) {
+        scheduler.schedule(step, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    void finished(SimulatedWorkflow.Outcome outcome) {
+        inFlightCount.decrementAndGet();
+        switch (outcome) {
+            case COMPLETED:
+                completedCount.incrementAndGet();
+                break;
+            case FAILED:
+                failedCount.incrementAndGet();
+                break;
+            case CANCELLED:
+            default:
+                cancelledCount.incrementAndGet();
+                break;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.simulator;
+
+import android.util.Log;
+
+import com.ost.walletsdk.OstSdk;
+import com.ost.walletsdk.ecKeyInteracts.UserPassphrase;
+import com.ost.walletsdk.workflows.OstContextEntity;
+import com.ost.walletsdk.workflows.OstWorkflowContext;
+import com.ost.walletsdk.workflows.errors.OstError;
+import com.ost.walletsdk.workflows.errors.OstErrors;
+import com.ost.walletsdk.workflows.interfaces.OstDeviceRegisteredInterface;
+import com.ost.walletsdk.workflows.interfaces.OstPinAcceptInterface;
+import com.ost.walletsdk.workflows.interfaces.OstVerifyDataInterface;
+import com.ost.walletsdk.workflows.interfaces.OstWorkFlowCallback;
+import com.ostwalletrnsdk.Utils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * One workflow of SimulatedOstSdkFacade: a fixed sequence of steps per workflow type,
+ * each run on the facade's scheduler after a random latency. Interactive steps
+ * (registerDevice, verifyData, getPin) wait for the bridge to answer before the next step is scheduled.
+ * A failing workflow ends in flowInterrupt in place of its first non-interactive step.
+ */
+final class SimulatedWorkflow {
+
+    private static final String LOG_TAG = "SimulatedWorkflow";
+
+    private static final String DEVICE = "device";
+    private static final String USER = "user";
+    private static final String SESSION = "session";
+    private static final String TRANSACTION = "transaction";
+    private static final String RECOVERY_OWNER = "recovery_owner";
+
+    private static final String SIMULATED_MNEMONICS =
+            "abandon ability able about above absent absorb abstract absurd abuse access accident";
+
+    enum Outcome {
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private enum Step {
+        REGISTER_DEVICE,
+        VERIFY_DATA,
+        GET_PIN,
+        ACKNOWLEDGE,
+        COMPLETE
+    }
+
+    private final SimulatedOstSdkFacade facade;
+    private final OstWorkflowContext context;
+    private final OstWorkflowContext.WORKFLOW_TYPE workflowType;
+    private final String userId;
+    private final OstWorkFlowCallback callback;
+    private final Random random;
+    private final Step[] steps;
+    private final boolean fails;
+    private final AtomicBoolean isFinished = new AtomicBoolean(false);
+    // Index of the interactive step waiting for an answer, -1 when none is.
+    private final AtomicInteger awaitingStep = new AtomicInteger(-1);
+    private int nextStep = 0;
+    private volatile Runnable onComplete;
+
+    SimulatedWorkflow(SimulatedOstSdkFacade facade,
+                      OstWorkflowContext.WORKFLOW_TYPE workflowType,
+                      String userId,
+                      OstWorkFlowCallback callback,
+                      long seed) {
+        this.facade = facade;
+        this.workflowType = workflowType;
+        this.context = new OstWorkflowContext(workflowType);
+        this.userId = userId;
+        this.callback = callback;
+        this.random = new Random(seed);
+        this.steps = stepsOf(workflowType);
+        this.fails = facade.shouldFail(random);
+    }
+
+    void setOnComplete(Runnable onComplete) {
+        this.onComplete = onComplete;
+    }
+
+    void start() {
+        scheduleNextStep();
+    }
+
+    private void scheduleNextStep() {
+        long latencyMs;
+        synchronized (random) {
+            latencyMs = facade.nextLatencyMs(random);
+        }
+        facade.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runNextStep();
+            }
+        }, latencyMs);
+    }
+
+    private void runNextStep() {
+        if (isFinished.get()) {
+            return;
+        }
+        final int stepIndex;
+        synchronized (this) {
+            stepIndex = nextStep++;
+        }
+        try {
+            switch (steps[stepIndex]) {
+                case REGISTER_DEVICE:
+                    awaitingStep.set(stepIndex);
+                    callback.registerDevice(apiParams(), new OstDeviceRegisteredInterface() {
+                        @Override
+                        public void deviceRegistered(JSONObject apiResponse) {
+                            answered(stepIndex);
+                        }
+
+                        @Override
+                        public void cancelFlow() {
+                            cancelled(stepIndex);
+                        }
+                    });
+                    break;
+                case VERIFY_DATA:
+                    awaitingStep.set(stepIndex);
+                    callback.verifyData(context, contextEntity(), new OstVerifyDataInterface() {
+                        @Override
+                        public void dataVerified() {
+                            answered(stepIndex);
+                        }
+
+                        @Override
+                        public void cancelFlow() {
+                            cancelled(stepIndex);
+                        }
+                    });
+                    break;
+                case GET_PIN:
+                    awaitingStep.set(stepIndex);
+                    callback.getPin(context, userId, new OstPinAcceptInterface() {
+                        @Override
+                        public void pinEntered(UserPassphrase passphrase) {
+                            Utils.cleanPassPhrase(passphrase);
+                            if (awaitingStep.compareAndSet(stepIndex, -1) && !isFinished.get()) {
+                                callback.pinValidated(context, userId);
+                                scheduleNextStep();
+                            }
+                        }
+
+                        @Override
+                        public void cancelFlow() {
+                            cancelled(stepIndex);
+                        }
+                    });
+                    break;
+                case ACKNOWLEDGE:
+                    if (fails) {
+                        fail();
+                        return;
+                    }
+                    callback.requestAcknowledged(context, contextEntity());
+                    scheduleNextStep();
+                    break;
+                case COMPLETE:
+                default:
+                    if (fails) {
+                        fail();
+                        return;
+                    }
+                    complete();
+                    break;
+            }
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unexpected error in simulated " + workflowType, e);
+            interrupt(new OstError("sim_sw_rns_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED), Outcome.FAILED);
+        }
+    }
+
+    /*
+     * The sdk ignores answers to an interact that is no longer pending.
+     */
+    private void answered(int stepIndex) {
+        if (awaitingStep.compareAndSet(stepIndex, -1) && !isFinished.get()) {
+            scheduleNextStep();
+        }
+    }
+
+    private void cancelled(int stepIndex) {
+        if (awaitingStep.compareAndSet(stepIndex, -1)) {
+            interrupt(new OstError("sim_sw_cf_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED), Outcome.CANCELLED);
+        }
+    }
+
+    private void fail() {
+        interrupt(new OstError("sim_sw_f_1", OstErrors.ErrorCode.UNCAUGHT_EXCEPTION_HANDELED), Outcome.FAILED);
+    }
+
+    private void complete() {
+        if (!isFinished.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable completion = onComplete;
+        if (null != completion) {
+            completion.run();
+        }
+        facade.finished(Outcome.COMPLETED);
+        callback.flowComplete(context, contextEntity());
+    }
+
+    private void interrupt(OstError error, Outcome outcome) {
+        if (!isFinished.compareAndSet(false, true)) {
+            return;
+        }
+        facade.finished(outcome);
+        callback.flowInterrupt(context, error);
+    }
+
+    private JSONObject apiParams() throws JSONException {
+        JSONObject device = new JSONObject();
+        device.put("user_id", userId);
+        device.put("address", randomAddress());
+        device.put("api_signer_address", randomAddress());
+        device.put("status", "CREATED");
+        return new JSONObject().put(DEVICE, device);
+    }
+
+    private OstContextEntity contextEntity() throws JSONException {
+        String entityType = entityTypeOf(workflowType);
+        if (OstSdk.MNEMONICS.equals(entityType)) {
+            return new OstContextEntity(SIMULATED_MNEMONICS.getBytes(), entityType);
+        }
+        JSONObject entity = new JSONObject();
+        entity.put("id", TRANSACTION.equals(entityType) ? randomHex(32) : randomAddress());
+        entity.put("user_id", userId);
+        entity.put("address", randomAddress());
+        entity.put("status", isFinished.get() ? "SUCCESS" : "PENDING");
+        entity.put("updated_timestamp", System.currentTimeMillis() / 1000);
+        return new OstContextEntity(entity, entityType);
+    }
+
+    private String randomAddress() {
+        return "0x" + randomHex(40);
+    }
+
+    private String randomHex(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        synchronized (random) {
+            while (builder.length() < length) {
+                builder.append(Long.toHexString(random.nextLong() & Long.MAX_VALUE));
+            }
+        }
+        return builder.substring(0, length);
+    }
+
+    private static Step[] stepsOf(OstWorkflowContext.WORKFLOW_TYPE workflowType) {
+        switch (workflowType) {
+            case SETUP_DEVICE:
+                return new Step[]{Step.REGISTER_DEVICE, Step.COMPLETE};
+            case PERFORM_QR_ACTION:
+                return new Step[]{Step.VERIFY_DATA, Step.GET_PIN, Step.ACKNOWLEDGE, Step.COMPLETE};
+            case ADD_SESSION:
+            case EXECUTE_TRANSACTION:
+            case REVOKE_DEVICE:
+            case LOGOUT_ALL_SESSIONS:
+                return new Step[]{Step.GET_PIN, Step.ACKNOWLEDGE, Step.COMPLETE};
+            case GET_DEVICE_MNEMONICS:
+            case UPDATE_BIOMETRIC_PREFERENCE:
+                return new Step[]{Step.GET_PIN, Step.COMPLETE};
+            default:
+                // Workflows that receive their passphrase or mnemonics up front.
+                return new Step[]{Step.ACKNOWLEDGE, Step.COMPLETE};
+        }
+    }
+
+    private static String entityTypeOf(OstWorkflowContext.WORKFLOW_TYPE workflowType) {
+        switch (workflowType) {
+            case ACTIVATE_USER:
+            case LOGOUT_ALL_SESSIONS:
+                return USER;
+            case ADD_SESSION:
+                return SESSION;
+            case EXECUTE_TRANSACTION:
+            case PERFORM_QR_ACTION:
+                return TRANSACTION;
+            case RESET_PIN:
+                return RECOVERY_OWNER;
+            case GET_DEVICE_MNEMONICS:
+                return OstSdk.MNEMONICS;
+            default:
+                return DEVICE;
+        }
+    }
+}
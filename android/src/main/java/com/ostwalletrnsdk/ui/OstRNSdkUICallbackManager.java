@@ -14,14 +14,19 @@ import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.module.annotations.ReactModule;
+import com.ostwalletrnsdk.OstWorkflowTracer;
 import com.ostwalletrnsdk.Utils;
 import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
 import com.ostwalletrnsdk.sdkIntracts.OstPassphraseAcceptWrap;
 
 import org.json.JSONObject;
 
+@ReactModule(name = OstRNSdkUICallbackManager.NAME)
 public class OstRNSdkUICallbackManager extends ReactContextBaseJavaModule {
 
+    public static final String NAME = "OstRNSdkUICallbackManager";
+
     private final ReactApplicationContext reactContext;
 
     public OstRNSdkUICallbackManager(ReactApplicationContext reactContext) {
@@ -31,25 +36,34 @@ public class OstRNSdkUICallbackManager extends ReactContextBaseJavaModule {
 
     @Override
     public String getName() {
-        return "OstRNSdkUICallbackManager";
+        return NAME;
     }
 
     @ReactMethod
     public void cancelFlow(
             String uuid
     ) {
-        BaseSdkInteract baseSdkInteract = BaseSdkInteract.map.get(uuid);
+        long receivedAtNanos = System.nanoTime();
+        BaseSdkInteract baseSdkInteract = BaseSdkInteract.registry.take(uuid, BaseSdkInteract.class);
         if (null != baseSdkInteract) {
             baseSdkInteract.messageReceived("cancelFlow"  , new JSONObject().toString());
+            OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "cancelFlow", receivedAtNanos);
         }
 
     }
 
     @ReactMethod
     public void setPassphrase( String uuid , String userId ,String userPassphrase, Callback errorCallback ){
+        long receivedAtNanos = System.nanoTime();
         try {
-            OstPassphraseAcceptWrap baseSdkInteract = (OstPassphraseAcceptWrap) BaseSdkInteract.map.get(uuid);
+            OstPassphraseAcceptWrap baseSdkInteract = BaseSdkInteract.registry.take(uuid, OstPassphraseAcceptWrap.class);
+            if (null == baseSdkInteract) {
+                errorCallback.invoke( Utils.getError(
+                        new IllegalStateException("No pending interact found for uuid " + uuid),  "rn_si_ornscm_sp_1") );
+                return;
+            }
             baseSdkInteract.messageReceived("setPassphrase", userPassphrase );
+            OstWorkflowTracer.getInstance().answer(baseSdkInteract.getWorkflowCallbackId(), "setPassphrase", receivedAtNanos);
         }catch ( Throwable e){
             errorCallback.invoke( Utils.getError( e ,  "rn_si_ornscm_sp_1") );
         }
@@ -1,12 +1,9 @@
 package com.ostwalletrnsdk.ui;
 
 
-import android.text.TextUtils;
 import android.util.Log;
 
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContext;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.ost.walletsdk.OstSdk;
 import com.ost.walletsdk.models.entities.OstBaseEntity;
 import com.ost.walletsdk.ui.OstPassphraseAcceptor;
@@ -18,36 +15,52 @@ import com.ost.walletsdk.workflows.OstContextEntity;
 import com.ost.walletsdk.workflows.OstWorkflowContext;
 import com.ost.walletsdk.workflows.errors.OstError;
 import com.ost.walletsdk.workflows.errors.OstErrors;
+import com.ostwalletrnsdk.OstEntitySnapshot;
+import com.ostwalletrnsdk.OstJsonApiResponseCache;
+import com.ostwalletrnsdk.OstRNSdkEventEmitter;
+import com.ostwalletrnsdk.OstWorkflowTracer;
+import com.ostwalletrnsdk.OstWorkflowWatchdog;
+import com.ostwalletrnsdk.sdkIntracts.BaseSdkInteract;
 import com.ostwalletrnsdk.sdkIntracts.OstPassphraseAcceptWrap;
 
 import org.json.JSONObject;
 
-import java.util.HashMap;
-
-import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class OstUICallbackImpl implements OstUserPassphraseCallback,
         RequestAcknowledgedListener,
         FlowInterruptListener,
-        FlowCompleteListener {
+        FlowCompleteListener,
+        OstWorkflowWatchdog.Watchable {
 
     private static final String LOG_TAG = "OstUserPassphraseCBImpl";
-    static private HashMap<String, OstUserPassphraseCallback> map = new HashMap<>();
+    static private ConcurrentHashMap<String, OstUserPassphraseCallback> map = new ConcurrentHashMap<>();
 
     public static OstUserPassphraseCallback getInstance(String uuid) {
         return map.get(uuid);
     }
 
+    public static int getLiveCount() {
+        return map.size();
+    }
+
     String uuid;
+    private final String userId;
+
+    private final AtomicBoolean isFinished = new AtomicBoolean(false);
 
     ReactApplicationContext reactContext;
     OstWorkflowContext pseudoContext;
 
-    OstUICallbackImpl(String uuid, ReactApplicationContext reactContext, OstWorkflowContext ostWorkflowContext) {
+    OstUICallbackImpl(String uuid, String userId, ReactApplicationContext reactContext, OstWorkflowContext ostWorkflowContext) {
         this.uuid = uuid;
+        this.userId = userId;
         this.reactContext = reactContext;
         this.pseudoContext = ostWorkflowContext;
         map.put(this.uuid, this);
+        OstWorkflowTracer.getInstance().start(this.uuid, getWorkflowTypeName(ostWorkflowContext));
     }
 
     @Override
@@ -63,12 +76,18 @@ public class OstUICallbackImpl implements OstUserPassphraseCallback,
             ostPinAcceptWrap.cancelFlow();
             return;
         }
+        // Armed before JS can answer; the registry disarms it once the passphrase is answered or cleaned up.
+        BaseSdkInteract.registry.watch(this.uuid, getWorkflowTypeName(pseudoContext), this);
         invokeCallback("getPassphrase", params, "OstPassphraseAcceptor", ostPinAcceptWrap.getUUID());
     }
 
 
     @Override
     public void flowComplete(OstWorkflowContext ostWorkflowContext, OstContextEntity ostContextEntity) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "flowComplete received after workflow finished");
+            return;
+        }
         JSONObject params = new JSONObject();
         try {
             params.put("ostWorkflowContext", convert(ostWorkflowContext));
@@ -77,17 +96,34 @@ public class OstUICallbackImpl implements OstUserPassphraseCallback,
         } catch (Throwable e) {
             Log.e(LOG_TAG, "Unexpected error in flowComplete");
         }
+        // Invalidated before JS is notified, so synchronous getters called from flowComplete see the new state.
+        OstEntitySnapshot.getInstance().invalidate(this.userId);
+        if (OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION == pseudoContext.getWorkflow_type()) {
+            OstJsonApiResponseCache.getInstance().invalidateBalances(this.userId);
+        }
         invokeCallback("flowComplete", params, null, null);
         cleanUp();
     }
 
     @Override
     public void flowInterrupt(OstWorkflowContext ostWorkflowContext, OstError ostError) {
+        flowInterrupt(ostWorkflowContext, ostError, null);
+    }
+
+    private void flowInterrupt(OstWorkflowContext ostWorkflowContext, OstError ostError, JSONObject errorInfo) {
+        if (!isFinished.compareAndSet(false, true)) {
+            Log.w(LOG_TAG, "flowInterrupt received after workflow finished");
+            return;
+        }
 
         JSONObject params = new JSONObject();
         try {
+            JSONObject errorJson = ostError.toJSONObject();
+            if (null != errorInfo) {
+                errorJson.put("error_info", errorInfo);
+            }
             params.put("ostWorkflowContext", convert(ostWorkflowContext));
-            params.put("ostError", ostError.toJSONObject() );
+            params.put("ostError", errorJson);
             params.put("ostWorkflowId", this.uuid);
         } catch (Throwable e) {
             Log.w(LOG_TAG, "Unexpected error in flowInterrupt");
@@ -131,38 +167,16 @@ public class OstUICallbackImpl implements OstUserPassphraseCallback,
         this.flowInterrupt(pseudoContext, error);
     }
 
-    private void sendEvent(ReactContext reactContext,
-                           String eventName,
-                           @Nullable JSONObject params) {
-        reactContext
-                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(eventName, params.toString());
-    }
-
     private void invokeCallback(String methodName, JSONObject params, String interactName, String interactId) {
-        JSONObject obj = new JSONObject();
-
-        try {
-            obj.put("uuid", this.uuid);
-            obj.put("functionName", methodName);
-
-            if (null != params) {
-                obj.put("params", params);
-            }
-
-            if (!TextUtils.isEmpty(interactName)) {
-                obj.put("interactName", interactName);
-            }
-
-            if (!TextUtils.isEmpty(interactId)) {
-                obj.put("interactuuid", interactId);
-            }
-
-        } catch (Throwable error) {
-            Log.e(LOG_TAG, "Unexpected error in  invokeCallback");
+        long emitStartNanos = System.nanoTime();
+        OstRNSdkEventEmitter.emit(this.reactContext, OstRNSdkEventEmitter.SDK_UI_EVENTS,
+                this.uuid, methodName, params, interactName, interactId);
+        long emitNanos = System.nanoTime() - emitStartNanos;
+        if ("flowComplete".equals(methodName) || "flowInterrupt".equals(methodName)) {
+            OstWorkflowTracer.getInstance().end(this.uuid, methodName, emitNanos);
+        } else {
+            OstWorkflowTracer.getInstance().callback(this.uuid, methodName, null != interactId, emitNanos);
         }
-
-        sendEvent(this.reactContext, "onOstWalletSdkUIEvents", obj);
     }
 
     private JSONObject convert(OstContextEntity contextEntity) {
@@ -198,5 +212,32 @@ public class OstUICallbackImpl implements OstUserPassphraseCallback,
 
     private void cleanUp() {
         map.remove(this.uuid);
+        // A passphrase request the sdk dropped by interrupting while JS still had to answer it.
+        BaseSdkInteract.registry.removeAllForWorkflow(this.uuid);
+        OstWorkflowWatchdog.getInstance().unwatch(this.uuid);
+    }
+
+    @Override
+    public void onDeadlineExpired(long deadlineMs) {
+        // Takes the passphrase request the sdk is blocked on; none left means JS has just answered.
+        List<BaseSdkInteract> expired = BaseSdkInteract.registry.takeAllForWorkflow(this.uuid);
+        if (expired.isEmpty()) {
+            return;
+        }
+        Log.e(LOG_TAG, String.format("Workflow %s got no answer from JS within %d ms", this.uuid, deadlineMs));
+        // Interrupted before the sdk is released, so that JS gets the timeout rather than the cancel the sdk reports.
+        this.flowInterrupt(pseudoContext, new OstError("rn_ouici_ode_1", OstErrors.ErrorCode.WORKFLOW_CANCELLED),
+                OstWorkflowWatchdog.getDeadlineErrorInfo(deadlineMs));
+        for (BaseSdkInteract interact : expired) {
+            interact.cancelFlow();
+        }
+    }
+
+    private static String getWorkflowTypeName(OstWorkflowContext context) {
+        try {
+            return context.getWorkflowType().name();
+        } catch (Throwable e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,402 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.ostwalletrnsdk.ui;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.ost.walletsdk.ui.OstWalletUI;
+import com.ostwalletrnsdk.OstInitPipeline;
+import com.ostwalletrnsdk.OstMetrics;
+import com.ostwalletrnsdk.Utils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Last applied theme and content configs of OstWalletUI.
+ * A config is hashed before it is converted, and one equal to the applied config is skipped; apps set the
+ * theme on every navigation and appearance change. Patches are merged into the applied config: nested maps
+ * merge key by key, other values replace, null removes the key.
+ * Applied configs are persisted and restored by OstInitPipeline once the sdk is initialized, without
+ * waiting for JS to set them again.
+ * Configs of a kind are applied under a lock of that kind, each time reading the latest entry, so the config
+ * applied last is always the one stored last, even when a set races with the pipeline applying the configs.
+ */
+public class OstUiConfigStore {
+
+    private static final String LOG_TAG = "OstUiConfigStore";
+
+    public static final String THEME = "theme";
+    public static final String CONTENT = "content";
+
+    private static final String PREFERENCES_NAME = "ost_wallet_rn_ui_config";
+    private static final String CONFIG_SUFFIX = "_config";
+    private static final String HASH_SUFFIX = "_hash";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final OstUiConfigStore INSTANCE = new OstUiConfigStore();
+
+    public static OstUiConfigStore getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Entry {
+        final JSONObject config;
+        final String hash;
+
+        Entry(JSONObject config, String hash) {
+            this.config = config;
+            this.hash = hash;
+        }
+    }
+
+    // Guarded by this.
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean isRestored = false;
+
+    private final Map<String, Object> applyLocks = new HashMap<>();
+    // Guarded by the apply lock of the kind.
+    private final Map<String, Entry> appliedEntries = new ConcurrentHashMap<>();
+
+    private OstUiConfigStore() {
+        applyLocks.put(THEME, new Object());
+        applyLocks.put(CONTENT, new Object());
+    }
+
+    /*
+     * Replaces the config of kind (THEME or CONTENT).
+     */
+    public void set(Context context, String kind, ReadableMap config) {
+        if (null == config) {
+            return;
+        }
+        String hash = hash(config);
+        if (isApplied(context, kind, hash)) {
+            OstMetrics.getInstance().increment(OstMetrics.UI_CONFIG_SKIPPED);
+            return;
+        }
+        JSONObject configObject;
+        try {
+            configObject = Utils.convertMapToJson(config);
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Unable to parse " + kind + " config", e);
+            return;
+        }
+        store(context, kind, new Entry(configObject, hash));
+    }
+
+    /*
+     * Merges patch into the config of kind (THEME or CONTENT).
+     */
+    public void patch(Context context, String kind, ReadableMap patch) {
+        if (null == patch) {
+            return;
+        }
+        JSONObject patchObject;
+        try {
+            patchObject = Utils.convertMapToJson(patch);
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Unable to parse " + kind + " config patch", e);
+            return;
+        }
+        Entry current;
+        synchronized (this) {
+            restoreIfNeeded(context);
+            current = entries.get(kind);
+        }
+        JSONObject merged;
+        try {
+            merged = merge(null == current ? new JSONObject() : current.config, patchObject);
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Unable to merge " + kind + " config patch", e);
+            return;
+        }
+        String hash = hash(merged);
+        if (null != current && hash.equals(current.hash)) {
+            OstMetrics.getInstance().increment(OstMetrics.UI_CONFIG_SKIPPED);
+            return;
+        }
+        store(context, kind, new Entry(merged, hash));
+    }
+
+    /*
+     * Applies the set and persisted configs; called once the sdk is initialized.
+     * Returns false if there was no config to apply.
+     */
+    public boolean applyAll(Context context) {
+        synchronized (this) {
+            restoreIfNeeded(context);
+        }
+        boolean hasTheme = applyLatest(context, THEME);
+        boolean hasContent = applyLatest(context, CONTENT);
+        return hasTheme || hasContent;
+    }
+
+    private synchronized boolean isApplied(Context context, String kind, String hash) {
+        restoreIfNeeded(context);
+        Entry current = entries.get(kind);
+        return null != current && hash.equals(current.hash);
+    }
+
+    private void store(Context context, String kind, Entry entry) {
+        synchronized (this) {
+            entries.put(kind, entry);
+        }
+        getPreferences(context).edit()
+                .putString(kind + CONFIG_SUFFIX, entry.config.toString())
+                .putString(kind + HASH_SUFFIX, entry.hash)
+                .apply();
+        // Stored before the check, so that a config set while the pipeline applies the configs is not lost.
+        if (OstInitPipeline.getInstance().isSdkInitialized()) {
+            applyLatest(context, kind);
+        }
+    }
+
+    /*
+     * Applies the latest entry of kind unless it is applied already. Returns false if there is none.
+     */
+    private boolean applyLatest(Context context, String kind) {
+        synchronized (applyLocks.get(kind)) {
+            Entry latest;
+            synchronized (this) {
+                latest = entries.get(kind);
+            }
+            if (null == latest) {
+                return false;
+            }
+            if (latest != appliedEntries.get(kind)) {
+                apply(context, kind, latest.config);
+                appliedEntries.put(kind, latest);
+            }
+            return true;
+        }
+    }
+
+    private static void apply(Context context, String kind, JSONObject config) {
+        try {
+            if (THEME.equals(kind)) {
+                OstWalletUI.setThemeConfig(context, config);
+            } else {
+                OstWalletUI.setContentConfig(context, config);
+            }
+            OstMetrics.getInstance().increment(OstMetrics.UI_CONFIG_APPLIED);
+        } catch (Throwable e) {
+            Log.e(LOG_TAG, "Unable to apply " + kind + " config", e);
+        }
+    }
+
+    // Guarded by this.
+    private void restoreIfNeeded(Context context) {
+        if (isRestored) {
+            return;
+        }
+        isRestored = true;
+        SharedPreferences preferences = getPreferences(context);
+        restore(preferences, THEME);
+        restore(preferences, CONTENT);
+    }
+
+    // Guarded by this.
+    private void restore(SharedPreferences preferences, String kind) {
+        if (entries.containsKey(kind)) {
+            return;
+        }
+        String config = preferences.getString(kind + CONFIG_SUFFIX, null);
+        String hash = preferences.getString(kind + HASH_SUFFIX, null);
+        if (null == config || null == hash) {
+            return;
+        }
+        try {
+            entries.put(kind, new Entry(new JSONObject(config), hash));
+        } catch (JSONException e) {
+            Log.e(LOG_TAG, "Unable to restore " + kind + " config", e);
+        }
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /*
+     * Returns a new object; base is not modified.
+     */
+    private static JSONObject merge(JSONObject base, JSONObject patch) throws JSONException {
+        JSONObject merged = new JSONObject();
+        Iterator<String> baseKeys = base.keys();
+        while (baseKeys.hasNext()) {
+            String key = baseKeys.next();
+            merged.put(key, base.get(key));
+        }
+        Iterator<String> patchKeys = patch.keys();
+        while (patchKeys.hasNext()) {
+            String key = patchKeys.next();
+            Object value = patch.get(key);
+            Object baseValue = merged.opt(key);
+            if (JSONObject.NULL.equals(value)) {
+                merged.remove(key);
+            } else if (value instanceof JSONObject && baseValue instanceof JSONObject) {
+                merged.put(key, merge((JSONObject) baseValue, (JSONObject) value));
+            } else {
+                merged.put(key, value);
+            }
+        }
+        return merged;
+    }
+
+    /*
+     * SHA-256 of a canonical form with sorted keys and numbers as doubles, so that a ReadableMap and
+     * the JSONObject converted from it hash the same.
+     */
+    static String hash(ReadableMap config) {
+        StringBuilder canonical = new StringBuilder();
+        appendMap(canonical, config);
+        return digest(canonical);
+    }
+
+    static String hash(JSONObject config) {
+        StringBuilder canonical = new StringBuilder();
+        appendJson(canonical, config);
+        return digest(canonical);
+    }
+
+    private static void appendMap(StringBuilder canonical, ReadableMap map) {
+        List<String> keys = new ArrayList<>();
+        ReadableMapKeySetIterator iterator = map.keySetIterator();
+        while (iterator.hasNextKey()) {
+            keys.add(iterator.nextKey());
+        }
+        Collections.sort(keys);
+        canonical.append('{').append(keys.size()).append(':');
+        for (String key : keys) {
+            appendString(canonical, key);
+            switch (map.getType(key)) {
+                case Map:
+                    appendMap(canonical, map.getMap(key));
+                    break;
+                case Array:
+                    appendArray(canonical, map.getArray(key));
+                    break;
+                case Boolean:
+                    canonical.append('b').append(map.getBoolean(key));
+                    break;
+                case Number:
+                    canonical.append('n').append(map.getDouble(key));
+                    break;
+                case String:
+                    appendString(canonical, map.getString(key));
+                    break;
+                case Null:
+                    canonical.append('z');
+                    break;
+            }
+        }
+        canonical.append('}');
+    }
+
+    private static void appendArray(StringBuilder canonical, ReadableArray array) {
+        canonical.append('[').append(array.size()).append(':');
+        for (int i = 0; i < array.size(); i++) {
+            switch (array.getType(i)) {
+                case Map:
+                    appendMap(canonical, array.getMap(i));
+                    break;
+                case Array:
+                    appendArray(canonical, array.getArray(i));
+                    break;
+                case Boolean:
+                    canonical.append('b').append(array.getBoolean(i));
+                    break;
+                case Number:
+                    canonical.append('n').append(array.getDouble(i));
+                    break;
+                case String:
+                    appendString(canonical, array.getString(i));
+                    break;
+                case Null:
+                    canonical.append('z');
+                    break;
+            }
+        }
+        canonical.append(']');
+    }
+
+    private static void appendJson(StringBuilder canonical, Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            List<String> keys = new ArrayList<>();
+            Iterator<String> iterator = object.keys();
+            while (iterator.hasNext()) {
+                keys.add(iterator.next());
+            }
+            Collections.sort(keys);
+            canonical.append('{').append(keys.size()).append(':');
+            for (String key : keys) {
+                appendString(canonical, key);
+                appendJson(canonical, object.opt(key));
+            }
+            canonical.append('}');
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            canonical.append('[').append(array.length()).append(':');
+            for (int i = 0; i < array.length(); i++) {
+                appendJson(canonical, array.opt(i));
+            }
+            canonical.append(']');
+        } else if (value instanceof Boolean) {
+            canonical.append('b').append(value);
+        } else if (value instanceof Number) {
+            canonical.append('n').append(((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            appendString(canonical, (String) value);
+        } else {
+            canonical.append('z');
+        }
+    }
+
+    private static void appendString(StringBuilder canonical, String value) {
+        canonical.append('s').append(value.length()).append(':').append(value);
+    }
+
+    private static String digest(StringBuilder canonical) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Android version; fall back to the canonical form itself.
+            return canonical.toString();
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
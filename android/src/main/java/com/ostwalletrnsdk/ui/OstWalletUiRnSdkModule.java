@@ -17,16 +17,16 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.module.annotations.ReactModule;
 import com.ost.walletsdk.ui.OstWalletUI;
 import com.ost.walletsdk.ui.sdkInteract.SdkInteract;
 import com.ost.walletsdk.workflows.OstWorkflowContext;
-import com.ostwalletrnsdk.Utils;
-
-import org.json.JSONException;
-import org.json.JSONObject;
 
+@ReactModule(name = OstWalletUiRnSdkModule.NAME)
 public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
 
+    public static final String NAME = "OstWalletSdkUI";
+
     private final ReactApplicationContext reactContext;
 
     public OstWalletUiRnSdkModule(ReactApplicationContext reactContext) {
@@ -36,14 +36,14 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
 
     @Override
     public String getName() {
-        return "OstWalletSdkUI";
+        return NAME;
     }
 
 
     @ReactMethod
     public void activateUser(String userId, String expiresAfterInSecs, String spendingLimit, String uuid ){
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.ACTIVATE_USER));
 
         String workflowId = OstWalletUI.activateUser(currentActivity,
@@ -58,7 +58,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void initiateDeviceRecovery(String userId, String deviceAddress, String uuid ){
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.INITIATE_DEVICE_RECOVERY));
         String workflowId = OstWalletUI.initiateDeviceRecovery(currentActivity,
                 userId,
@@ -71,7 +71,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void abortDeviceRecovery(String userId, String uuid ){
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.ABORT_DEVICE_RECOVERY));
         String workflowId = OstWalletUI.abortDeviceRecovery(currentActivity,
                 userId,
@@ -83,7 +83,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void addSession(String userId, String expiresAfterInSecs, String spendingLimit, String uuid ){
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.ADD_SESSION));
         String workflowId = OstWalletUI.createSession(currentActivity,
                 userId,
@@ -97,7 +97,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void resetPin(String userId, String uuid) {
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.RESET_PIN));
         String workflowId = OstWalletUI.resetPin(currentActivity,
                 userId,
@@ -110,7 +110,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void updateBiometricPreference(String userId, boolean enable, String uuid) {
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.UPDATE_BIOMETRIC_PREFERENCE));
         String workflowId = OstWalletUI.updateBiometricPreference(currentActivity,
                 userId,
@@ -123,7 +123,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     public void getDeviceMnemonics(String userId, String uuid) {
 
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.GET_DEVICE_MNEMONICS));
         String workflowId = OstWalletUI.getDeviceMnemonics(currentActivity,
                 userId,
@@ -135,7 +135,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void revokeDevice(String userId, String address, String uuid ) {
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.REVOKE_DEVICE));
         String workflowId = OstWalletUI.revokeDevice(currentActivity,
                 userId,
@@ -147,7 +147,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void authorizeCurrentDeviceWithMnemonics(String userId, String uuid) {
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.AUTHORIZE_DEVICE_WITH_MNEMONICS));
         String workflowId = OstWalletUI.authorizeCurrentDeviceWithMnemonics(currentActivity,
                 userId,
@@ -158,7 +158,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getAddDeviceQRCode(String userId, String uuid) {
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.SHOW_DEVICE_QR));
         String workflowId = OstWalletUI.getAddDeviceQRCode(currentActivity, userId);
         SdkInteract.getInstance().subscribe(workflowId, ostUICallback);
@@ -167,7 +167,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void scanQRCodeToAuthorizeDevice(String userId, String uuid) {
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.AUTHORIZE_DEVICE_WITH_QR_CODE));
         String workflowId = OstWalletUI.scanQRCodeToAuthorizeDevice(currentActivity, userId, ostUICallback);
         SdkInteract.getInstance().subscribe(workflowId, ostUICallback);
@@ -176,7 +176,7 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void scanQRCodeToExecuteTransaction(String userId, String uuid) {
         Activity currentActivity = getCurrentActivity();
-        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, this.reactContext,
+        OstUICallbackImpl ostUICallback = new OstUICallbackImpl( uuid, userId, this.reactContext,
                 new OstWorkflowContext(OstWorkflowContext.WORKFLOW_TYPE.EXECUTE_TRANSACTION));
         String workflowId = OstWalletUI.scanQRCodeToExecuteTransaction(currentActivity, userId, ostUICallback);
         SdkInteract.getInstance().subscribe(workflowId, ostUICallback);
@@ -184,24 +184,22 @@ public class OstWalletUiRnSdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void setThemeConfig(ReadableMap themeConfig){
-        JSONObject themeConfigObject = null;
-        try {
-            themeConfigObject = Utils.convertMapToJson(themeConfig);
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-        OstWalletUI.setThemeConfig(getReactApplicationContext(), themeConfigObject);
+        OstUiConfigStore.getInstance().set(getReactApplicationContext(), OstUiConfigStore.THEME, themeConfig);
     }
 
     @ReactMethod
     public void setContentConfig(ReadableMap contentConfig)  {
-        JSONObject contentConfigObject = null;
-        try {
-            contentConfigObject = Utils.convertMapToJson(contentConfig);
-        } catch (JSONException e) {
-            e.printStackTrace();
-        }
-        OstWalletUI.setContentConfig(getReactApplicationContext(), contentConfigObject);
+        OstUiConfigStore.getInstance().set(getReactApplicationContext(), OstUiConfigStore.CONTENT, contentConfig);
+    }
+
+    @ReactMethod
+    public void patchThemeConfig(ReadableMap themeConfigPatch) {
+        OstUiConfigStore.getInstance().patch(getReactApplicationContext(), OstUiConfigStore.THEME, themeConfigPatch);
+    }
+
+    @ReactMethod
+    public void patchContentConfig(ReadableMap contentConfigPatch) {
+        OstUiConfigStore.getInstance().patch(getReactApplicationContext(), OstUiConfigStore.CONTENT, contentConfigPatch);
     }
 
     @ReactMethod
@@ -9,7 +9,213 @@
  */
  
 import { NativeModules } from 'react-native';
-const { OstJsonApi } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstJsonApi = () => NativeModules.OstJsonApi;
 
+const cacheEndpoints = {
+  balance: "balance",
+  balanceWithPricePoints: "balance_with_price_points",
+  pricePoints: "price_points"
+};
 
-export default OstJsonApi;
+const canUseResponseCache = () => {
+  return typeof OstJsonApi().invalidateResponseCache === 'function';
+};
+
+const canUseNativeCursor = () => {
+  return typeof OstJsonApi().openTransactionsCursor === 'function';
+};
+
+const getNextPagePayload = (page) => {
+  const nextPagePayload = page && page.meta && page.meta.next_page_payload;
+  return nextPagePayload && Object.keys(nextPagePayload).length > 0 ? nextPagePayload : null;
+};
+
+class OstJsonApiWrapper {
+
+  constructor() {
+    this.cacheEndpoints = cacheEndpoints;
+    // Cursors of platforms without native cursors; pages are fetched on demand, without prefetching.
+    this._jsCursors = {};
+    this._jsCursorCount = 0;
+  }
+
+  /**
+   * Get balance of user.
+   * Android serves cached responses when available. Pass { forceRefresh: true } to skip the cache.
+   * @param {String} userId - Ost User id
+   * @param {function} successCallback
+   * @param {function} errorCallback
+   * @param {Object} [options]
+   * @param {Boolean} [options.forceRefresh=false]
+   * @public
+   */
+  getBalanceForUserId(userId, successCallback, errorCallback, options) {
+    this._invalidateIfForced(cacheEndpoints.balance, userId, options);
+    OstJsonApi().getBalanceForUserId(userId, successCallback, errorCallback);
+  }
+
+  /**
+   * Get balance and price points of user.
+   * Android serves cached responses when available. Pass { forceRefresh: true } to skip the cache.
+   * @param {String} userId - Ost User id
+   * @param {function} successCallback
+   * @param {function} errorCallback
+   * @param {Object} [options]
+   * @param {Boolean} [options.forceRefresh=false]
+   * @public
+   */
+  getBalanceWithPricePointForUserId(userId, successCallback, errorCallback, options) {
+    this._invalidateIfForced(cacheEndpoints.balanceWithPricePoints, userId, options);
+    OstJsonApi().getBalanceWithPricePointForUserId(userId, successCallback, errorCallback);
+  }
+
+  /**
+   * Get price points.
+   * Android serves cached responses when available. Pass { forceRefresh: true } to skip the cache.
+   * @param {String} userId - Ost User id
+   * @param {function} successCallback
+   * @param {function} errorCallback
+   * @param {Object} [options]
+   * @param {Boolean} [options.forceRefresh=false]
+   * @public
+   */
+  getPricePointForUserId(userId, successCallback, errorCallback, options) {
+    this._invalidateIfForced(cacheEndpoints.pricePoints, userId, options);
+    OstJsonApi().getPricePointForUserId(userId, successCallback, errorCallback);
+  }
+
+  getTransactionsForUserId(userId, requestPayload, successCallback, errorCallback) {
+    OstJsonApi().getTransactionsForUserId(userId, requestPayload, successCallback, errorCallback);
+  }
+
+  /**
+   * Open a paging cursor over transactions of user.
+   * On Android following pages are fetched in the background while the current one is shown, and a cursor
+   * not read from for 5 minutes is closed. Elsewhere pages are fetched when asked for.
+   * @param {String} userId - Ost User id
+   * @param {Object} requestPayload - Payload of the first page.
+   * @param {Object} [options]
+   * @param {Number} [options.prefetchDepth=1] - Number of pages fetched ahead, up to 5.
+   * @param {function} successCallback - Receives the cursor id.
+   * @param {function} errorCallback
+   * @public
+   */
+  openTransactionsCursor(userId, requestPayload, options, successCallback, errorCallback) {
+    if ( !canUseNativeCursor() ) {
+      const cursorId = 'js-cursor-' + (++this._jsCursorCount);
+      this._jsCursors[cursorId] = { userId: userId, nextPayload: requestPayload || {} };
+      successCallback && successCallback(cursorId);
+      return;
+    }
+    const prefetchDepth = (options && typeof options.prefetchDepth === 'number') ? options.prefetchDepth : 1;
+    OstJsonApi().openTransactionsCursor(userId, requestPayload || {}, prefetchDepth, successCallback, errorCallback);
+  }
+
+  /**
+   * Get next page of a transactions cursor.
+   * The response carries cursor_info.has_more; the cursor is closed after the last page.
+   * @param {String} cursorId
+   * @param {function} successCallback
+   * @param {function} errorCallback
+   * @public
+   */
+  nextTransactionsPage(cursorId, successCallback, errorCallback) {
+    if ( !canUseNativeCursor() ) {
+      this._nextJsCursorPage(cursorId, successCallback, errorCallback);
+      return;
+    }
+    OstJsonApi().nextTransactionsPage(cursorId, successCallback, errorCallback);
+  }
+
+  /**
+   * Close a transactions cursor and stop its prefetching.
+   * @param {String} cursorId
+   * @public
+   */
+  closeTransactionsCursor(cursorId) {
+    if ( !canUseNativeCursor() ) {
+      delete this._jsCursors[cursorId];
+      return;
+    }
+    OstJsonApi().closeTransactionsCursor(cursorId);
+  }
+
+  getPendingRecoveryForUserId(userId, successCallback, errorCallback) {
+    OstJsonApi().getPendingRecoveryForUserId(userId, successCallback, errorCallback);
+  }
+
+  getDeviceListForUserId(userId, requestPayload, successCallback, errorCallback) {
+    OstJsonApi().getDeviceListForUserId(userId, requestPayload, successCallback, errorCallback);
+  }
+
+  getCurrentDeviceForUserId(userId, successCallback, errorCallback) {
+    OstJsonApi().getCurrentDeviceForUserId(userId, successCallback, errorCallback);
+  }
+
+  /**
+   * Drop cached responses. Android only.
+   * Balances of a user are dropped on their own when a transaction of the user completes.
+   * @param {String} [endpoint] - One of cacheEndpoints. All endpoints when omitted.
+   * @param {String} [userId] - All users when omitted.
+   * @public
+   */
+  invalidateResponseCache(endpoint, userId) {
+    if ( !canUseResponseCache() ) {
+      return;
+    }
+    OstJsonApi().invalidateResponseCache(endpoint || null, userId || null);
+  }
+
+  /**
+   * Set cache policy of an endpoint. Android only.
+   * @param {String} endpoint - One of cacheEndpoints.
+   * @param {Number} ttlInMs - Duration for which a response is fresh. 0 disables caching.
+   * @param {Number} maxStaleInMs - Duration after ttl for which a stale response is served while it is refreshed.
+   * @public
+   */
+  setResponseCachePolicy(endpoint, ttlInMs, maxStaleInMs) {
+    if ( !canUseResponseCache() ) {
+      return;
+    }
+    OstJsonApi().setResponseCachePolicy(endpoint, Number(ttlInMs) || 0, Number(maxStaleInMs) || 0);
+  }
+
+  /**
+   * Get counters of the request coalescer. Android only.
+   * Identical concurrent requests (same api, user id and request payload) share one network call.
+   * @param {function} callback - Receives { issued_requests, coalesced_requests, in_flight_requests }.
+   * @public
+   */
+  getRequestCoalescingStats(callback) {
+    if ( typeof OstJsonApi().getRequestCoalescingStats !== 'function' ) {
+      return;
+    }
+    OstJsonApi().getRequestCoalescingStats(callback);
+  }
+
+  _nextJsCursorPage(cursorId, successCallback, errorCallback) {
+    const cursor = this._jsCursors[cursorId];
+    if ( !cursor ) {
+      errorCallback && errorCallback(new Error('Transactions cursor not found: ' + cursorId));
+      return;
+    }
+    this.getTransactionsForUserId(cursor.userId, cursor.nextPayload, (page) => {
+      page = page || {};
+      cursor.nextPayload = getNextPagePayload(page);
+      if ( !cursor.nextPayload ) {
+        delete this._jsCursors[cursorId];
+      }
+      page.cursor_info = { cursor_id: cursorId, has_more: !!cursor.nextPayload };
+      successCallback && successCallback(page);
+    }, errorCallback);
+  }
+
+  _invalidateIfForced(endpoint, userId, options) {
+    if ( options && options.forceRefresh && canUseResponseCache() ) {
+      OstJsonApi().invalidateResponseCache(endpoint, userId);
+    }
+  }
+}
+
+export default new OstJsonApiWrapper();
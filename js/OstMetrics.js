@@ -0,0 +1,79 @@
+/*
+ Copyright © 2019 OST.com Inc
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+import { NativeModules } from 'react-native';
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstMetrics = () => NativeModules.OstMetrics;
+
+/**
+ * Bridge traffic and conversion cost metrics. Android only; a no-op where the native module is missing.
+ */
+class OstMetricsWrapper {
+
+  /**
+   * Enable or disable collection. Disabled by default.
+   * @param {Boolean} enabled
+   * @public
+   */
+  setEnabled(enabled) {
+    if ( !OstMetrics() ) {
+      return;
+    }
+    OstMetrics().setEnabled(!!enabled);
+  }
+
+  /**
+   * Get current metrics.
+   * counters: events.<channel> (events emitted) and emits.<channel> (bridge emits, fewer when batching).
+   * histograms: payload_bytes.<callback name> (string payloads only, see setUseJsonStringPayload) and the *_us
+   * conversion timings, in microseconds.
+   * gauges: live entries of the workflow, ui workflow and interact registries.
+   * @param {function} callback - Gets { enabled, since, counters, histograms, gauges }
+   * @public
+   */
+  getSnapshot(callback) {
+    if ( !OstMetrics() ) {
+      callback && callback( null );
+      return;
+    }
+    OstMetrics().getSnapshot((snapshot) => {
+      callback && callback( snapshot );
+    });
+  }
+
+  /**
+   * Get creation times of the native modules of the sdk, which are created on first use.
+   * The first module created also pays for loading the OST sdk.
+   * @param {function} callback - Gets { eager_init, specs_ms, modules: { <name>: { created_after_ms, init_ms } } }
+   * @public
+   */
+  getModuleInitTimes(callback) {
+    if ( !OstMetrics() || typeof OstMetrics().getModuleInitTimes !== 'function' ) {
+      callback && callback( null );
+      return;
+    }
+    OstMetrics().getModuleInitTimes((initTimes) => {
+      callback && callback( initTimes );
+    });
+  }
+
+  /**
+   * Reset counters and histograms.
+   * @public
+   */
+  reset() {
+    if ( !OstMetrics() ) {
+      return;
+    }
+    OstMetrics().reset();
+  }
+}
+
+export default new OstMetricsWrapper();
@@ -9,7 +9,14 @@
  */
  
 import { NativeModules } from 'react-native';
-const { OstWalletSdk } = NativeModules;
+import OstUnifiedEmiter from './OstUnifiedEmiter';
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstWalletSdk = () => NativeModules.OstWalletSdk;
+
+const canCallSync = methodName => {
+  // Synchronous native methods need the JS engine to run on the device.
+  return typeof OstWalletSdk()[methodName] === 'function' && typeof global.nativeCallSyncHook !== 'undefined';
+};
 
 class OstWalletRNSdk {
     
@@ -33,11 +40,52 @@ class OstWalletRNSdk {
             fCallback = config;
         }
 
-        OstWalletSdk.initialize( endpoint , fConfig, (error)=>{
+        OstWalletSdk().initialize( endpoint , fConfig, (error)=>{
           fCallback && fCallback( error , !error );
         });
     }
 
+    /**
+     * Initialize wallet sdk in the background and preload the entities of a user, e.g. from the splash screen.
+     * Android only; elsewhere it is the same as initialize.
+     * @param {String} endpoint - OST Platform endpoint
+     * @param {Object} config - SDK Config
+     * @param {Object} [options]
+     * @param {String} [options.userId] - Ost User id whose user, current device and biometric preference are preloaded
+     * @param {String|Number} [options.tokenId] - Id of the token to preload
+     * @param {function} [options.onStage] - Gets { stage, status, duration_ms, elapsed_ms, error } for the stages
+     * config, sdk, ui_config, preload and ready. status is completed, skipped or failed.
+     * @param {function} callback - A typical node-style, error-first callback, called once the sdk is initialized.
+     * Getters and OstJsonApi calls made before then wait for the sdk to be initialized.
+     * @callback params {Object}error , {Boolean} success
+     * @public
+     */
+    initializeWithWarmUp( endpoint , config, options, callback ) {
+        options = options || {};
+        if ( typeof OstWalletSdk().initializeWithWarmUp !== 'function' ) {
+          this.initialize( endpoint, config, callback );
+          return;
+        }
+
+        let stageSubscription = null;
+        if ( typeof options.onStage === 'function' ) {
+          stageSubscription = OstUnifiedEmiter.addListener('onOstWalletSdkInitEvents', (stageEvent) => {
+            if ( stageEvent.stage === 'ready' ) {
+              stageSubscription.remove();
+            }
+            options.onStage( stageEvent );
+          });
+        }
+
+        let preloadOptions = {
+          userId: options.userId ? String( options.userId ) : null,
+          tokenId: options.tokenId ? String( options.tokenId ) : null
+        };
+        OstWalletSdk().initializeWithWarmUp( endpoint , typeof config === 'object' ? config : null, preloadOptions, (error)=>{
+          callback && callback( error , !error );
+        });
+    }
+
     /**
      * Setup user device 
      * @param {String} userId - Ost User id
@@ -46,7 +94,7 @@ class OstWalletRNSdk {
      * @public
      */
     setupDevice(userId, tokenId, workflow) {
-        OstWalletSdk.setupDevice(userId, tokenId, workflow.uuid);
+        OstWalletSdk().setupDevice(userId, tokenId, workflow.uuid);
     }
 
      /**
@@ -60,7 +108,7 @@ class OstWalletRNSdk {
      * @public
      */
     activateUser(userId, pin, passphrasePrefix, expiresAfterInSecs, spendingLimit, workflow) {
-        OstWalletSdk.activateUser(userId, pin, passphrasePrefix, String(expiresAfterInSecs), spendingLimit, workflow.uuid );
+        OstWalletSdk().activateUser(userId, pin, passphrasePrefix, String(expiresAfterInSecs), spendingLimit, workflow.uuid );
     }
 
     /**
@@ -72,7 +120,7 @@ class OstWalletRNSdk {
      * @public
      */
     addSession(userId, expireAfterInSecs, spendingLimit, workflow) {
-        OstWalletSdk.addSession(userId, String(expireAfterInSecs), spendingLimit, workflow.uuid);
+        OstWalletSdk().addSession(userId, String(expireAfterInSecs), spendingLimit, workflow.uuid);
     }
 
     /**
@@ -89,6 +137,22 @@ class OstWalletRNSdk {
      * @public
      */
     executeTransaction(userId, tokenHolderAddresses, amounts, ruleName, meta, workflow, options) {
+        if ( !options ) {
+            options = {};
+        }
+
+        if ( typeof options.wait_for_finalization === 'undefined') {
+            options.wait_for_finalization = true;
+        }
+
+        // Android takes arrays as they are, without a JSON round trip.
+        if ( tokenHolderAddresses instanceof Array && amounts instanceof Array
+            && typeof OstWalletSdk().executeTransactionWithArrays === 'function' ) {
+          let amountStrings = amounts.map((amount) => typeof amount === 'number' ? String(amount) : amount);
+          OstWalletSdk().executeTransactionWithArrays(userId, tokenHolderAddresses, amountStrings, ruleName, meta, options, workflow.uuid);
+          return;
+        }
+
         if( tokenHolderAddresses instanceof Array ){
           tokenHolderAddresses = JSON.stringify(tokenHolderAddresses);
         }
@@ -96,15 +160,32 @@ class OstWalletRNSdk {
           amounts = JSON.stringify(amounts);
         }
 
-        if ( !options ) {
-            options = {};
-        }
+        OstWalletSdk().executeTransaction(userId, tokenHolderAddresses, amounts, ruleName, meta , options, workflow.uuid);
+    }
 
-        if ( typeof options.wait_for_finalization === 'undefined') {
-            options.wait_for_finalization = true;
-        }
-       
-        OstWalletSdk.executeTransaction(userId, tokenHolderAddresses, amounts, ruleName, meta , options, workflow.uuid);
+    /**
+     * Execute a batch of transfers as one workflow. Android only.
+     * All specs are validated before the first transfer is submitted; an invalid spec interrupts the workflow with
+     * error_info { field, reason, spec, item } as described for executeTransaction. workflow.batchProgress is called for every
+     * transfer and flowComplete receives the results of all transfers.
+     * @param {string} userId - Ost User id
+     * @param {Array<Object>} specs - Transfers as { tokenHolderAddresses, amounts, ruleName, meta, options }.
+     * @param {OstWalletWorkFlowCallback} workflow - callback implementation instances for application communication
+     * @param {object} [options={}] - Batch options.
+     * @param {Number} [options.maxConcurrent=1] - Transfers running at a time. 1 runs them serially.
+     * @param {boolean} [options.stopOnFailure=false] - Skip remaining transfers after a failure.
+     * @public
+     */
+    executeTransactions(userId, specs, workflow, options) {
+        options = options || {};
+        let transferSpecs = (specs || []).map((spec) => {
+            let transferOptions = Object.assign({}, spec.options);
+            if ( typeof transferOptions.wait_for_finalization === 'undefined') {
+                transferOptions.wait_for_finalization = true;
+            }
+            return Object.assign({}, spec, { options: transferOptions });
+        });
+        OstWalletSdk().executeTransactions(userId, transferSpecs, options, workflow.uuid);
     }
 
      /**
@@ -114,7 +195,7 @@ class OstWalletRNSdk {
      * @public
      */
     getDeviceMnemonics(userId, workflow) {
-        OstWalletSdk.getDeviceMnemonics(userId, workflow.uuid);
+        OstWalletSdk().getDeviceMnemonics(userId, workflow.uuid);
     }
 
      /**
@@ -125,7 +206,7 @@ class OstWalletRNSdk {
      * @public
      */
     authorizeCurrentDeviceWithMnemonics(userId, mnemonics, workflow) {
-        OstWalletSdk.authorizeCurrentDeviceWithMnemonics(userId, mnemonics, workflow.uuid);
+        OstWalletSdk().authorizeCurrentDeviceWithMnemonics(userId, mnemonics, workflow.uuid);
     }
 
     /**
@@ -136,7 +217,22 @@ class OstWalletRNSdk {
      * @public
      */
     getAddDeviceQRCode(userId , successCallback , errorCallback ) {
-        OstWalletSdk.getAddDeviceQRCode( userId , successCallback , errorCallback); 
+        OstWalletSdk().getAddDeviceQRCode( userId , successCallback , errorCallback); 
+    }
+
+    /**
+     * Get device QR code as an image file in the app cache directory. Android only.
+     * The file is reused while the current device of the user does not change.
+     * @param {String} userId - Ost User id
+     * @param {Object} [options]
+     * @param {Number} [options.size] - Width and height in pixels. Rendered size when omitted.
+     * @param {String} [options.format='png'] - png, jpeg or webp.
+     * @param {function} successCallback - returns { uri, width, height, format, is_cached }.
+     * @param {function} errorCallback.
+     * @public
+     */
+    getAddDeviceQRCodeFile(userId , options , successCallback , errorCallback ) {
+        OstWalletSdk().getAddDeviceQRCodeFile( userId , options || {} , successCallback , errorCallback);
     }
 
     /**
@@ -147,7 +243,7 @@ class OstWalletRNSdk {
      * @public
      */
     revokeDevice( userId , deviceAddress , workflow){
-        OstWalletSdk.revokeDevice( userId , deviceAddress , workflow.uuid); 
+        OstWalletSdk().revokeDevice( userId , deviceAddress , workflow.uuid); 
     }
 
     /**
@@ -158,7 +254,7 @@ class OstWalletRNSdk {
      * @public
      */
     performQRAction(userId, data, workflow) {
-        OstWalletSdk.performQRAction( userId , data ,  workflow.uuid   );
+        OstWalletSdk().performQRAction( userId , data ,  workflow.uuid   );
     }
 
     /**
@@ -171,7 +267,7 @@ class OstWalletRNSdk {
      * @public
      */
     resetPin(userId, appSalt, currentPin, newPin, workflow ) {
-        OstWalletSdk.resetPin( userId , appSalt , currentPin , newPin , workflow.uuid ); 
+        OstWalletSdk().resetPin( userId , appSalt , currentPin , newPin , workflow.uuid ); 
     }
 
     /**
@@ -184,7 +280,7 @@ class OstWalletRNSdk {
      * @public
      */
     initiateDeviceRecovery(userId, pin, appSalt,  deviceAddressToRecover, workflow ) {
-        OstWalletSdk.initiateDeviceRecovery( userId, pin, appSalt, deviceAddressToRecover, workflow.uuid ); 
+        OstWalletSdk().initiateDeviceRecovery( userId, pin, appSalt, deviceAddressToRecover, workflow.uuid ); 
     }
 
     /**
@@ -196,7 +292,7 @@ class OstWalletRNSdk {
      * @public
      */
     abortDeviceRecovery( userId,  pin ,  appSalt , workflow ) {
-        OstWalletSdk.abortDeviceRecovery( userId,  pin ,  appSalt ,  workflow.uuid  ); 
+        OstWalletSdk().abortDeviceRecovery( userId,  pin ,  appSalt ,  workflow.uuid  ); 
     }
 
     /**
@@ -208,7 +304,7 @@ class OstWalletRNSdk {
      */
     updateBiometricPreference( userId , enable ,workflow ){
         enable =  !!enable; 
-        OstWalletSdk.updateBiometricPreference( userId,  enable,  workflow.uuid  ); 
+        OstWalletSdk().updateBiometricPreference( userId,  enable,  workflow.uuid  ); 
     }
 
      /**
@@ -218,7 +314,7 @@ class OstWalletRNSdk {
      * @public
      */
     logoutAllSessions(userId, workflow ) {
-        OstWalletSdk.logoutAllSessions( userId ,  workflow.uuid  ); 
+        OstWalletSdk().logoutAllSessions( userId ,  workflow.uuid  ); 
     }
 
     /**
@@ -229,7 +325,7 @@ class OstWalletRNSdk {
     * @public
     */
     getToken(tokenId, callback) {
-        OstWalletSdk.getToken(tokenId, (tokenEntity)=>{
+        OstWalletSdk().getToken(tokenId, (tokenEntity)=>{
             callback( tokenEntity );
         });
     }
@@ -242,7 +338,7 @@ class OstWalletRNSdk {
    * @public
    */
     getUser(userId, callback) {
-        OstWalletSdk.getUser(userId, (userEntity)=>{
+        OstWalletSdk().getUser(userId, (userEntity)=>{
           callback( userEntity );
         });
     }
@@ -255,7 +351,7 @@ class OstWalletRNSdk {
    * @public
    */
     getCurrentDeviceForUserId(userId, callback) {
-        OstWalletSdk.getCurrentDeviceForUserId(userId, (device)=>{
+        OstWalletSdk().getCurrentDeviceForUserId(userId, (device)=>{
           callback( device );
         });
     }
@@ -267,7 +363,7 @@ class OstWalletRNSdk {
    * @param callback - Gets biometric preference boolean value
    */
   isBiometricEnabled(userId, callback) {
-    OstWalletSdk.isBiometricEnabled(userId, (status) => {
+    OstWalletSdk().isBiometricEnabled(userId, (status) => {
       callback( status );
     })
   }
@@ -290,10 +386,219 @@ class OstWalletRNSdk {
             minimumSpendingLimitInWei = String( minimumSpendingLimitInWei );
         }
         console.log("getActiveSessionsForUserId userId", userId);
-        OstWalletSdk.getActiveSessionsForUserId(userId, minimumSpendingLimitInWei, (activeSessions)=>{
+        OstWalletSdk().getActiveSessionsForUserId(userId, minimumSpendingLimitInWei, (activeSessions)=>{
           theCallback && theCallback( activeSessions );
         });
     }
+
+  /**
+   * Synchronous getters. Android only; they return null (false for isBiometricEnabledSync) when unavailable.
+   * Served from a native snapshot that is refreshed whenever a workflow completes.
+   * Synchronous native methods are not available while debugging JS remotely.
+   */
+    getUserSync(userId) {
+        return canCallSync('getUserSync') ? OstWalletSdk().getUserSync(userId) : null;
+    }
+
+    getTokenSync(tokenId) {
+        return canCallSync('getTokenSync') ? OstWalletSdk().getTokenSync(tokenId) : null;
+    }
+
+    getCurrentDeviceForUserIdSync(userId) {
+        return canCallSync('getCurrentDeviceForUserIdSync') ? OstWalletSdk().getCurrentDeviceForUserIdSync(userId) : null;
+    }
+
+    isBiometricEnabledSync(userId) {
+        return canCallSync('isBiometricEnabledSync') ? !!OstWalletSdk().isBiometricEnabledSync(userId) : false;
+    }
+
+  /**
+   * Run several reads in one bridge call. Android only.
+   * @param {Array<Object>} reads - [{ key, type, userId | tokenId, minimumSpendingLimitInWei }], where type is one of
+   * 'user', 'token', 'currentDevice', 'activeSessions' and 'isBiometricEnabled'.
+   * @param {function} callback - Gets an object mapping key (index when absent) of every read to { data } or { error }.
+   * When the batch itself fails, gets null and the error.
+   * @public
+   */
+    batchGet(reads, callback) {
+        if ( typeof OstWalletSdk().batchGet !== 'function' ) {
+          callback && callback( null );
+          return;
+        }
+        OstWalletSdk().batchGet(reads || [], (results, error)=>{
+          callback && callback( results, error );
+        });
+    }
+
+  /**
+   * Enable or disable workflow tracing. Enabled by default. Android only.
+   * @param {Boolean} enabled
+   * @public
+   */
+    setWorkflowTracingEnabled(enabled) {
+        if ( typeof OstWalletSdk().setWorkflowTracingEnabled !== 'function' ) {
+          return;
+        }
+        OstWalletSdk().setWorkflowTracingEnabled(!!enabled);
+    }
+
+  /**
+   * Get trace of a workflow. Android only.
+   * The summary splits total_ms into js_ms (waiting for answers from JS), native_ms (bridge work) and sdk_ms.
+   * @param {OstWalletWorkFlowCallback|OstWalletUIWorkflowCallback|String} workflow - workflow or its uuid
+   * @param {function} callback - Gets { uuid, workflow_type, is_finished, result, total_ms, js_ms, native_ms, sdk_ms, events }
+   * or undefined when the workflow is unknown.
+   * @public
+   */
+    getWorkflowTrace(workflow, callback) {
+        if ( typeof OstWalletSdk().getWorkflowTrace !== 'function' ) {
+          callback && callback( null );
+          return;
+        }
+        let uuid = (typeof workflow === 'string') ? workflow : workflow.uuid;
+        OstWalletSdk().getWorkflowTrace(uuid, (summary)=>{
+          callback && callback( summary );
+        });
+    }
+
+  /**
+   * Get summaries of recently finished workflows. Android only.
+   * @param {function} callback - Gets array of trace summaries
+   * @public
+   */
+    getWorkflowTraceSummaries(callback) {
+        if ( typeof OstWalletSdk().getWorkflowTraceSummaries !== 'function' ) {
+          callback && callback( [] );
+          return;
+        }
+        OstWalletSdk().getWorkflowTraceSummaries((summaries)=>{
+          callback && callback( summaries );
+        });
+    }
+
+  /**
+   * Drop recorded workflow traces. Android only.
+   * @public
+   */
+    clearWorkflowTraces() {
+        if ( typeof OstWalletSdk().clearWorkflowTraces !== 'function' ) {
+          return;
+        }
+        OstWalletSdk().clearWorkflowTraces();
+    }
+
+  /**
+   * Configure native executor lanes. Android only.
+   * Reads run on a read pool, workflow starts on a workflow lane and pin submission on a crypto lane.
+   * @param {Object} config
+   * @param {Boolean} [config.enabled=true] - false runs everything on the native modules thread.
+   * @param {Number} [config.readPoolSize=2] - Threads of the read pool, up to 4.
+   * @public
+   */
+    setExecutorConfig(config) {
+        if ( typeof OstWalletSdk().setExecutorConfig !== 'function' ) {
+          return;
+        }
+        OstWalletSdk().setExecutorConfig(config || {});
+    }
+
+  /**
+   * Get pool size, queue depth, peak queue depth, active and completed task counts of every executor lane.
+   * Android only.
+   * @param {function} callback - Gets stats object
+   * @public
+   */
+    getExecutorStats(callback) {
+        if ( typeof OstWalletSdk().getExecutorStats !== 'function' ) {
+          callback && callback( null );
+          return;
+        }
+        OstWalletSdk().getExecutorStats((stats)=>{
+          callback && callback( stats );
+        });
+    }
+
+  /**
+   * Set how long a workflow may wait for the app to answer getPin, verifyData, registerDevice or getPassphrase.
+   * On expiry the request is cancelled and the workflow interrupted with WORKFLOW_CANCELLED, whose error_info
+   * is {reason: 'deadline_expired', deadline_ms} so that a timeout can be told from a cancel.
+   * Time spent queued or running in the sdk does not count. Android only.
+   * @param {String|null} workflowType - Workflow type (e.g. 'EXECUTE_TRANSACTION'). null sets the default deadline.
+   * @param {Number} deadlineInSecs - Deadline in seconds. 0 disables the deadline.
+   * @public
+   */
+    setWorkflowDeadline(workflowType, deadlineInSecs) {
+        if ( typeof OstWalletSdk().setWorkflowDeadline !== 'function' ) {
+          return;
+        }
+        OstWalletSdk().setWorkflowDeadline(workflowType || null, Number(deadlineInSecs) || 0);
+    }
+
+  /**
+   * Get live registry entries and eviction count of the workflow watchdog.
+   * Android only.
+   * @param {function} callback - Gets stats object
+   * @public
+   */
+    getWorkflowWatchdogStats(callback) {
+        if ( typeof OstWalletSdk().getWorkflowWatchdogStats !== 'function' ) {
+          callback && callback( null );
+          return;
+        }
+        OstWalletSdk().getWorkflowWatchdogStats((stats)=>{
+          callback && callback( stats );
+        });
+    }
+
+  /**
+   * Configure the workflow scheduler. Android only.
+   * When enabled, workflows of the same user run one after the other and at most maxConcurrent workflows run at once.
+   * Workflows held back receive the queued callback.
+   * @param {Object} config
+   * @param {Boolean} [config.enabled=false] - false starts every workflow right away.
+   * @param {Number} [config.maxConcurrent=4] - Workflows running at once.
+   * @param {Boolean} [config.serializePerUser=true] - Run one workflow per user at a time.
+   * @public
+   */
+    setWorkflowSchedulerConfig(config) {
+        if ( typeof OstWalletSdk().setWorkflowSchedulerConfig !== 'function' ) {
+          return;
+        }
+        OstWalletSdk().setWorkflowSchedulerConfig(config || {});
+    }
+
+  /**
+   * Cancel a queued workflow. It is interrupted with WORKFLOW_CANCELLED.
+   * Android only.
+   * @param {String} uuid - uuid of the workflow callback
+   * @param {function} callback - Gets true if the workflow was queued and is cancelled
+   * @public
+   */
+    cancelQueuedWorkflow(uuid, callback) {
+        if ( typeof OstWalletSdk().cancelQueuedWorkflow !== 'function' ) {
+          callback && callback( false );
+          return;
+        }
+        OstWalletSdk().cancelQueuedWorkflow(uuid, (isCancelled)=>{
+          callback && callback( isCancelled );
+        });
+    }
+
+  /**
+   * Get running and queued workflow counts of the workflow scheduler.
+   * Android only.
+   * @param {function} callback - Gets stats object
+   * @public
+   */
+    getWorkflowSchedulerStats(callback) {
+        if ( typeof OstWalletSdk().getWorkflowSchedulerStats !== 'function' ) {
+          callback && callback( null );
+          return;
+        }
+        OstWalletSdk().getWorkflowSchedulerStats((stats)=>{
+          callback && callback( stats );
+        });
+    }
 }
 
 export default new OstWalletRNSdk();
@@ -11,6 +11,9 @@
 import { callbackInvoker } from './callbackHandlers/OstWalletSdkCallbackManager';
 import { uiCallbackInvoker } from "./callbackHandlers/OstWalletSdkUICallbackManager"
 import OstUnifiedEmiter from './OstUnifiedEmiter';
+import { NativeModules } from 'react-native';
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstWalletSdk = () => NativeModules.OstWalletSdk;
 
 let eventSubscription = null;
 let eventUISubscription = null;
@@ -47,6 +50,54 @@ const ostWalletSdkEvents = {
       eventSubscription && eventSubscription.remove();
       eventUISubscription && eventUISubscription.remove();
       isEventSubscribed = false;
+    },
+
+     /**
+      * Use JSON string event payloads
+      * Android emits workflow events as native maps by default.
+      * Pass true to receive the older JSON string payloads instead.
+      * @param {Boolean} useJsonString
+      */
+    useJsonStringPayload( useJsonString ) {
+      if ( OstWalletSdk() && typeof OstWalletSdk().setUseJsonStringEventPayload === 'function' ) {
+        OstWalletSdk().setUseJsonStringEventPayload( !!useJsonString );
+      }
+    },
+
+     /**
+      * Enable or disable event batching
+      * When enabled, Android queues workflow events and delivers them together
+      * once per frame or once per window.
+      * @param {Boolean} enabled
+      * @param {Object} [options]
+      * @param {Number} [options.windowMs=0] - Flush window in ms. 0 flushes once per frame.
+      * @param {Number} [options.maxBatchSize=64] - Events after which the queue is flushed right away.
+      */
+    setEventBatching( enabled, options ) {
+      options = options || {};
+      if ( OstWalletSdk() && typeof OstWalletSdk().setEventBatching === 'function' ) {
+        OstWalletSdk().setEventBatching( !!enabled, Number(options.windowMs) || 0, Number(options.maxBatchSize) || 0 );
+      }
+    },
+
+     /**
+      * Set what happens to informational events while batching
+      * Events that wait for an answer (getPin, verifyData, ...) are always delivered right away,
+      * ahead of the informational events (requestAcknowledged, pinValidated, batchProgress) of other workflows.
+      * Events of one workflow are always delivered in order.
+      * 'none' delivers every informational event. 'drop' and 'merge' hold informational events until
+      * the window ends and keep at most maxInformationalDepth of them: 'drop' drops newer events,
+      * 'merge' replaces the queued event of the same workflow and callback, if any.
+      * Queue depths are reported as event_queue.* gauges of OstMetrics.
+      * @param {String} policy - 'none', 'drop' or 'merge'
+      * @param {Object} [options]
+      * @param {Number} [options.maxInformationalDepth=32]
+      */
+    setEventPressurePolicy( policy, options ) {
+      options = options || {};
+      if ( OstWalletSdk() && typeof OstWalletSdk().setEventPressurePolicy === 'function' ) {
+        OstWalletSdk().setEventPressurePolicy( String(policy || 'none'), Number(options.maxInformationalDepth) || 0 );
+      }
     }
 
 };
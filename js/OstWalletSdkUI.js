@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstWalletSdkUI } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstWalletSdkUI = () => NativeModules.OstWalletSdkUI;
 import OstWalletUIWorkflowCallback from './OstWalletUIWorkflowCallback';
 import OstWalletUICoreCallback from './OstWalletUICoreCallback';
 import * as OstWalletSdkUICallbackManager from './callbackHandlers/OstWalletSdkUICallbackManager';
@@ -21,7 +22,7 @@ class OstWalletRNSdkUI {
    * @param {object} config - Config for theme
    */
   setThemeConfig(config) {
-    OstWalletSdkUI.setThemeConfig(config)
+    OstWalletSdkUI().setThemeConfig(config)
   }
 
   /**
@@ -29,7 +30,33 @@ class OstWalletRNSdkUI {
    * @param {object} config - Config for content
    */
   setContentConfig(config) {
-    OstWalletSdkUI.setContentConfig(config)
+    OstWalletSdkUI().setContentConfig(config)
+  }
+
+  /**
+   * Merge changed keys into the theme config. Nested objects merge key by key, null removes a key.
+   * Android only; falls back to setThemeConfig elsewhere.
+   * @param {object} patch - Changed keys of theme config
+   */
+  patchThemeConfig(patch) {
+    if ( typeof OstWalletSdkUI().patchThemeConfig !== 'function' ) {
+      OstWalletSdkUI().setThemeConfig(patch);
+      return;
+    }
+    OstWalletSdkUI().patchThemeConfig(patch)
+  }
+
+  /**
+   * Merge changed keys into the content config. Nested objects merge key by key, null removes a key.
+   * Android only; falls back to setContentConfig elsewhere.
+   * @param {object} patch - Changed keys of content config
+   */
+  patchContentConfig(patch) {
+    if ( typeof OstWalletSdkUI().patchContentConfig !== 'function' ) {
+      OstWalletSdkUI().setContentConfig(patch);
+      return;
+    }
+    OstWalletSdkUI().patchContentConfig(patch)
   }
   /**
    * Active user
@@ -41,7 +68,7 @@ class OstWalletRNSdkUI {
    */
   activateUser(userId, expiresAfterInSecs, spendingLimit, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.activateUser(userId, String(expiresAfterInSecs), String(spendingLimit), coreUiCallback.uuid);
+    OstWalletSdkUI().activateUser(userId, String(expiresAfterInSecs), String(spendingLimit), coreUiCallback.uuid);
     return coreUiCallback.uuid;
   }
 
@@ -54,7 +81,7 @@ class OstWalletRNSdkUI {
    */
   initiateDeviceRecovery(userId, deviceAddressToRecover, uiCallback ) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.initiateDeviceRecovery( userId, deviceAddressToRecover, coreUiCallback.uuid ); 
+    OstWalletSdkUI().initiateDeviceRecovery( userId, deviceAddressToRecover, coreUiCallback.uuid ); 
     return coreUiCallback.uuid;
   }
 
@@ -66,7 +93,7 @@ class OstWalletRNSdkUI {
    */
   abortDeviceRecovery( userId, uiCallback ) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.abortDeviceRecovery( userId, coreUiCallback.uuid); 
+    OstWalletSdkUI().abortDeviceRecovery( userId, coreUiCallback.uuid); 
     return coreUiCallback.uuid;
   }
 
@@ -82,7 +109,7 @@ class OstWalletRNSdkUI {
    */
   addSession(userId, expiresAfterInSecs, spendingLimit, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.addSession(userId, String(expiresAfterInSecs), String(spendingLimit), coreUiCallback.uuid);
+    OstWalletSdkUI().addSession(userId, String(expiresAfterInSecs), String(spendingLimit), coreUiCallback.uuid);
     return coreUiCallback.uuid;
   }
 
@@ -95,7 +122,7 @@ class OstWalletRNSdkUI {
    */
   revokeDevice(userId, deviceAddressToRevoke, uiCallback ) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.revokeDevice( userId, deviceAddressToRevoke, coreUiCallback.uuid );
+    OstWalletSdkUI().revokeDevice( userId, deviceAddressToRevoke, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -107,7 +134,7 @@ class OstWalletRNSdkUI {
    */
   getDeviceMnemonics(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.getDeviceMnemonics( userId, coreUiCallback.uuid );
+    OstWalletSdkUI().getDeviceMnemonics( userId, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -121,7 +148,7 @@ class OstWalletRNSdkUI {
   updateBiometricPreference( userId , enable , uiCallback ){
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
     enable =  !!enable;
-    OstWalletSdkUI.updateBiometricPreference( userId,  enable,  coreUiCallback.uuid  );
+    OstWalletSdkUI().updateBiometricPreference( userId,  enable,  coreUiCallback.uuid  );
     return coreUiCallback.uuid;
   }
 
@@ -133,7 +160,7 @@ class OstWalletRNSdkUI {
    */
   authorizeCurrentDeviceWithMnemonics(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.authorizeCurrentDeviceWithMnemonics(userId, coreUiCallback.uuid);
+    OstWalletSdkUI().authorizeCurrentDeviceWithMnemonics(userId, coreUiCallback.uuid);
 
     return coreUiCallback.uuid;
   }
@@ -147,7 +174,7 @@ class OstWalletRNSdkUI {
    */
   resetPin(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.resetPin( userId, coreUiCallback.uuid );
+    OstWalletSdkUI().resetPin( userId, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -160,7 +187,7 @@ class OstWalletRNSdkUI {
    */
   getAddDeviceQRCode(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.getAddDeviceQRCode( userId, coreUiCallback.uuid );
+    OstWalletSdkUI().getAddDeviceQRCode( userId, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -172,7 +199,7 @@ class OstWalletRNSdkUI {
    */
   scanQRCodeToAuthorizeDevice(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.scanQRCodeToAuthorizeDevice( userId, coreUiCallback.uuid );
+    OstWalletSdkUI().scanQRCodeToAuthorizeDevice( userId, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -185,7 +212,7 @@ class OstWalletRNSdkUI {
    */
   scanQRCodeToExecuteTransaction(userId, uiCallback) {
     let coreUiCallback = this._getCoreUiCallback(uiCallback);
-    OstWalletSdkUI.scanQRCodeToExecuteTransaction( userId, coreUiCallback.uuid );
+    OstWalletSdkUI().scanQRCodeToExecuteTransaction( userId, coreUiCallback.uuid );
     return coreUiCallback.uuid;
   }
 
@@ -193,7 +220,7 @@ class OstWalletRNSdkUI {
    * Show device component sheet
    */
   showComponentSheet() {
-    OstWalletSdkUI.showComponentSheet()
+    OstWalletSdkUI().showComponentSheet()
   }
 
   /* End: Reserved space for other workflow methods. */
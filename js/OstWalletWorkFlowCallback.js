@@ -78,6 +78,22 @@ class OstWalletWorkFlowCallback {
      */
     requestAcknowledged(ostWorkflowContext , ostContextEntity ) {  }
 
+     /**
+     * Batch progress. Called by executeTransactions for every transfer that is acknowledged or finished.
+     * @param {Object} ostWorkflowContext - info about workflow type
+     * @param {Object} progress - result of the transfer along with total, completed, succeeded and failed counts
+     * @override
+     */
+    batchProgress(ostWorkflowContext , progress ) {  }
+
+     /**
+     * Workflow queued. Called when the workflow scheduler holds the workflow back until conflicting workflows finish.
+     * @param {Object} ostWorkflowContext - info about workflow type
+     * @param {Object} queueInfo - position (1 starts next), running and max_concurrent
+     * @override
+     */
+    queued(ostWorkflowContext , queueInfo ) {  }
+
      /**
      * Flow complete
      * @param ostWorkflowContext - workflow type
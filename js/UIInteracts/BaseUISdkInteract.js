@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstRNSdkUICallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkUICallbackManager = () => NativeModules.OstRNSdkUICallbackManager;
 
 let instantiateOstError;
 import('../callbackHandlers/OstWalletSdkCallbackManager').then((imports) => {
@@ -24,7 +25,7 @@ class BaseUISdkInteract {
   }
 
   cancelFlow(  ) {
-    OstRNSdkUICallbackManager.cancelFlow( this.interactuuid );
+    OstRNSdkUICallbackManager().cancelFlow( this.interactuuid );
   }
 
   static errorCallbackInvoker( error , callback ){
@@ -1,5 +1,6 @@
 import { NativeModules } from 'react-native';
-const { OstRNSdkUICallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkUICallbackManager = () => NativeModules.OstRNSdkUICallbackManager;
 
 import BaseUISdkInteract from './BaseUISdkInteract';
 
@@ -10,7 +11,7 @@ class OstPassphrasePrefixAccept extends BaseUISdkInteract {
 
   setPassphrase(passphrasePrefixString, ostUserId, errorCallback) {
 
-    OstRNSdkUICallbackManager.setPassphrase(this.interactuuid, ostUserId, passphrasePrefixString, function( error ){
+    OstRNSdkUICallbackManager().setPassphrase(this.interactuuid, ostUserId, passphrasePrefixString, function( error ){
       BaseSdkInteract.errorCallbackInvoker( error , errorCallback );
     });
   }
@@ -36,6 +36,11 @@ const callbackInvoker = params =>  {
           return;
         }
     }
+    if ( Array.isArray(params) ) {
+        // Batched events. Dispatch in the order they were emitted.
+        params.forEach( callbackInvoker );
+        return;
+    }
     let workflowuuid = params['uuid'],
         instance = getInstance( workflowuuid  ),
         functionName = params['functionName'],
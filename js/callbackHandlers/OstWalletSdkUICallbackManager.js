@@ -38,6 +38,11 @@ const uiCallbackInvoker = params =>  {
       return;
     }
   }
+  if ( Array.isArray(params) ) {
+    // Batched events. Dispatch in the order they were emitted.
+    params.forEach( uiCallbackInvoker );
+    return;
+  }
   let workflowuuid = params['uuid'],
     instance = getInstance( workflowuuid  ),
     functionName = params['functionName'],
@@ -16,7 +16,9 @@ import OstVerifyData from '../interacts/OstVerifyData';
 const ostWorkflowContextKey = "ostWorkflowContext",
       ostContextEntityKey   = "ostContextEntity",
       ostErrorKey   = "ostError",
-      userIdKey     = "userId"
+      userIdKey     = "userId",
+      progressKey   = "progress",
+      queueKey      = "queue"
 ;
 
 let clearInstance, instantiateOstError;
@@ -73,6 +75,20 @@ class OstWalletWorkFlowCallbackIntercepts {
         instance && method.apply(instance, args);
     }
 
+    batchProgress( instance, method, data , interactuuid ) {
+        let ostWorkflowContext = data[ostWorkflowContextKey],
+            progress = data[progressKey],
+            args = [ostWorkflowContext , progress];
+        instance && method && method.apply(instance, args);
+    }
+
+    queued( instance, method, data , interactuuid ) {
+        let ostWorkflowContext = data[ostWorkflowContextKey],
+            queueInfo = data[queueKey],
+            args = [ostWorkflowContext , queueInfo];
+        instance && method && method.apply(instance, args);
+    }
+
     flowComplete( instance, method, data , interactuuid ) {
         let ostWorkflowContext = data[ostWorkflowContextKey],
             ostContextEntity = data[ostContextEntityKey],
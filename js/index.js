@@ -16,6 +16,7 @@ import OstWalletError from './OstRNError/OstRNError';
 import OstJsonApi from './OstJsonApi';
 import OstWalletUIWorkflowCallback from './OstWalletUIWorkflowCallback';
 import OstWalletSdkUI from './OstWalletSdkUI';
+import OstMetrics from './OstMetrics';
 export {
     OstWalletSdk,
     OstWalletSdkEvents,
@@ -25,4 +26,5 @@ export {
     OstJsonApi,
     OstWalletSdkUI,
     OstWalletUIWorkflowCallback,
+    OstMetrics,
 }
@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstRNSdkCallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkCallbackManager = () => NativeModules.OstRNSdkCallbackManager;
 
 let instantiateOstError;
 import('../callbackHandlers/OstWalletSdkCallbackManager').then((imports) => {
@@ -24,7 +25,7 @@ class BaseSdkInteract {
     }
 
     cancelFlow(  ) {
-        OstRNSdkCallbackManager.cancelFlow( this.interactuuid );
+        OstRNSdkCallbackManager().cancelFlow( this.interactuuid );
     }
 
     static errorCallbackInvoker( error , callback ){
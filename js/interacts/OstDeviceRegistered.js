@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstRNSdkCallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkCallbackManager = () => NativeModules.OstRNSdkCallbackManager;
 
 import BaseSdkInteract from './BaseSdkInteract';
 
@@ -24,7 +25,7 @@ class OstDeviceRegistered extends BaseSdkInteract {
     }catch (e){
       console.warn("Unexpected JSON Object apiResponse in deviceRegistered", apiResponse );
     }
-    OstRNSdkCallbackManager.deviceRegistered(this.interactuuid, apiResponse, function( error ){
+    OstRNSdkCallbackManager().deviceRegistered(this.interactuuid, apiResponse, function( error ){
       BaseSdkInteract.errorCallbackInvoker( error , errorCallback );
     });
   }
@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstRNSdkCallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkCallbackManager = () => NativeModules.OstRNSdkCallbackManager;
 
 import BaseSdkInteract from './BaseSdkInteract';
 
@@ -19,7 +20,7 @@ class OstPinAccept extends BaseSdkInteract {
     }
 
     pinEntered(userId, pin, passphrasePrefix, errorCallback) {
-        OstRNSdkCallbackManager.pinEntered(this.interactuuid, userId, pin, passphrasePrefix,  function( error ) {
+        OstRNSdkCallbackManager().pinEntered(this.interactuuid, userId, pin, passphrasePrefix,  function( error ) {
             BaseSdkInteract.errorCallbackInvoker( error , errorCallback );
         });
     }
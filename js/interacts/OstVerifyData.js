@@ -9,7 +9,8 @@
  */
 
 import { NativeModules } from 'react-native';
-const { OstRNSdkCallbackManager } = NativeModules;
+// Looked up on every use, so that the native module is only created once the sdk is used.
+const OstRNSdkCallbackManager = () => NativeModules.OstRNSdkCallbackManager;
 
 import BaseSdkInteract from './BaseSdkInteract';
 
@@ -19,7 +20,7 @@ class OstVerifyData extends BaseSdkInteract {
     }
 
     dataVerified( errorCallback ) {
-        OstRNSdkCallbackManager.dataVerified(this.interactuuid, function( error ) {
+        OstRNSdkCallbackManager().dataVerified(this.interactuuid, function( error ) {
             BaseSdkInteract.errorCallbackInvoker( error , errorCallback );
         } );
     }